@@ -0,0 +1,99 @@
+// AutoSaveService.java - 后台自动保存服务
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 自动保存服务 - 根据ScheduleManager的修改计数判断是否需要保存
+ * 数据未变化时直接跳过；有变化时在调用线程（界面线程）上取得ScheduleManager的O(1)快照，编码和写文件交给后台写线程
+ * 写线程忙时新的快照会替换尚未写出的旧快照，连续多次修改只产生一次写入
+ * 快照只复制列表不复制任务对象：写线程编码时界面线程正好修改的任务可能写入一半新值，
+ * 这次修改会增加修改计数，下一次保存会重新写入该任务
+ */
+public class AutoSaveService {
+    private final ScheduleManager manager;
+    private final ExecutorService writer;
+    // 等待写线程处理的最新快照，null表示没有待写内容
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private volatile long savedGeneration;   // 已成功写入文件的修改计数
+    private volatile long queuedGeneration;  // 已生成快照的修改计数
+
+    public AutoSaveService(ScheduleManager manager) {
+        this.manager = manager;
+        this.savedGeneration = manager.getGeneration();
+        this.queuedGeneration = savedGeneration;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "autosave-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 请求一次保存：数据未变化时立即返回，否则提交快照给后台写线程
+     * 必须在修改数据的线程（界面线程）上调用
+     */
+    public void requestSave() {
+        long generation = manager.getGeneration();
+        if (generation == queuedGeneration) {
+            return;
+        }
+        queuedGeneration = generation;
+        if (pending.getAndSet(takeSnapshot(generation)) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * 同步保存并停止写线程，用于程序退出前
+     */
+    public void flush() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long generation = manager.getGeneration();
+        if (generation != savedGeneration) {
+            write(takeSnapshot(generation));
+        }
+    }
+
+    private void writePending() {
+        Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot != null) {
+            write(snapshot);
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        boolean tasksSaved = DataManager.saveTasks(snapshot.tasks);
+        boolean projectsSaved = DataManager.saveProjects(snapshot.projects);
+        if (tasksSaved && projectsSaved) {
+            savedGeneration = snapshot.generation;
+        } else {
+            // 保存失败时让下一次请求重新生成快照
+            queuedGeneration = savedGeneration;
+        }
+    }
+
+    private Snapshot takeSnapshot(long generation) {
+        return new Snapshot(generation, manager.snapshotTasks(), manager.snapshotProjects());
+    }
+
+    // 某一修改计数下的任务和项目副本
+    private static final class Snapshot {
+        final long generation;
+        final List<Task> tasks;
+        final List<Project> projects;
+
+        Snapshot(long generation, List<Task> tasks, List<Project> projects) {
+            this.generation = generation;
+            this.tasks = tasks;
+            this.projects = projects;
+        }
+    }
+}
@@ -1,59 +1,76 @@
 // DataManager.java - 数据持久化管理
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.List;
 
 public class DataManager {
     private static final String TASKS_FILE = "tasks.dat";
     private static final String PROJECTS_FILE = "projects.dat";
 
-    public static void saveTasks(List<Task> tasks) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(TASKS_FILE))) {
-            oos.writeObject(tasks);
+    public static boolean saveTasks(List<Task> tasks) {
+        try {
+            TaskCodec.writeTasks(Paths.get(TASKS_FILE), tasks);
             System.out.println("任务数据保存成功");
+            return true;
         } catch (IOException e) {
             System.err.println("保存任务数据失败: " + e.getMessage());
+            return false;
         }
     }
 
-    @SuppressWarnings("unchecked")
     public static List<Task> loadTasks() {
         File file = new File(TASKS_FILE);
         if (!file.exists()) {
             return new java.util.ArrayList<>();
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(TASKS_FILE))) {
-            return (List<Task>) ois.readObject();
+        try {
+            if (!TaskCodec.isCodecFile(file.toPath())) {
+                return readLegacy(file);
+            }
+            return TaskCodec.readTasks(file.toPath());
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("加载任务数据失败: " + e.getMessage());
             return new java.util.ArrayList<>();
         }
     }
 
-    public static void saveProjects(List<Project> projects) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(PROJECTS_FILE))) {
-            oos.writeObject(projects);
+    public static boolean saveProjects(List<Project> projects) {
+        try {
+            TaskCodec.writeProjects(Paths.get(PROJECTS_FILE), projects);
             System.out.println("项目数据保存成功");
+            return true;
         } catch (IOException e) {
             System.err.println("保存项目数据失败: " + e.getMessage());
+            return false;
         }
     }
 
-    @SuppressWarnings("unchecked")
     public static List<Project> loadProjects() {
         File file = new File(PROJECTS_FILE);
         if (!file.exists()) {
             return new java.util.ArrayList<>();
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(PROJECTS_FILE))) {
-            return (List<Project>) ois.readObject();
+        try {
+            if (!TaskCodec.isCodecFile(file.toPath())) {
+                return readLegacy(file);
+            }
+            return TaskCodec.readProjects(file.toPath());
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("加载项目数据失败: " + e.getMessage());
             return new java.util.ArrayList<>();
         }
     }
 
+    // 读取旧版本以Java序列化保存的文件
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> readLegacy(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            return (List<T>) ois.readObject();
+        }
+    }
+
     public static void exportToTextFile(List<Task> tasks, String filePath) {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
             writer.println("=== 日程安排导出 ===");
@@ -0,0 +1,184 @@
+// NotificationPipeline.java - 提醒通知管道
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提醒通知管道 - 把短时间内陆续到期的提醒合并成一批，一次性交给各个输出端（控制台、日志文件等）
+ * 第一条通知到达后等待BATCH_WINDOW_MILLIS再统一发出，窗口内同一ID的通知只保留一条
+ * 每个输出端在各自的虚拟线程上执行，慢的输出端（如写文件）不会拖慢其他输出端和提醒线程
+ * submit返回的结果在整批发送完成后给出：至少一个输出端成功为true，全部失败或没有输出端为false
+ */
+public class NotificationPipeline {
+    public static final long BATCH_WINDOW_MILLIS = 2000;
+
+    // 一条通知，id相同的通知视为同一条
+    public static class Notification {
+        private final String id;
+        private final String title;
+        private final String detail;
+
+        public Notification(String id, String title, String detail) {
+            this.id = id;
+            this.title = title;
+            this.detail = detail;
+        }
+
+        public String getId() { return id; }
+        public String getTitle() { return title; }
+        public String getDetail() { return detail; }
+    }
+
+    // 通知输出端，每次收到一整批通知
+    public interface Sink {
+        void deliver(List<Notification> batch) throws Exception;
+    }
+
+    private final long windowMillis;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService deliverers = Executors.newVirtualThreadPerTaskExecutor();
+    // 当前窗口内等待发出的通知及其发送结果，按到达顺序保存
+    private Map<String, Notification> pending = new LinkedHashMap<>();
+    private Map<String, CompletableFuture<Boolean>> results = new LinkedHashMap<>();
+
+    public NotificationPipeline() {
+        this(BATCH_WINDOW_MILLIS);
+    }
+
+    public NotificationPipeline(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addSink(Sink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(Sink sink) {
+        sinks.remove(sink);
+    }
+
+    // 是否有输出端，没有时提醒无法送达，不应领取提醒
+    public boolean hasSinks() {
+        return !sinks.isEmpty();
+    }
+
+    // 提交一条通知，窗口内的第一条通知负责安排本批的发送
+    // 返回本批的发送结果，窗口内同一ID的多次提交得到同一个结果
+    public CompletableFuture<Boolean> submit(Notification notification) {
+        boolean first;
+        CompletableFuture<Boolean> result;
+        synchronized (this) {
+            first = pending.isEmpty();
+            pending.putIfAbsent(notification.getId(), notification);
+            result = results.computeIfAbsent(notification.getId(), id -> new CompletableFuture<>());
+        }
+        if (first) {
+            timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    // 立即发出当前窗口内的通知
+    public void flush() {
+        List<Notification> batch;
+        List<CompletableFuture<Boolean>> batchResults;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            batchResults = new ArrayList<>(results.values());
+            pending = new LinkedHashMap<>();
+            results = new LinkedHashMap<>();
+        }
+        deliverers.execute(() -> deliver(batch, batchResults));
+    }
+
+    // 在虚拟线程上并行调用所有输出端，全部完成后给出发送结果
+    private void deliver(List<Notification> batch, List<CompletableFuture<Boolean>> batchResults) {
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (Sink sink : sinks) {
+            calls.add(() -> {
+                sink.deliver(batch);
+                return null;
+            });
+        }
+
+        boolean delivered = false;
+        try {
+            for (Future<Void> call : deliverers.invokeAll(calls)) {
+                try {
+                    call.get();
+                    delivered = true;
+                } catch (ExecutionException e) {
+                    System.err.println("提醒通知发送失败: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (CompletableFuture<Boolean> result : batchResults) {
+            result.complete(delivered);
+        }
+    }
+
+    // 控制台输出端
+    public static class ConsoleSink implements Sink {
+        @Override
+        public void deliver(List<Notification> batch) {
+            StringBuilder text = new StringBuilder();
+            text.append("🔔 提醒: ").append(batch.size()).append(" 个任务即将开始\n");
+            for (Notification notification : batch) {
+                text.append("   ").append(notification.getTitle());
+                if (notification.getDetail() != null && !notification.getDetail().isEmpty()) {
+                    text.append(" - ").append(notification.getDetail());
+                }
+                text.append('\n');
+            }
+            // 整批一次输出，多个批次同时输出时不会交错
+            System.out.print(text);
+        }
+    }
+
+    // 日志文件输出端，每条通知追加一行
+    public static class LogFileSink implements Sink {
+        private final String filePath;
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        public LogFileSink(String filePath) {
+            this.filePath = filePath;
+        }
+
+        @Override
+        public synchronized void deliver(List<Notification> batch) throws IOException {
+            String time = timeFormat.format(new Date());
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, true))) {
+                for (Notification notification : batch) {
+                    writer.println(time + "\t" + notification.getId() + "\t" + notification.getTitle()
+                            + "\t" + notification.getDetail());
+                }
+            }
+        }
+    }
+}
@@ -1,38 +1,129 @@
 // Reminder.java - 提醒类
 import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Reminder {
+    // 提醒状态：PENDING/SNOOZED -> CLAIMED -> DELIVERED，未送达前可以取消
+    // 到期时先用CAS把状态改为CLAIMED，只有成功的线程才输出提醒，同一个提醒最多送达一次
+    // 至少一个输出端成功后才改为DELIVERED；全部失败时放回PENDING，RETRY_MINUTES分钟后重试
+    public enum State { PENDING, CLAIMED, DELIVERED, SNOOZED, CANCELLED }
+
+    private static final int RETRY_MINUTES = 1;
+
+    // 所有提醒共用一个守护线程计时，取消的提醒立即从队列中移除
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
     private Task task;
-    private boolean triggered;
+    private final NotificationPipeline notifier; // 到期后通知交给管道合并发出
+    private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+    private volatile ScheduledFuture<?> scheduled; // 等待中的到期检查，取消提醒时一并取消
 
-    public Reminder(Task task) {
+    public Reminder(Task task, NotificationPipeline notifier) {
         this.task = task;
-        this.triggered = false;
+        this.notifier = notifier;
     }
 
     public void scheduleReminder() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (!triggered && task.getStatus() != Task.TaskStatus.COMPLETED) {
-                    triggerReminder();
-                    triggered = true;
+        scheduleAt(task.getReminderTime());
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "reminder-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private void scheduleAt(Date time) {
+        long delay = Math.max(0, time.getTime() - Clock.get().millis());
+        ScheduledFuture<?> previous = scheduled;
+        scheduled = TIMER.schedule(this::onDue, delay, TimeUnit.MILLISECONDS);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        if (state.get() == State.CANCELLED) {
+            scheduled.cancel(false); // 与cancel()并发时不留下等待中的检查
+        }
+    }
+
+    private void onDue() {
+        State current = state.get();
+        if (current != State.PENDING && current != State.SNOOZED) {
+            return; // 已取消、已送达或正在发送
+        }
+        if (task.getStatus() == Task.TaskStatus.COMPLETED) {
+            cancel();
+        } else if (!notifier.hasSinks()) {
+            // 没有输出端时不领取，保持等待，稍后再检查
+            scheduleAt(retryTime());
+        } else if (tryClaim()) {
+            triggerReminder();
+        }
+    }
+
+    private void triggerReminder() {
+        // 同一时刻到期的多个提醒由管道合并成一条通知，输出端可以是控制台、日志文件、弹窗等
+        notifier.submit(new NotificationPipeline.Notification(task.getId(),
+                "任务 '" + task.getName() + "'",
+                "开始时间: " + task.getStartTime() + "，内容: " + task.getContent()))
+                .thenAccept(delivered -> {
+                    if (delivered) {
+                        state.compareAndSet(State.CLAIMED, State.DELIVERED);
+                    } else if (state.compareAndSet(State.CLAIMED, State.PENDING)) {
+                        scheduleAt(retryTime());
+                    }
+                });
+    }
+
+    private static Date retryTime() {
+        return new Date(Clock.get().millis() + RETRY_MINUTES * 60 * 1000L);
+    }
+
+    // 领取提醒，返回true的线程负责提醒
+    public boolean tryClaim() {
+        return state.compareAndSet(State.PENDING, State.CLAIMED)
+                || state.compareAndSet(State.SNOOZED, State.CLAIMED);
+    }
+
+    // 已送达的提醒在minutes分钟后再提醒一次
+    public boolean snooze(int minutes) {
+        if (!state.compareAndSet(State.DELIVERED, State.SNOOZED)) {
+            return false;
+        }
+        scheduleAt(new Date(Clock.get().millis() + minutes * 60 * 1000L));
+        return true;
+    }
+
+    // 取消尚未送达的提醒
+    public boolean cancel() {
+        State current;
+        while ((current = state.get()) != State.DELIVERED && current != State.CANCELLED) {
+            if (state.compareAndSet(current, State.CANCELLED)) {
+                ScheduledFuture<?> pending = scheduled;
+                if (pending != null) {
+                    pending.cancel(false);
                 }
+                return true;
             }
-        }, task.getReminderTime());
+        }
+        return false;
     }
 
-    private void triggerReminder() {
-        System.out.println("🔔 提醒: 任务 '" + task.getName() + "' 即将开始!");
-        System.out.println("   内容: " + task.getContent());
-        System.out.println("   开始时间: " + task.getStartTime());
-        // 在实际应用中，这里可以添加弹窗、声音提醒等
+    public Task getTask() {
+        return task;
+    }
+
+    public State getState() {
+        return state.get();
     }
 
     public boolean isTriggered() {
-        return triggered;
+        return state.get() == State.DELIVERED;
     }
-}
\ No newline at end of file
+}
@@ -13,12 +13,14 @@ import java.util.List;
 
 public class ScheduleGUI extends JFrame {
     private final ScheduleManager manager;
+    private AutoSaveService autoSave;
     private JTabbedPane tabbedPane;
 
     // 组件
     private JTable taskTable;
     private DefaultTableModel taskTableModel;
     private JTextField searchField;
+    private SearchController<Task> taskSearch; // 搜索和过滤在后台执行，结果分页显示
     private JComboBox<String> viewTypeComboBox;
     private JComboBox<String> statusFilterComboBox;
     private JTextArea statisticsArea;
@@ -37,22 +39,19 @@ public class ScheduleGUI extends JFrame {
     private void loadData() {
         // 加载持久化数据
         List<Task> tasks = DataManager.loadTasks();
-        tasks.forEach(task -> {
-            manager.getTasks().add(task);
-            // 重新安排提醒
-            Reminder reminder = new Reminder(task);
-            reminder.scheduleReminder();
-        });
+        manager.loadTasks(tasks); // 同时建立搜索索引并重新安排提醒
 
         List<Project> projects = DataManager.loadProjects();
         projects.forEach(manager::addProject);
     }
 
     private void setupAutoSave() {
-        Timer autoSaveTimer = new Timer(30000, e -> saveData()); // 每30秒自动保存
+        autoSave = new AutoSaveService(manager);
+        // 每30秒检查一次，数据有变化时才在后台保存
+        Timer autoSaveTimer = new Timer(30000, e -> autoSave.requestSave());
         autoSaveTimer.start();
 
-        // 程序关闭时保存
+        // 程序关闭时同步保存
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
@@ -63,8 +62,7 @@ public class ScheduleGUI extends JFrame {
     }
 
     private void saveData() {
-        DataManager.saveTasks(manager.getTasks());
-        DataManager.saveProjects(manager.getProjects());
+        autoSave.flush();
     }
 
     private void initializeUI() {
@@ -131,6 +129,22 @@ public class ScheduleGUI extends JFrame {
 
         searchField = new JTextField(20);
         searchField.addActionListener(e -> searchTasks());
+        // 边输入边搜索，停顿片刻才查询
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                taskSearch.submit(createTaskQuery());
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                taskSearch.submit(createTaskQuery());
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
 
         JButton searchButton = new JButton("搜索");
         searchButton.addActionListener(e -> searchTasks());
@@ -165,6 +179,21 @@ public class ScheduleGUI extends JFrame {
 
         taskTable = new JTable(taskTableModel);
         taskTable.setRowHeight(30);
+        taskSearch = new SearchController<>(manager::getGeneration, new SearchController.PageSink<Task>() {
+            private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+            @Override
+            public void begin() {
+                taskTableModel.setRowCount(0);
+            }
+
+            @Override
+            public void page(List<Task> tasks) {
+                for (Task task : tasks) {
+                    addTaskRow(task, sdf);
+                }
+            }
+        });
         JScrollPane tableScrollPane = new JScrollPane(taskTable);
 
         // 操作按钮面板
@@ -360,80 +389,98 @@ public class ScheduleGUI extends JFrame {
         }
     }
 
+    // 按当前的搜索词、视图和状态刷新任务表格（在后台查询）
     private void refreshTaskTable() {
-        taskTableModel.setRowCount(0);
-
-        List<Task> tasksToShow = manager.getTasks();
-        String viewType = (String) viewTypeComboBox.getSelectedItem();
-        String statusFilter = (String) statusFilterComboBox.getSelectedItem();
-
-        // 应用视图过滤
-        if ("今日任务".equals(viewType)) {
-            tasksToShow = manager.getDailyView(new Date());
-        } else if ("本周任务".equals(viewType)) {
-            tasksToShow = manager.getWeeklyView(new Date());
-        } else if ("本月任务".equals(viewType)) {
-            tasksToShow = manager.getMonthlyView(new Date());
-        }
+        taskSearch.submitNow(createTaskQuery());
+    }
 
-        // 应用状态过滤
-        if (!"所有状态".equals(statusFilter)) {
-            Task.TaskStatus filterStatus = switch (statusFilter) {
+    private void searchTasks() {
+        refreshTaskTable();
+    }
+
+    // 在EDT上读取当前的搜索和过滤条件
+    private TaskQuery createTaskQuery() {
+        return new TaskQuery(manager, searchField.getText().trim(),
+                (String) viewTypeComboBox.getSelectedItem(),
+                (String) statusFilterComboBox.getSelectedItem());
+    }
+
+    private void addTaskRow(Task task, SimpleDateFormat sdf) {
+        taskTableModel.addRow(new Object[]{
+                false,
+                task.getName(),
+                task.getType().toString(),
+                sdf.format(task.getStartTime()),
+                sdf.format(task.getEndTime()),
+                String.valueOf(task.getPriority()),
+                task.getStatus().toString(),
+                task.getProject()
+        });
+    }
+
+    // 任务查询：视图（全部/今日/本周/本月）、状态和搜索词，搜索词为空时按原顺序显示视图中的任务
+    private static class TaskQuery implements SearchController.Query<Task> {
+        private final ScheduleManager manager;
+        private final String keyword;
+        private final String viewType;
+        private final Task.TaskStatus status; // null表示所有状态
+
+        TaskQuery(ScheduleManager manager, String keyword, String viewType, String statusFilter) {
+            this.manager = manager;
+            this.keyword = keyword;
+            this.viewType = viewType;
+            this.status = switch (statusFilter) {
                 case "未开始" -> Task.TaskStatus.NOT_STARTED;
                 case "进行中" -> Task.TaskStatus.IN_PROGRESS;
                 case "已完成" -> Task.TaskStatus.COMPLETED;
                 default -> null;
             };
+        }
 
-            if (filterStatus != null) {
-                tasksToShow = tasksToShow.stream()
-                        .filter(task -> task.getStatus() == filterStatus)
-                        .collect(java.util.stream.Collectors.toList());
+        @Override
+        public List<Task> run() {
+            // 应用视图过滤（所有任务取快照，分页显示期间列表不会变化）
+            List<Task> tasksToShow = manager.snapshotTasks();
+            if ("今日任务".equals(viewType)) {
+                tasksToShow = manager.getDailyView(new Date());
+            } else if ("本周任务".equals(viewType)) {
+                tasksToShow = manager.getWeeklyView(new Date());
+            } else if ("本月任务".equals(viewType)) {
+                tasksToShow = manager.getMonthlyView(new Date());
             }
+
+            if (!keyword.isEmpty()) {
+                // 通过全文索引查询；只看部分视图时在视图的任务中查询
+                tasksToShow = "所有任务".equals(viewType) ? manager.search(keyword) : manager.search(keyword, tasksToShow);
+            }
+            return filterStatus(tasksToShow);
         }
 
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        for (Task task : tasksToShow) {
-            taskTableModel.addRow(new Object[]{
-                    false,
-                    task.getName(),
-                    task.getType().toString(),
-                    sdf.format(task.getStartTime()),
-                    sdf.format(task.getEndTime()),
-                    String.valueOf(task.getPriority()),
-                    task.getStatus().toString(),
-                    task.getProject()
-            });
+        // 视图相同、上一次没有限定状态或限定了相同状态、搜索词是上一次的细化时，结果是上一次的子集
+        @Override
+        public boolean refines(SearchController.Query<Task> previous) {
+            if (!(previous instanceof TaskQuery)) {
+                return false;
+            }
+            TaskQuery last = (TaskQuery) previous;
+            return viewType.equals(last.viewType)
+                    && (last.status == null || last.status == status)
+                    && (last.keyword.isEmpty() || (!keyword.isEmpty() && SearchIndex.refines(keyword, last.keyword)));
         }
-    }
 
-    private void searchTasks() {
-        String keyword = searchField.getText().trim().toLowerCase();
-        if (keyword.isEmpty()) {
-            refreshTaskTable();
-            return;
+        @Override
+        public List<Task> refine(List<Task> previous) {
+            return filterStatus(keyword.isEmpty() ? previous : manager.search(keyword, previous));
         }
 
-        List<Task> allTasks = manager.getTasks();
-        List<Task> filteredTasks = allTasks.stream()
-                .filter(task -> task.getName().toLowerCase().contains(keyword) ||
-                        task.getContent().toLowerCase().contains(keyword) ||
-                        task.getProject().toLowerCase().contains(keyword))
-                .collect(java.util.stream.Collectors.toList());
-
-        taskTableModel.setRowCount(0);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        for (Task task : filteredTasks) {
-            taskTableModel.addRow(new Object[]{
-                    false,
-                    task.getName(),
-                    task.getType().toString(),
-                    sdf.format(task.getStartTime()),
-                    sdf.format(task.getEndTime()),
-                    String.valueOf(task.getPriority()),
-                    task.getStatus().toString(),
-                    task.getProject()
-            });
+        // 应用状态过滤
+        private List<Task> filterStatus(List<Task> tasks) {
+            if (status == null) {
+                return tasks;
+            }
+            return tasks.stream()
+                    .filter(task -> task.getStatus() == status)
+                    .collect(java.util.stream.Collectors.toList());
         }
     }
 
@@ -456,6 +503,7 @@ public class ScheduleGUI extends JFrame {
                         .findFirst()
                         .ifPresent(task -> task.setStatus(Task.TaskStatus.COMPLETED));
             }
+            manager.markDirty();
             refreshTaskTable();
             JOptionPane.showMessageDialog(this, "任务状态更新成功!", "成功", JOptionPane.INFORMATION_MESSAGE);
         }
@@ -476,9 +524,10 @@ public class ScheduleGUI extends JFrame {
             for (int i = selectedRows.length - 1; i >= 0; i--) {
                 int row = selectedRows[i];
                 String taskName = (String) taskTableModel.getValueAt(row, 1);
-                manager.getTasks().removeIf(task -> task.getName().equals(taskName));
-                taskTableModel.removeRow(row);
+                manager.removeTasks(task -> task.getName().equals(taskName));
             }
+            // 通过搜索控制器重新查询，正在显示的旧结果页会被丢弃
+            refreshTaskTable();
             JOptionPane.showMessageDialog(this, "任务删除成功!", "成功", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -2,36 +2,49 @@
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ScheduleManager {
-    private List<Task> tasks;
-    private List<Project> projects;
+    // 任务和项目列表写时复制，保存和提醒线程可以随时取得O(1)快照
+    // 按日/周/月分组的索引为ConcurrentHashMap，分组内同样是写时复制列表，读取不加锁
+    private SnapshotList<Task> tasks;
+    private SnapshotList<Project> projects;
     private Map<String, List<Task>> dailyTasks;
     private Map<String, List<Task>> weeklyTasks;
     private Map<String, List<Task>> monthlyTasks;
-    private List<Reminder> reminders;
+    private SnapshotList<Reminder> reminders;
     private SimpleDateFormat dateFormat;
     private SimpleDateFormat weekFormat;
     private SimpleDateFormat monthFormat;
+    // 修改计数：每次增删改任务或项目时加1，自动保存据此判断数据是否有变化
+    private final AtomicLong generation = new AtomicLong();
+    // 提醒通知管道，默认输出到控制台；已预告过的提醒（任务ID+提醒时间），每个提醒只预告一次
+    private final NotificationPipeline notifier = new NotificationPipeline();
+    private final Set<String> announced = ConcurrentHashMap.newKeySet();
+    // 名称、内容和项目的全文索引，随任务增删同步更新
+    private final SearchIndex searchIndex = new SearchIndex();
 
     public ScheduleManager() {
-        this.tasks = new ArrayList<>();
-        this.projects = new ArrayList<>();
-        this.dailyTasks = new HashMap<>();
-        this.weeklyTasks = new HashMap<>();
-        this.monthlyTasks = new HashMap<>();
-        this.reminders = new ArrayList<>();
+        this.tasks = new SnapshotList<>();
+        this.projects = new SnapshotList<>();
+        this.dailyTasks = new ConcurrentHashMap<>();
+        this.weeklyTasks = new ConcurrentHashMap<>();
+        this.monthlyTasks = new ConcurrentHashMap<>();
+        this.reminders = new SnapshotList<>();
         this.dateFormat = new SimpleDateFormat("yyyy-MM-dd");
         this.weekFormat = new SimpleDateFormat("yyyy-'W'ww");
         this.monthFormat = new SimpleDateFormat("yyyy-MM");
+        notifier.addSink(new NotificationPipeline.ConsoleSink());
 
         // 启动提醒监控线程
         startReminderMonitor();
     }
 
-    // 日程录入
-    public boolean addTask(Task task) {
+    // 日程录入（冲突检测和添加需要一起完成，同一时间只允许一个线程添加）
+    public synchronized boolean addTask(Task task) {
         if (hasTimeConflict(task)) {
             System.out.println("警告: 任务时间冲突，添加失败!");
             return false;
@@ -44,16 +57,74 @@ public class ScheduleManager {
 
         tasks.add(task);
         updateTaskMappings(task);
+        searchIndex.add(task);
+        markDirty();
 
         // 创建并安排提醒
-        Reminder reminder = new Reminder(task);
-        reminder.scheduleReminder();
-        reminders.add(reminder);
+        scheduleReminder(task);
 
         System.out.println("任务添加成功: " + task.getName());
         return true;
     }
 
+    // 加载已保存的任务：一次性加入列表（写时复制列表只复制一次），建立索引并重新安排提醒
+    public synchronized void loadTasks(Collection<Task> loaded) {
+        tasks.addAll(loaded);
+        searchIndex.addAll(loaded);
+        loaded.forEach(this::scheduleReminder);
+    }
+
+    // 删除满足条件的任务，同时取消提醒并移出索引，返回删除的个数
+    public synchronized int removeTasks(Predicate<Task> filter) {
+        List<Task> removed = tasks.stream().filter(filter).collect(Collectors.toList());
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        for (Task task : removed) {
+            cancelReminders(task);
+            searchIndex.remove(task);
+        }
+        Set<Task> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        removedSet.addAll(removed);
+        tasks.removeIf(removedSet::contains);
+        markDirty();
+        return removed.size();
+    }
+
+    // 任务的名称、内容或项目被直接修改后需调用此方法，更新全文索引
+    public void reindexTask(Task task) {
+        searchIndex.update(task);
+        markDirty();
+    }
+
+    // 全文搜索：关键词按空格拆分，每个词都要出现在名称、内容或项目中，结果按相关程度排序
+    public List<Task> search(String query) {
+        return searchIndex.search(query);
+    }
+
+    // 只在给定的任务中搜索（例如上一次的搜索结果）
+    public List<Task> search(String query, Collection<Task> within) {
+        return searchIndex.search(query, within);
+    }
+
+    // 为任务安排提醒（加载数据时也通过这里登记，删除任务时才能取消）
+    public void scheduleReminder(Task task) {
+        Reminder reminder = new Reminder(task, notifier);
+        reminder.scheduleReminder();
+        reminders.add(reminder);
+    }
+
+    // 取消任务尚未送达的提醒
+    public void cancelReminders(Task task) {
+        reminders.removeIf(reminder -> {
+            if (reminder.getTask() != task) {
+                return false;
+            }
+            reminder.cancel();
+            return true;
+        });
+    }
+
     // 时间冲突检测算法
     private boolean hasTimeConflict(Task newTask) {
         return tasks.stream()
@@ -78,16 +149,23 @@ public class ScheduleManager {
     // 更新任务映射关系
     private void updateTaskMappings(Task task) {
         // 按日分组
-        String dateKey = dateFormat.format(task.getStartTime());
-        dailyTasks.computeIfAbsent(dateKey, k -> new ArrayList<>()).add(task);
+        String dateKey = formatKey(dateFormat, task.getStartTime());
+        dailyTasks.computeIfAbsent(dateKey, k -> new SnapshotList<>()).add(task);
 
         // 按周分组
-        String weekKey = weekFormat.format(task.getStartTime());
-        weeklyTasks.computeIfAbsent(weekKey, k -> new ArrayList<>()).add(task);
+        String weekKey = formatKey(weekFormat, task.getStartTime());
+        weeklyTasks.computeIfAbsent(weekKey, k -> new SnapshotList<>()).add(task);
 
         // 按月分组
-        String monthKey = monthFormat.format(task.getStartTime());
-        monthlyTasks.computeIfAbsent(monthKey, k -> new ArrayList<>()).add(task);
+        String monthKey = formatKey(monthFormat, task.getStartTime());
+        monthlyTasks.computeIfAbsent(monthKey, k -> new SnapshotList<>()).add(task);
+    }
+
+    // SimpleDateFormat不是线程安全的，各线程共用时需要加锁
+    private static String formatKey(SimpleDateFormat format, Date date) {
+        synchronized (format) {
+            return format.format(date);
+        }
     }
 
     // 任务管理
@@ -95,19 +173,25 @@ public class ScheduleManager {
         tasks.stream()
                 .filter(task -> task.getId().equals(taskId))
                 .findFirst()
-                .ifPresent(task -> task.setStatus(Task.TaskStatus.COMPLETED));
+                .ifPresent(task -> {
+                    task.setStatus(Task.TaskStatus.COMPLETED);
+                    markDirty();
+                });
     }
 
     public void updateTaskStatus(String taskId, Task.TaskStatus status) {
         tasks.stream()
                 .filter(task -> task.getId().equals(taskId))
                 .findFirst()
-                .ifPresent(task -> task.setStatus(status));
+                .ifPresent(task -> {
+                    task.setStatus(status);
+                    markDirty();
+                });
     }
 
     // 视图展示
     public List<Task> getDailyView(Date date) {
-        String dateKey = dateFormat.format(date);
+        String dateKey = formatKey(dateFormat, date);
         return dailyTasks.getOrDefault(dateKey, new ArrayList<>())
                 .stream()
                 .sorted()
@@ -115,7 +199,7 @@ public class ScheduleManager {
     }
 
     public List<Task> getWeeklyView(Date date) {
-        String weekKey = weekFormat.format(date);
+        String weekKey = formatKey(weekFormat, date);
         return weeklyTasks.getOrDefault(weekKey, new ArrayList<>())
                 .stream()
                 .sorted()
@@ -123,7 +207,7 @@ public class ScheduleManager {
     }
 
     public List<Task> getMonthlyView(Date date) {
-        String monthKey = monthFormat.format(date);
+        String monthKey = formatKey(monthFormat, date);
         return monthlyTasks.getOrDefault(monthKey, new ArrayList<>())
                 .stream()
                 .sorted()
@@ -145,13 +229,13 @@ public class ScheduleManager {
 
     // 数据统计
     public Statistics getWeeklyStatistics(Date date) {
-        String weekKey = weekFormat.format(date);
+        String weekKey = formatKey(weekFormat, date);
         List<Task> weekTasks = weeklyTasks.getOrDefault(weekKey, new ArrayList<>());
         return calculateStatistics(weekTasks);
     }
 
     public Statistics getMonthlyStatistics(Date date) {
-        String monthKey = monthFormat.format(date);
+        String monthKey = formatKey(monthFormat, date);
         List<Task> monthTasks = monthlyTasks.getOrDefault(monthKey, new ArrayList<>());
         return calculateStatistics(monthTasks);
     }
@@ -161,8 +245,9 @@ public class ScheduleManager {
         long completed = taskList.stream()
                 .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
                 .count();
+        long now = Clock.coarse().millis();
         long overdue = taskList.stream()
-                .filter(Task::isOverdue)
+                .filter(task -> task.isOverdue(now))
                 .count();
 
         double completionRate = total > 0 ? (double) completed / total * 100 : 0;
@@ -183,20 +268,22 @@ public class ScheduleManager {
     }
 
     private void checkImmediateReminders() {
-        Date now = new Date();
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(now);
-        calendar.add(Calendar.MINUTE, 5); // 5分钟内的任务进行提醒
-
-        Date fiveMinutesLater = calendar.getTime();
+        // 整次检查只取一次当前时间
+        long now = Clock.get().millis();
+        long fiveMinutesLater = now + 5 * 60 * 1000; // 5分钟内的任务进行提醒
 
+        // 每分钟检查一次，同一个提醒在5分钟内会被检查到多次，只预告第一次；同一批到期的任务合并成一条通知
         tasks.stream()
-                .filter(task -> task.getReminderTime().after(now) &&
-                        task.getReminderTime().before(fiveMinutesLater) &&
+                .filter(task -> task.getReminderTime().getTime() > now &&
+                        task.getReminderTime().getTime() < fiveMinutesLater &&
                         task.getStatus() == Task.TaskStatus.NOT_STARTED)
-                .forEach(task -> {
-                    System.out.println("⏰ 即将开始: " + task.getName() + " (" + task.getStartTime() + ")");
-                });
+                .filter(task -> announced.add(task.getId() + "@" + task.getReminderTime().getTime()))
+                .forEach(task -> notifier.submit(new NotificationPipeline.Notification(
+                        "upcoming-" + task.getId(),
+                        "⏰ 即将开始: " + task.getName(),
+                        String.valueOf(task.getStartTime()))));
+        // 提醒时间已过的预告记录不再需要
+        announced.removeIf(key -> Long.parseLong(key.substring(key.lastIndexOf('@') + 1)) <= now);
     }
 
     // 数据备份
@@ -214,7 +301,26 @@ public class ScheduleManager {
     public List<Task> getTasks() { return tasks; }
     public List<Project> getProjects() { return projects; }
 
+    // 任务和项目的只读快照，之后的增删不影响快照（任务对象本身仍是共享的）
+    public List<Task> snapshotTasks() { return tasks.snapshot(); }
+    public List<Project> snapshotProjects() { return projects.snapshot(); }
+
+    // 提醒通知管道，可以添加日志文件、弹窗等输出端
+    public NotificationPipeline getNotifier() {
+        return notifier;
+    }
+
     public void addProject(Project project) {
         projects.add(project);
+        markDirty();
+    }
+
+    // 直接修改getTasks()返回的列表或任务对象后需调用此方法
+    public void markDirty() {
+        generation.incrementAndGet();
+    }
+
+    public long getGeneration() {
+        return generation.get();
     }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+// SearchIndex.java - 任务全文检索索引
+import java.util.*;
+
+/**
+ * 任务全文检索索引 - 对任务名称、内容和项目建立单字和相邻两字（bigram）的倒排索引
+ * 中文没有空格分词，按字切分对中英文都适用：查询词的所有bigram都出现的任务才是候选，
+ * 再用contains核对候选（bigram都出现不代表连续出现），因此结果与逐个contains一致
+ * 查询按空格拆成多个词，每个词都要在某个字段中出现；结果按匹配的字段打分排序
+ * 任务增删改时由ScheduleManager同步更新；删除只做标记，失效文档多于有效文档时整体重建
+ */
+public class SearchIndex {
+    // 字段权重：名称 > 项目 > 内容，名称以查询词开头再加分
+    private static final int NAME_WEIGHT = 4;
+    private static final int NAME_PREFIX_BONUS = 2;
+    private static final int PROJECT_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    // 候选数少于该值时不再与其余倒排表求交集，直接用contains核对
+    private static final int VERIFY_THRESHOLD = 32;
+
+    // 一个被索引的任务及其小写后的字段文本
+    private static class Doc {
+        final Task task;
+        final String name;
+        final String content;
+        final String project;
+        final long startMillis; // 排序用，没有开始时间的排在最后
+
+        Doc(Task task) {
+            this.task = task;
+            this.startMillis = task.getStartTime() != null ? task.getStartTime().getTime() : Long.MAX_VALUE;
+            this.name = normalize(task.getName());
+            this.content = normalize(task.getContent());
+            this.project = normalize(task.getProject());
+        }
+    }
+
+    // 一条查询结果及其得分
+    private static class Hit {
+        final Doc doc;
+        final int score;
+
+        Hit(Doc doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    // 递增的文档编号列表，文档编号按加入顺序分配，所以追加后仍然有序
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private final List<Doc> docs = new ArrayList<>(); // 下标即文档编号，已删除的为null
+    private final Map<Task, Integer> docIds = new IdentityHashMap<>();
+    private final Map<Integer, IntList> postings = new HashMap<>();
+
+    public synchronized void add(Task task) {
+        if (docIds.containsKey(task)) {
+            return;
+        }
+        int docId = docs.size();
+        Doc doc = new Doc(task);
+        docs.add(doc);
+        docIds.put(task, docId);
+
+        Set<Integer> grams = new HashSet<>();
+        collectGrams(doc.name, grams);
+        collectGrams(doc.content, grams);
+        collectGrams(doc.project, grams);
+        for (Integer gram : grams) {
+            postings.computeIfAbsent(gram, k -> new IntList()).add(docId);
+        }
+    }
+
+    public synchronized void addAll(Collection<Task> tasks) {
+        tasks.forEach(this::add);
+    }
+
+    public synchronized void remove(Task task) {
+        Integer docId = docIds.remove(task);
+        if (docId == null) {
+            return;
+        }
+        docs.set(docId, null);
+        if (docs.size() - docIds.size() > docIds.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 任务的名称、内容或项目被原地修改后调用，重新索引该任务
+     */
+    public synchronized void update(Task task) {
+        remove(task);
+        add(task);
+    }
+
+    public synchronized void clear() {
+        docs.clear();
+        docIds.clear();
+        postings.clear();
+    }
+
+    public synchronized int size() {
+        return docIds.size();
+    }
+
+    /**
+     * 查询任务，查询词按空格拆分，每个词都要出现在名称、内容或项目中（不区分大小写）
+     * 结果按得分从高到低排序，得分相同时按开始时间排序；查询为空时返回空列表
+     */
+    public synchronized List<Task> search(String query) {
+        String[] terms = splitTerms(query);
+        if (terms.length == 0) {
+            return new ArrayList<>();
+        }
+
+        // 所有查询词的bigram（单字词用单字）一起求交集，从最短的倒排表开始
+        Set<Integer> grams = new HashSet<>();
+        for (String term : terms) {
+            if (term.length() == 1) {
+                grams.add(term.charAt(0) << 16 | 0xFFFF);
+            } else {
+                for (int i = 0; i + 1 < term.length(); i++) {
+                    grams.add(term.charAt(i) << 16 | term.charAt(i + 1));
+                }
+            }
+        }
+        List<IntList> lists = new ArrayList<>();
+        for (Integer gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count >= VERIFY_THRESHOLD; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+
+        // 核对候选并打分
+        List<Doc> matched = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Doc doc = docs.get(candidates[i]);
+            if (doc != null) {
+                matched.add(doc);
+            }
+        }
+        return rank(matched, terms);
+    }
+
+    /**
+     * 只在给定的任务中查询（例如上一次的查询结果），不在索引中的任务被忽略，排序规则与search相同
+     */
+    public synchronized List<Task> search(String query, Collection<Task> within) {
+        String[] terms = splitTerms(query);
+        if (terms.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Doc> candidates = new ArrayList<>(within.size());
+        for (Task task : within) {
+            Integer docId = docIds.get(task);
+            if (docId != null) {
+                candidates.add(docs.get(docId));
+            }
+        }
+        return rank(candidates, terms);
+    }
+
+    /**
+     * query的结果是否一定是previous结果的子集：previous的每个词都是query中某个词的一部分时成立
+     * （例如在上一次的关键词后继续输入，或者追加了新的词）
+     */
+    public static boolean refines(String query, String previous) {
+        String[] terms = splitTerms(query);
+        for (String last : splitTerms(previous)) {
+            boolean covered = false;
+            for (String term : terms) {
+                if (term.contains(last)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 核对候选文档并按得分排序
+    private static List<Task> rank(List<Doc> candidates, String[] terms) {
+        List<Hit> hits = new ArrayList<>();
+        for (Doc doc : candidates) {
+            int score = score(doc, terms);
+            if (score > 0) {
+                hits.add(new Hit(doc, score));
+            }
+        }
+        hits.sort((a, b) -> a.score != b.score ? Integer.compare(b.score, a.score)
+                : Long.compare(a.doc.startMillis, b.doc.startMillis));
+
+        List<Task> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.doc.task);
+        }
+        return result;
+    }
+
+    // 每个词都要在某个字段中连续出现，否则得分为0
+    private static int score(Doc doc, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int score = 0;
+            if (doc.name.contains(term)) {
+                score += NAME_WEIGHT + (doc.name.startsWith(term) ? NAME_PREFIX_BONUS : 0);
+            }
+            if (doc.project.contains(term)) {
+                score += PROJECT_WEIGHT;
+            }
+            if (doc.content.contains(term)) {
+                score += CONTENT_WEIGHT;
+            }
+            if (score == 0) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    // candidates前count个与list求交集，结果写回candidates；逐个在较长的表中向后二分查找
+    private static int intersect(int[] candidates, int count, IntList list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < list.size; i++) {
+            int pos = Arrays.binarySearch(list.values, from, list.size, candidates[i]);
+            if (pos >= 0) {
+                candidates[kept++] = candidates[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return kept;
+    }
+
+    // 丢弃已删除的文档，重新编号
+    private void rebuild() {
+        List<Task> live = new ArrayList<>();
+        for (Doc doc : docs) {
+            if (doc != null) {
+                live.add(doc.task);
+            }
+        }
+        clear();
+        live.forEach(this::add);
+    }
+
+    // 文本中每个字及每两个相邻字的编码，含空白的不收录（查询词不含空白）
+    // 单字编码为 字<<16|0xFFFF（0xFFFF不是有效字符），两字编码为 字1<<16|字2
+    private static void collectGrams(String text, Set<Integer> grams) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            grams.add(c << 16 | 0xFFFF);
+            if (i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+                grams.add(c << 16 | text.charAt(i + 1));
+            }
+        }
+    }
+
+    private static String[] splitTerms(String query) {
+        String text = normalize(query).trim();
+        return text.isEmpty() ? new String[0] : text.split("\\s+");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
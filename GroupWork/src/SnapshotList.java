@@ -0,0 +1,157 @@
+// SnapshotList.java - 支持O(1)快照的写时复制列表
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 写时复制列表 - 每次修改都复制内部数组并整体替换，已发布的数组不再改变
+ * snapshot()直接返回当前数组的只读视图，代价为O(1)；遍历也基于遍历开始时的数组，
+ * 后台线程遍历时界面线程可以继续增删，不会出现ConcurrentModificationException
+ * 适合读多写少的场景：批量加载请使用addAll，只复制一次
+ */
+public class SnapshotList<E> extends AbstractList<E> implements RandomAccess {
+    private final Object lock = new Object();
+    private volatile Object[] array = new Object[0];
+
+    public SnapshotList() {
+    }
+
+    public SnapshotList(Collection<? extends E> items) {
+        array = items.toArray();
+    }
+
+    /**
+     * 当前内容的只读快照，之后的修改不影响快照
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> snapshot() {
+        return Collections.unmodifiableList((List<E>) Arrays.asList(array));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) array[index];
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        synchronized (lock) {
+            Object[] copy = array.clone();
+            E old = (E) copy[index];
+            copy[index] = element;
+            array = copy;
+            return old;
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        synchronized (lock) {
+            Object[] current = array;
+            if (index < 0 || index > current.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+            }
+            Object[] copy = new Object[current.length + 1];
+            System.arraycopy(current, 0, copy, 0, index);
+            copy[index] = element;
+            System.arraycopy(current, index, copy, index + 1, current.length - index);
+            array = copy;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        synchronized (lock) {
+            Object[] current = array;
+            E old = (E) current[index];
+            Object[] copy = new Object[current.length - 1];
+            System.arraycopy(current, 0, copy, 0, index);
+            System.arraycopy(current, index + 1, copy, index, current.length - index - 1);
+            array = copy;
+            return old;
+        }
+    }
+
+    @Override
+    public boolean remove(Object item) {
+        return removeIf(element -> Objects.equals(element, item), true);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        return removeIf(filter, false);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> items) {
+        Object[] added = items.toArray();
+        if (added.length == 0) {
+            return false;
+        }
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] copy = Arrays.copyOf(current, current.length + added.length);
+            System.arraycopy(added, 0, copy, current.length, added.length);
+            array = copy;
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            array = new Object[0];
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> comparator) {
+        synchronized (lock) {
+            Object[] copy = array.clone();
+            Arrays.sort(copy, (Comparator<Object>) comparator);
+            array = copy;
+        }
+    }
+
+    // 迭代器基于创建时的数组，不支持remove
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<E> spliterator() {
+        return (Spliterator<E>) Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    // 删除满足条件的元素，onlyFirst为true时只删除第一个
+    @SuppressWarnings("unchecked")
+    private boolean removeIf(Predicate<? super E> filter, boolean onlyFirst) {
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] kept = new Object[current.length];
+            int count = 0;
+            boolean removed = false;
+            for (Object element : current) {
+                if ((!onlyFirst || !removed) && filter.test((E) element)) {
+                    removed = true;
+                } else {
+                    kept[count++] = element;
+                }
+            }
+            if (removed) {
+                array = Arrays.copyOf(kept, count);
+            }
+            return removed;
+        }
+    }
+}
@@ -43,10 +43,14 @@ public class Task implements Comparable<Task> {
     }
 
     private String generateId() {
-        return "TASK_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+        return IdGenerator.newId("TASK");
     }
 
     private void calculateReminderTime() {
+        if (startTime == null) {
+            this.reminderTime = null;
+            return;
+        }
         Calendar calendar = Calendar.getInstance();
         calendar.setTime(startTime);
         calendar.add(Calendar.MINUTE, -30); // 提前30分钟提醒
@@ -55,6 +59,8 @@ public class Task implements Comparable<Task> {
 
     // Getters and Setters
     public String getId() { return id; }
+    // 仅供从文件恢复任务时使用
+    void setId(String id) { this.id = id; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     public String getContent() { return content; }
@@ -77,11 +83,16 @@ public class Task implements Comparable<Task> {
     public Date getReminderTime() { return reminderTime; }
 
     public boolean isOverdue() {
-        return new Date().after(endTime) && status != TaskStatus.COMPLETED;
+        return isOverdue(Clock.get().millis());
+    }
+
+    // 批量判断时传入同一个时刻，不必每次创建Date
+    public boolean isOverdue(long now) {
+        return now > endTime.getTime() && status != TaskStatus.COMPLETED;
     }
 
     public long getRemainingMinutes() {
-        long diff = endTime.getTime() - new Date().getTime();
+        long diff = endTime.getTime() - Clock.get().millis();
         return diff / (60 * 1000);
     }
 
@@ -0,0 +1,412 @@
+// TaskCodec.java - 任务和项目的二进制编解码
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制编解码器 - 替代Java序列化保存任务和项目
+ * 文件格式：魔数 | 版本号 | 数据类型 | 字符串字典 | 记录
+ * 整数和时间（毫秒）使用zigzag变长编码，枚举保存序号，重复出现的名称、项目名等字符串只在字典中保存一次
+ * IdGenerator生成的任务ID只把前缀放入字典，数值部分直接以变长整数保存
+ * 读写都通过带64KB缓冲区的FileChannel进行；写入先写临时文件再原子替换，避免中途失败破坏原文件
+ */
+public class TaskCodec {
+    public static final int MAGIC = 0x53434844; // "SCHD"
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final byte KIND_TASKS = 1;
+    private static final byte KIND_PROJECTS = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 任务记录的标志位
+    private static final int HAS_START = 1;
+    private static final int HAS_END = 1 << 1;
+    private static final int NUMERIC_ID = 1 << 2; // ID为IdGenerator生成的“前缀_base36”格式，按前缀+64位数值保存
+
+    public static void writeTasks(Path file, List<Task> tasks) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        collectStrings(tasks, dictionary);
+        write(file, KIND_TASKS, dictionary, out -> writeTaskList(out, tasks, dictionary));
+    }
+
+    public static List<Task> readTasks(Path file) throws IOException {
+        try (Reader in = new Reader(file)) {
+            String[] strings = in.readHeader(KIND_TASKS);
+            return readTaskList(in, strings);
+        }
+    }
+
+    public static void writeProjects(Path file, List<Project> projects) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        for (Project project : projects) {
+            dictionary.add(project.getName());
+            dictionary.add(project.getDescription());
+            collectStrings(project.getTasks(), dictionary);
+        }
+        write(file, KIND_PROJECTS, dictionary, out -> {
+            out.writeVarInt(projects.size());
+            for (Project project : projects) {
+                out.writeVarInt(dictionary.ref(project.getName()));
+                out.writeVarInt(dictionary.ref(project.getDescription()));
+                writeTaskList(out, project.getTasks(), dictionary);
+            }
+        });
+    }
+
+    public static List<Project> readProjects(Path file) throws IOException {
+        try (Reader in = new Reader(file)) {
+            String[] strings = in.readHeader(KIND_PROJECTS);
+            int count = in.readVarInt();
+            List<Project> projects = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Project project = new Project(lookup(strings, in.readVarInt()), lookup(strings, in.readVarInt()));
+                for (Task task : readTaskList(in, strings)) {
+                    project.addTask(task);
+                }
+                projects.add(project);
+            }
+            return projects;
+        }
+    }
+
+    /**
+     * 判断文件是否为本编解码器写出的格式（否则可能是旧版本的Java序列化文件）
+     */
+    public static boolean isCodecFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) > 0) {
+                // 读满4字节
+            }
+            return head.position() == 4 && head.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void collectStrings(List<Task> tasks, StringDictionary dictionary) {
+        for (Task task : tasks) {
+            String prefix = idPrefix(task.getId());
+            dictionary.add(prefix != null ? prefix : task.getId());
+            dictionary.add(task.getName());
+            dictionary.add(task.getContent());
+            dictionary.add(task.getProject());
+        }
+    }
+
+    private static void writeTaskList(Writer out, List<Task> tasks, StringDictionary dictionary) throws IOException {
+        out.writeVarInt(tasks.size());
+        for (Task task : tasks) {
+            Date start = task.getStartTime();
+            Date end = task.getEndTime();
+            String prefix = idPrefix(task.getId());
+            int flags = (start != null ? HAS_START : 0) | (end != null ? HAS_END : 0) | (prefix != null ? NUMERIC_ID : 0);
+            out.writeVarInt(flags);
+            if (prefix != null) {
+                out.writeVarInt(dictionary.ref(prefix));
+                out.writeVarLong(IdGenerator.parseId(task.getId()));
+            } else {
+                out.writeVarInt(dictionary.ref(task.getId()));
+            }
+            out.writeVarInt(dictionary.ref(task.getName()));
+            out.writeVarInt(dictionary.ref(task.getContent()));
+            out.writeVarInt(dictionary.ref(task.getProject()));
+            if (start != null) {
+                out.writeVarLong(start.getTime());
+            }
+            if (end != null) {
+                // 截止时间与开始时间通常相近，保存差值更短
+                out.writeVarLong(start != null ? end.getTime() - start.getTime() : end.getTime());
+            }
+            out.writeVarInt(task.getPriority());
+            out.writeVarInt(ordinalRef(task.getStatus()));
+            out.writeVarInt(ordinalRef(task.getType()));
+        }
+    }
+
+    private static List<Task> readTaskList(Reader in, String[] strings) throws IOException {
+        int count = in.readVarInt();
+        List<Task> tasks = new ArrayList<>(count);
+        Task.TaskStatus[] statuses = Task.TaskStatus.values();
+        Task.TaskType[] types = Task.TaskType.values();
+        for (int i = 0; i < count; i++) {
+            int flags = in.readVarInt();
+            String id = lookup(strings, in.readVarInt());
+            if ((flags & NUMERIC_ID) != 0) {
+                id = id + "_" + IdGenerator.toCompactString(in.readVarLong());
+            }
+            String name = lookup(strings, in.readVarInt());
+            String content = lookup(strings, in.readVarInt());
+            String project = lookup(strings, in.readVarInt());
+            Date start = null;
+            Date end = null;
+            if ((flags & HAS_START) != 0) {
+                start = new Date(in.readVarLong());
+            }
+            if ((flags & HAS_END) != 0) {
+                long value = in.readVarLong();
+                end = new Date(start != null ? start.getTime() + value : value);
+            }
+            int priority = in.readVarInt();
+            Task.TaskStatus status = fromOrdinalRef(statuses, in.readVarInt());
+            Task.TaskType type = fromOrdinalRef(types, in.readVarInt());
+
+            Task task = new Task(name, content, start, end, priority, project, type);
+            task.setId(id);
+            task.setStatus(status);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void write(Path file, byte kind, StringDictionary dictionary, Body body) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer out = new Writer(temp)) {
+                out.writeInt(MAGIC);
+                out.writeVarInt(SCHEMA_VERSION);
+                out.writeByte(kind);
+                out.writeVarInt(dictionary.strings.size());
+                for (String value : dictionary.strings) {
+                    out.writeString(value);
+                }
+                body.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 若ID可由“前缀_base36”无损还原则返回前缀，否则返回null
+    private static String idPrefix(String id) {
+        long value = IdGenerator.parseId(id);
+        if (value < 0) {
+            return null;
+        }
+        String prefix = id.substring(0, id.lastIndexOf('_'));
+        return id.equals(prefix + "_" + IdGenerator.toCompactString(value)) ? prefix : null;
+    }
+
+    // 字典引用：0表示null，其余为下标加1
+    private static String lookup(String[] strings, int ref) throws IOException {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > strings.length) {
+            throw new IOException("字符串引用越界: " + ref);
+        }
+        return strings[ref - 1];
+    }
+
+    private static int ordinalRef(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    private static <E extends Enum<E>> E fromOrdinalRef(E[] values, int ref) throws IOException {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > values.length) {
+            throw new IOException("枚举序号越界: " + ref);
+        }
+        return values[ref - 1];
+    }
+
+    private interface Body {
+        void write(Writer out) throws IOException;
+    }
+
+    // 字符串字典：按首次出现的顺序分配下标
+    private static final class StringDictionary {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !index.containsKey(value)) {
+                index.put(value, strings.size());
+                strings.add(value);
+            }
+        }
+
+        int ref(String value) {
+            return value == null ? 0 : index.get(value) + 1;
+        }
+    }
+
+    // 带缓冲区的FileChannel写入器
+    private static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeVarLong(value);
+        }
+
+        // zigzag变长编码：每字节7位有效数据，最高位表示后面还有字节
+        void writeVarLong(long value) throws IOException {
+            ensure(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            buffer.put((byte) zigzag);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // 带缓冲区的FileChannel读取器
+    private static final class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        // 校验文件头并读出字符串字典
+        String[] readHeader(byte expectedKind) throws IOException {
+            if (readInt() != MAGIC) {
+                throw new IOException("文件格式不正确");
+            }
+            int version = readVarInt();
+            if (version > SCHEMA_VERSION) {
+                throw new IOException("不支持的数据版本: " + version);
+            }
+            if (readByte() != expectedKind) {
+                throw new IOException("数据类型不匹配");
+            }
+            String[] strings = new String[readVarInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString();
+            }
+            return strings;
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("变长整数格式不正确");
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length < 0) {
+                throw new IOException("字符串长度不正确: " + length);
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int chunk = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // 保证缓冲区中至少有指定字节数可读
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("文件意外结束");
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.scheduler.model;
 
+import com.scheduler.util.IdGenerator;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * 项目类：表示一个项目，包含多个任务
  */
 public class Project implements Serializable {
+    // 固定为最初版本的序列化ID，类增加方法后仍能读取以前保存的数据文件和备份
+    private static final long serialVersionUID = 7216320991554350896L;
+    
     private String id;            // 项目唯一标识
     private String name;          // 项目名称
     private String description;   // 项目描述
@@ -16,7 +20,7 @@ public class Project implements Serializable {
     
     // 无参构造方法
     public Project() {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdGenerator.newId("project");
         this.taskIds = new ArrayList<>();
     }
     
@@ -62,6 +66,16 @@ public class Project implements Serializable {
         return taskIds.size();
     }
     
+    // 复制当前项目，供后台线程保存时使用
+    public Project copy() {
+        Project copy = new Project();
+        copy.id = id;
+        copy.name = name;
+        copy.description = description;
+        copy.taskIds = new ArrayList<>(taskIds);
+        return copy;
+    }
+    
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
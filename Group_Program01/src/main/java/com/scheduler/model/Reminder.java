@@ -1,5 +1,7 @@
 package com.scheduler.model;
 
+import com.scheduler.util.Clock;
+
 import java.util.Date;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -45,8 +47,7 @@ public class Reminder {
             return;
         }
         
-        Date now = new Date();
-        long delay = reminderTime.getTime() - now.getTime();
+        long delay = reminderTime.getTime() - Clock.get().millis();
         
         // 如果提醒时间在当前时间之前，立即触发提醒
         if (delay <= 0) {
@@ -86,7 +87,7 @@ public class Reminder {
         if (isTriggered || reminderTime == null) {
             return false;
         }
-        return new Date().after(reminderTime);
+        return Clock.get().millis() > reminderTime.getTime();
     }
     
     @Override
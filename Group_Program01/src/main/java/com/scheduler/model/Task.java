@@ -1,13 +1,20 @@
 package com.scheduler.model;
 
+import com.scheduler.util.Clock;
+import com.scheduler.util.IdGenerator;
+
 import java.io.Serializable;
 import java.util.Date;
-import java.util.UUID;
+import java.util.Objects;
 
 /**
  * 任务类：表示日程安排中的一个任务项
+ * version是TaskService维护的版本戳，每次修改任务时更新，用于乐观并发控制（见TaskService.update），不写入文件
  */
 public class Task implements Comparable<Task>, Serializable {
+    // 固定为最初版本的序列化ID，增加方法和临时字段后仍能读取以前保存的数据文件和备份
+    private static final long serialVersionUID = 2072148549711493301L;
+    
     private String id;             // 任务唯一标识
     private String name;           // 任务名称
     private String content;        // 任务内容
@@ -18,6 +25,7 @@ public class Task implements Comparable<Task>, Serializable {
     private String projectId;      // 所属项目ID
     private TaskType type;         // 任务类型（会议、截止日期、日常事务）
     private int reminderMinutes;   // 提前提醒时间（分钟）
+    private transient long version; // 版本戳，由TaskService在每次修改时更新
     
     public enum Priority {
         LOW, MEDIUM, HIGH, URGENT
@@ -33,7 +41,7 @@ public class Task implements Comparable<Task>, Serializable {
     
     // 无参构造方法
     public Task() {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdGenerator.newId("task");
         this.status = TaskStatus.NOT_STARTED;
         this.priority = Priority.MEDIUM;
         this.reminderMinutes = 30; // 默认提前30分钟提醒
@@ -83,13 +91,55 @@ public class Task implements Comparable<Task>, Serializable {
     public int getReminderMinutes() { return reminderMinutes; }
     public void setReminderMinutes(int reminderMinutes) { this.reminderMinutes = reminderMinutes; }
     
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    
+    // 复制当前任务（包括版本戳），供后台线程保存或修改前复制使用
+    public Task copy() {
+        Task copy = new Task();
+        copy.id = id;
+        copy.assignFrom(this);
+        copy.version = version;
+        return copy;
+    }
+    
+    // 用另一个任务的内容覆盖当前任务，ID和版本戳保持不变
+    public void assignFrom(Task other) {
+        name = other.name;
+        content = other.content;
+        startTime = other.startTime != null ? new Date(other.startTime.getTime()) : null;
+        endTime = other.endTime != null ? new Date(other.endTime.getTime()) : null;
+        priority = other.priority;
+        status = other.status;
+        projectId = other.projectId;
+        type = other.type;
+        reminderMinutes = other.reminderMinutes;
+    }
+    
+    // 判断两个任务的内容（assignFrom复制的字段）是否相同，不比较ID和版本戳
+    public boolean sameContentAs(Task other) {
+        return Objects.equals(name, other.name)
+                && Objects.equals(content, other.content)
+                && Objects.equals(startTime, other.startTime)
+                && Objects.equals(endTime, other.endTime)
+                && priority == other.priority
+                && status == other.status
+                && Objects.equals(projectId, other.projectId)
+                && type == other.type
+                && reminderMinutes == other.reminderMinutes;
+    }
+    
     // 判断任务是否已过期
     public boolean isOverdue() {
+        return isOverdue(Clock.get().millis());
+    }
+    
+    // 判断任务在指定时刻（毫秒）是否已过期，批量判断时传入同一个时刻，不必每次创建Date
+    public boolean isOverdue(long now) {
         if (status == TaskStatus.COMPLETED) {
             return false;
         }
-        Date now = new Date();
-        return endTime != null && now.after(endTime);
+        return endTime != null && now > endTime.getTime();
     }
     
     // 计算剩余时间（毫秒）
@@ -97,8 +147,7 @@ public class Task implements Comparable<Task>, Serializable {
         if (status == TaskStatus.COMPLETED || endTime == null) {
             return 0;
         }
-        Date now = new Date();
-        return endTime.getTime() - now.getTime();
+        return endTime.getTime() - Clock.get().millis();
     }
     
     // 计算任务持续时间（毫秒）
@@ -52,8 +52,8 @@ public class DataBackupService {
             String taskBackupFile = backupDir + File.separator + "tasks_backup_" + timestamp + ".dat";
             String projectBackupFile = backupDir + File.separator + "projects_backup_" + timestamp + ".dat";
             
-            // 备份任务数据
-            List<Task> tasks = taskService.getAllTasks();
+            // 备份任务数据（从快照读取，不受同时进行的修改影响）
+            List<Task> tasks = taskService.snapshot().getAllTasks();
             try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(taskBackupFile))) {
                 oos.writeObject(tasks);
             }
@@ -92,15 +92,8 @@ public class DataBackupService {
                 try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(projectBackupFile))) {
                     List<Project> projects = (List<Project>) ois.readObject();
                     
-                    // 清空现有项目数据
-                    for (Project project : projectService.getAllProjects()) {
-                        projectService.deleteProject(project.getId());
-                    }
-                    
-                    // 恢复项目数据
-                    for (Project project : projects) {
-                        projectService.addProject(project);
-                    }
+                    // 用备份的项目整体替换现有项目
+                    projectService.replaceAllProjects(projects);
                 }
             }
             
@@ -109,15 +102,8 @@ public class DataBackupService {
                 try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(taskBackupFile))) {
                     List<Task> tasks = (List<Task>) ois.readObject();
                     
-                    // 清空现有任务数据
-                    for (Task task : taskService.getAllTasks()) {
-                        taskService.deleteTask(task.getId());
-                    }
-                    
-                    // 恢复任务数据
-                    for (Task task : tasks) {
-                        taskService.addTask(task);
-                    }
+                    // 用备份的任务整体替换现有任务
+                    taskService.replaceAllTasks(tasks);
                 }
             }
             
@@ -3,47 +3,57 @@ package com.scheduler.service;
 import com.scheduler.model.Project;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * 项目服务类：提供项目的增删改查等业务逻辑
+ * 项目表为ConcurrentHashMap，界面线程修改时备份和保存线程可以无锁读取
  */
 public class ProjectService {
-    private Map<String, Project> projectMap; // 存储所有项目的Map，key为项目ID
+    private volatile Map<String, Project> projectMap; // 存储所有项目的Map，key为项目ID
     
     // 构造方法
     public ProjectService() {
-        this.projectMap = new HashMap<>();
+        this.projectMap = new ConcurrentHashMap<>();
     }
     
     // 添加项目
     public boolean addProject(Project project) {
-        if (project == null || project.getId() == null || projectMap.containsKey(project.getId())) {
+        if (project == null || project.getId() == null) {
             return false;
         }
         
-        projectMap.put(project.getId(), project);
-        return true;
+        return projectMap.putIfAbsent(project.getId(), project) == null;
+    }
+    
+    // 用给定项目整体替换现有项目（加载数据或从备份恢复时使用），新表建好后整体换入
+    public void replaceAllProjects(Collection<Project> projects) {
+        Map<String, Project> newProjectMap = new ConcurrentHashMap<>();
+        for (Project project : projects) {
+            if (project != null && project.getId() != null) {
+                newProjectMap.putIfAbsent(project.getId(), project);
+            }
+        }
+        this.projectMap = newProjectMap;
     }
     
     // 更新项目
     public boolean updateProject(Project updatedProject) {
-        if (updatedProject == null || updatedProject.getId() == null || !projectMap.containsKey(updatedProject.getId())) {
+        if (updatedProject == null || updatedProject.getId() == null) {
             return false;
         }
         
-        projectMap.put(updatedProject.getId(), updatedProject);
-        return true;
+        return projectMap.replace(updatedProject.getId(), updatedProject) != null;
     }
     
     // 删除项目
     public boolean deleteProject(String projectId) {
-        if (projectId == null || !projectMap.containsKey(projectId)) {
+        if (projectId == null) {
             return false;
         }
         
-        projectMap.remove(projectId);
-        return true;
+        return projectMap.remove(projectId) != null;
     }
     
     // 根据ID获取项目
@@ -4,10 +4,12 @@ import com.scheduler.model.Reminder;
 import com.scheduler.model.Task;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * 提醒服务类：提供提醒的设置、触发和管理等业务逻辑
+ * 提醒表为ConcurrentHashMap，提醒检查线程遍历时界面线程可以同时设置或取消提醒
  */
 public class ReminderService {
     private Map<String, Reminder> reminderMap; // 存储所有提醒的Map，key为任务ID
@@ -15,7 +17,7 @@ public class ReminderService {
     
     // 构造方法
     public ReminderService(TaskService taskService) {
-        this.reminderMap = new HashMap<>();
+        this.reminderMap = new ConcurrentHashMap<>();
         this.taskService = taskService;
     }
     
@@ -0,0 +1,46 @@
+package com.scheduler.service;
+
+/**
+ * 标量统计内核类：逐行循环的实现，作为向量化实现不可用时的回退
+ */
+public class ScalarStatisticsKernels implements StatisticsKernels {
+    public static final ScalarStatisticsKernels INSTANCE = new ScalarStatisticsKernels();
+
+    @Override
+    public int countEquals(byte[] column, int n, byte value) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (column[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countOverdue(byte[] status, long[] end, int n, byte completed, long now) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (status[i] != completed && end[i] != TaskColumns.NO_TIME && end[i] < now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int[] histogram(byte[] column, int n, int buckets) {
+        int[] counts = new int[buckets];
+        for (int i = 0; i < n; i++) {
+            if (column[i] >= 0) {
+                counts[column[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
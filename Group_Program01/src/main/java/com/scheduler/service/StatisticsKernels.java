@@ -0,0 +1,65 @@
+package com.scheduler.service;
+
+/**
+ * 统计内核接口：在列存储的原始数组上执行谓词计数
+ * 提供标量实现和基于jdk.incubator.vector的向量化实现，运行时选择其一
+ */
+public interface StatisticsKernels {
+    // 系统属性：false强制使用标量实现，其余情况在向量模块可用时使用向量实现
+    String SIMD_PROPERTY = "scheduler.simd";
+
+    /**
+     * 统计前n个元素中等于value的个数
+     */
+    int countEquals(byte[] column, int n, byte value);
+
+    /**
+     * 统计前n行中逾期的任务数：状态不是completed，截止时间非空且早于now
+     */
+    int countOverdue(byte[] status, long[] end, int n, byte completed, long now);
+
+    /**
+     * 统计前n个元素中0到buckets-1各取值的出现次数，负值（空值）不计入
+     */
+    int[] histogram(byte[] column, int n, int buckets);
+
+    /**
+     * 获取当前选用的内核实现
+     */
+    static StatisticsKernels get() {
+        return KernelHolder.current;
+    }
+
+    /**
+     * 运行时切换实现
+     * @param useVector 是否使用向量化实现
+     * @return 切换后实际使用的实现（向量模块不可用时仍为标量实现）
+     */
+    static StatisticsKernels select(boolean useVector) {
+        KernelHolder.current = useVector ? KernelHolder.loadVector() : ScalarStatisticsKernels.INSTANCE;
+        return KernelHolder.current;
+    }
+
+    /**
+     * 当前实现的名称，便于日志和基准测试输出
+     */
+    String name();
+
+    // 延迟加载向量实现；缺少--add-modules jdk.incubator.vector时回退到标量实现
+    final class KernelHolder {
+        private static volatile StatisticsKernels current =
+                "false".equalsIgnoreCase(System.getProperty(SIMD_PROPERTY)) ? ScalarStatisticsKernels.INSTANCE : loadVector();
+
+        private KernelHolder() {
+        }
+
+        private static StatisticsKernels loadVector() {
+            try {
+                return (StatisticsKernels) Class.forName("com.scheduler.service.VectorStatisticsKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return ScalarStatisticsKernels.INSTANCE;
+            }
+        }
+    }
+}
@@ -1,194 +1,107 @@
 package com.scheduler.service;
 
 import com.scheduler.model.Task;
+import com.scheduler.util.Clock;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 统计服务类：提供任务完成率、延迟率等统计功能
+ * 所有查询都在TaskService维护的列存储上以原始类型循环完成，不创建任务列表副本
+ * 完成率、延迟率和分类计数交给StatisticsKernels执行，可在标量和向量化实现之间切换
  */
 public class StatisticsService {
+    private static final byte COMPLETED = (byte) Task.TaskStatus.COMPLETED.ordinal();
+    
     private TaskService taskService; // 任务服务，用于获取任务数据
+    private StatisticsKernels kernels; // 统计内核，默认按scheduler.simd属性选择
     private SimpleDateFormat weekFormat; // 用于格式化周的日期格式
-    private SimpleDateFormat monthFormat; // 用于格式化月的日期格式
     
     // 构造方法
     public StatisticsService(TaskService taskService) {
         this.taskService = taskService;
+        this.kernels = StatisticsKernels.get();
         this.weekFormat = new SimpleDateFormat("yyyy-'W'ww"); // 格式：2023-W45
-        this.monthFormat = new SimpleDateFormat("yyyy-MM"); // 格式：2023-11
     }
     
     // 获取本周完成的任务数量
     public int getCompletedTasksThisWeek() {
-        Date now = new Date();
-        String currentWeek = weekFormat.format(now);
-        
-        return taskService.getAllTasks().stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
-                .filter(task -> {
-                    if (task.getEndTime() == null) {
-                        return false;
-                    }
-                    String taskWeek = weekFormat.format(task.getEndTime());
-                    return currentWeek.equals(taskWeek);
-                })
-                .collect(Collectors.toList())
-                .size();
+        Calendar calendar = startOfToday(Clock.coarse().millis());
+        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+        long weekStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.WEEK_OF_YEAR, 1);
+        return countCompletedEndingIn(weekStart, calendar.getTimeInMillis() - 1);
     }
     
     // 获取本月完成的任务数量
     public int getCompletedTasksThisMonth() {
-        Date now = new Date();
-        String currentMonth = monthFormat.format(now);
-        
-        return taskService.getAllTasks().stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
-                .filter(task -> {
-                    if (task.getEndTime() == null) {
-                        return false;
-                    }
-                    String taskMonth = monthFormat.format(task.getEndTime());
-                    return currentMonth.equals(taskMonth);
-                })
-                .collect(Collectors.toList())
-                .size();
+        Calendar calendar = startOfToday(Clock.coarse().millis());
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        long monthStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.MONTH, 1);
+        return countCompletedEndingIn(monthStart, calendar.getTimeInMillis() - 1);
     }
     
     // 按周统计完成的任务数量
     public Map<String, Integer> getCompletedTasksByWeek(int weeks) {
-        Map<String, Integer> result = new TreeMap<>();
-        Calendar calendar = Calendar.getInstance();
-        
-        // 获取最近指定周数的数据
-        for (int i = 0; i < weeks; i++) {
-            calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
-            Date weekStart = calendar.getTime();
-            calendar.add(Calendar.DAY_OF_MONTH, 6);
-            Date weekEnd = calendar.getTime();
-            
-            String weekKey = weekFormat.format(weekStart);
-            
-            // 计算该周完成的任务数量
-            int count = taskService.getAllTasks().stream()
-                    .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
-                    .filter(task -> {
-                        if (task.getEndTime() == null) {
-                            return false;
-                        }
-                        return !task.getEndTime().before(weekStart) && !task.getEndTime().after(weekEnd);
-                    })
-                    .collect(Collectors.toList())
-                    .size();
-            
-            result.put(weekKey, count);
-            
-            // 移动到上一周
-            calendar.add(Calendar.DAY_OF_MONTH, -7);
-        }
-        
-        return result;
+        return countByWeek(weeks, false);
     }
     
     // 按周统计延迟的任务数量
     public Map<String, Integer> getOverdueTasksByWeek(int weeks) {
-        Map<String, Integer> result = new TreeMap<>();
-        Calendar calendar = Calendar.getInstance();
-        
-        // 获取最近指定周数的数据
-        for (int i = 0; i < weeks; i++) {
-            calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
-            Date weekStart = calendar.getTime();
-            calendar.add(Calendar.DAY_OF_MONTH, 6);
-            Date weekEnd = calendar.getTime();
-            
-            String weekKey = weekFormat.format(weekStart);
-            
-            // 计算该周延迟的任务数量
-            int count = taskService.getAllTasks().stream()
-                    .filter(Task::isOverdue)
-                    .filter(task -> {
-                        if (task.getEndTime() == null) {
-                            return false;
-                        }
-                        return !task.getEndTime().before(weekStart) && !task.getEndTime().after(weekEnd);
-                    })
-                    .collect(Collectors.toList())
-                    .size();
-            
-            result.put(weekKey, count);
-            
-            // 移动到上一周
-            calendar.add(Calendar.DAY_OF_MONTH, -7);
-        }
-        
-        return result;
+        return countByWeek(weeks, true);
     }
     
     // 获取任务完成率
     public double getTaskCompletionRate() {
-        List<Task> allTasks = taskService.getAllTasks();
-        if (allTasks.isEmpty()) {
-            return 0.0;
-        }
-        
-        long completedCount = allTasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
-                .count();
-        
-        return (double) completedCount / allTasks.size() * 100;
+        return taskService.readColumns(columns -> {
+            int n = columns.size();
+            if (n == 0) {
+                return 0.0;
+            }
+            
+            int completedCount = kernels.countEquals(columns.status(), n, COMPLETED);
+            return (double) completedCount / n * 100;
+        });
     }
     
     // 获取任务延迟率
     public double getTaskOverdueRate() {
-        List<Task> allTasks = taskService.getAllTasks();
-        if (allTasks.isEmpty()) {
-            return 0.0;
-        }
-        
-        long overdueCount = allTasks.stream()
-                .filter(Task::isOverdue)
-                .count();
-        
-        return (double) overdueCount / allTasks.size() * 100;
+        long now = Clock.coarse().millis();
+        return taskService.readColumns(columns -> {
+            int n = columns.size();
+            if (n == 0) {
+                return 0.0;
+            }
+            
+            int overdueCount = kernels.countOverdue(columns.status(), columns.end(), n, COMPLETED, now);
+            return (double) overdueCount / n * 100;
+        });
     }
     
     // 按任务类型统计任务数量
     public Map<Task.TaskType, Integer> getTaskCountByType() {
-        Map<Task.TaskType, Integer> result = new EnumMap<>(Task.TaskType.class);
-        
-        // 初始化所有类型的计数为0
-        for (Task.TaskType type : Task.TaskType.values()) {
-            result.put(type, 0);
-        }
-        
-        // 统计各类型的任务数量
-        for (Task task : taskService.getAllTasks()) {
-            if (task.getType() != null) {
-                result.put(task.getType(), result.get(task.getType()) + 1);
-            }
-        }
-        
-        return result;
+        int[] counts = taskService.readColumns(columns ->
+                kernels.histogram(columns.type(), columns.size(), Task.TaskType.values().length));
+        return toEnumMap(Task.TaskType.class, counts);
     }
     
     // 按优先级统计任务数量
     public Map<Task.Priority, Integer> getTaskCountByPriority() {
-        Map<Task.Priority, Integer> result = new EnumMap<>(Task.Priority.class);
-        
-        // 初始化所有优先级的计数为0
-        for (Task.Priority priority : Task.Priority.values()) {
-            result.put(priority, 0);
-        }
-        
-        // 统计各优先级的任务数量
-        for (Task task : taskService.getAllTasks()) {
-            result.put(task.getPriority(), result.get(task.getPriority()) + 1);
-        }
-        
-        return result;
+        int[] counts = taskService.readColumns(columns ->
+                kernels.histogram(columns.priority(), columns.size(), Task.Priority.values().length));
+        return toEnumMap(Task.Priority.class, counts);
+    }
+    
+    // 切换统计内核（true为向量化实现，向量模块不可用时自动回退到标量实现）
+    public void setVectorized(boolean vectorized) {
+        this.kernels = StatisticsKernels.select(vectorized);
+    }
+    
+    // 当前使用的统计内核名称
+    public String getKernelName() {
+        return kernels.name();
     }
     
     // 兼容方法：获取本周完成的任务数量
@@ -210,4 +123,88 @@ public class StatisticsService {
     public double getDelayRate() {
         return getTaskOverdueRate() / 100.0; // MainFrame期望返回的是小数形式（0-1）
     }
+    
+    // 统计截止时间落在[from, to]内的已完成任务数量
+    private int countCompletedEndingIn(long from, long to) {
+        return taskService.readColumns(columns -> {
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            int count = 0;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                if (statuses[i] == COMPLETED && ends[i] >= from && ends[i] <= to) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+    
+    // 统计最近若干周内每周完成（或延迟）的任务数量
+    private Map<String, Integer> countByWeek(int weeks, boolean overdue) {
+        long now = Clock.coarse().millis();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        Date[] weekStarts = new Date[weeks];
+        long[] weekEnds = new long[weeks];
+        
+        // 获取最近指定周数的时间范围
+        for (int i = 0; i < weeks; i++) {
+            calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+            weekStarts[i] = calendar.getTime();
+            calendar.add(Calendar.DAY_OF_MONTH, 6);
+            weekEnds[i] = calendar.getTimeInMillis();
+            
+            // 移动到上一周
+            calendar.add(Calendar.DAY_OF_MONTH, -7);
+        }
+        
+        int[] counts = taskService.readColumns(columns -> {
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            int n = columns.size();
+            int[] weekCounts = new int[weeks];
+            for (int i = 0; i < weeks; i++) {
+                long from = weekStarts[i].getTime();
+                for (int row = 0; row < n; row++) {
+                    boolean matches = overdue ? isOverdue(statuses[row], ends[row], now) : statuses[row] == COMPLETED;
+                    if (matches && ends[row] >= from && ends[row] <= weekEnds[i]) {
+                        weekCounts[i]++;
+                    }
+                }
+            }
+            return weekCounts;
+        });
+        
+        Map<String, Integer> result = new TreeMap<>();
+        for (int i = 0; i < weeks; i++) {
+            result.put(weekFormat.format(weekStarts[i]), counts[i]);
+        }
+        return result;
+    }
+    
+    // 与Task.isOverdue一致：未完成且截止时间已过
+    private static boolean isOverdue(byte status, long end, long now) {
+        return status != COMPLETED && end != TaskColumns.NO_TIME && now > end;
+    }
+    
+    // 将计数数组转换为包含所有取值的枚举Map
+    private static <E extends Enum<E>> Map<E, Integer> toEnumMap(Class<E> enumType, int[] counts) {
+        Map<E, Integer> result = new EnumMap<>(enumType);
+        E[] constants = enumType.getEnumConstants();
+        for (int i = 0; i < constants.length; i++) {
+            result.put(constants[i], counts[i]);
+        }
+        return result;
+    }
+    
+    // 日期计算从统一的时钟读数开始，与延迟判断使用同一个当前时刻
+    private static Calendar startOfToday(long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
 }
\ No newline at end of file
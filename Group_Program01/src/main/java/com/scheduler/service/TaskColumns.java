@@ -0,0 +1,236 @@
+package com.scheduler.service;
+
+import com.scheduler.model.Task;
+import com.scheduler.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务列存储类：以结构数组（struct-of-arrays）形式保存统计所需的任务字段
+ * 每个任务占一行，由TaskService在增删改时增量维护；删除时用末行填补空位，保持各列紧凑
+ * 统计查询直接在原始数组上循环，不需要解引用Task和Date对象
+ * 任务键和版本号两列支持O(1)快照（写时复制），供备份在后台线程判断哪些任务需要增量备份
+ */
+public class TaskColumns {
+    // 时间为空时的占位值
+    public static final long NO_TIME = Long.MIN_VALUE;
+    // 枚举或项目为空时的占位值
+    public static final byte NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;      // 行 -> 任务键
+    private long[] start;     // 开始时间（毫秒）
+    private long[] end;       // 截止时间（毫秒）
+    private byte[] status;    // 状态序号
+    private byte[] priority;  // 优先级序号
+    private byte[] type;      // 类型序号
+    private int[] projectIdx; // 项目在字典中的下标
+    private long[] version;   // 最后一次修改时的版本号
+    private int size;
+    private boolean versionsShared; // keys和version数组与版本快照共享，写入前需先复制
+
+    private final LongIntHashMap rowOf;             // 任务键 -> 行号
+    private final Map<String, Integer> projectDict; // 项目ID -> 字典下标
+    private final List<String> projectIds;          // 字典下标 -> 项目ID
+
+    public TaskColumns() {
+        this.rowOf = new LongIntHashMap(-1);
+        this.projectDict = new HashMap<>();
+        this.projectIds = new ArrayList<>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 写入或更新任务所在的行
+     * @param version 本次修改的版本号
+     */
+    public void upsert(long key, Task task, long version) {
+        prepareVersionWrite();
+        int row = rowOf.get(key);
+        if (row < 0) {
+            if (size == keys.length) {
+                grow();
+            }
+            row = size++;
+            rowOf.put(key, row);
+            keys[row] = key;
+        }
+        start[row] = task.getStartTime() != null ? task.getStartTime().getTime() : NO_TIME;
+        end[row] = task.getEndTime() != null ? task.getEndTime().getTime() : NO_TIME;
+        status[row] = task.getStatus() != null ? (byte) task.getStatus().ordinal() : NONE;
+        priority[row] = task.getPriority() != null ? (byte) task.getPriority().ordinal() : NONE;
+        type[row] = task.getType() != null ? (byte) task.getType().ordinal() : NONE;
+        projectIdx[row] = task.getProjectId() != null ? projectIndexOf(task.getProjectId()) : NONE;
+        this.version[row] = version;
+    }
+
+    /**
+     * 删除任务所在的行
+     */
+    public void remove(long key) {
+        int row = rowOf.remove(key);
+        if (row < 0) {
+            return;
+        }
+        prepareVersionWrite();
+        int last = --size;
+        if (row != last) {
+            keys[row] = keys[last];
+            start[row] = start[last];
+            end[row] = end[last];
+            status[row] = status[last];
+            priority[row] = priority[last];
+            type[row] = type[last];
+            projectIdx[row] = projectIdx[last];
+            version[row] = version[last];
+            rowOf.put(keys[row], row);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        rowOf.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 以下访问器直接返回内部数组，只有前size个元素有效，调用方不得修改
+    public long[] keys() {
+        return keys;
+    }
+
+    public long[] start() {
+        return start;
+    }
+
+    public long[] end() {
+        return end;
+    }
+
+    public byte[] status() {
+        return status;
+    }
+
+    public byte[] priority() {
+        return priority;
+    }
+
+    public byte[] type() {
+        return type;
+    }
+
+    public int[] projectIdx() {
+        return projectIdx;
+    }
+
+    public long[] version() {
+        return version;
+    }
+
+    /**
+     * 获取任务最后一次修改时的版本号
+     * @return 版本号，任务不存在时返回-1
+     */
+    public long versionOf(long key) {
+        int row = rowOf.get(key);
+        return row < 0 ? -1 : version[row];
+    }
+
+    /**
+     * 获取任务键和版本号两列的只读快照，代价为O(1)
+     */
+    public VersionSnapshot snapshotVersions() {
+        versionsShared = true;
+        return new VersionSnapshot(keys, version, size);
+    }
+
+    /**
+     * 获取项目ID在字典中的下标
+     * @return 下标，项目从未出现过时返回-1
+     */
+    public int findProjectIndex(String projectId) {
+        Integer index = projectDict.get(projectId);
+        return index != null ? index : NONE;
+    }
+
+    public String getProjectId(int index) {
+        return projectIds.get(index);
+    }
+
+    private int projectIndexOf(String projectId) {
+        Integer index = projectDict.get(projectId);
+        if (index == null) {
+            index = projectIds.size();
+            projectIds.add(projectId);
+            projectDict.put(projectId, index);
+        }
+        return index;
+    }
+
+    // 写入keys或version前检查：与快照共享时先复制这两列
+    private void prepareVersionWrite() {
+        if (versionsShared) {
+            keys = keys.clone();
+            version = version.clone();
+            versionsShared = false;
+        }
+    }
+
+    private void grow() {
+        int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        start = Arrays.copyOf(start, capacity);
+        end = Arrays.copyOf(end, capacity);
+        status = Arrays.copyOf(status, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        type = Arrays.copyOf(type, capacity);
+        projectIdx = Arrays.copyOf(projectIdx, capacity);
+        version = Arrays.copyOf(version, capacity);
+        versionsShared = false;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        start = new long[capacity];
+        end = new long[capacity];
+        status = new byte[capacity];
+        priority = new byte[capacity];
+        type = new byte[capacity];
+        projectIdx = new int[capacity];
+        version = new long[capacity];
+    }
+
+    /**
+     * 任务键和版本号的只读快照，只有前size个元素有效
+     */
+    public static final class VersionSnapshot {
+        private final long[] keys;
+        private final long[] version;
+        private final int size;
+
+        private VersionSnapshot(long[] keys, long[] version, int size) {
+            this.keys = keys;
+            this.version = version;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long keyAt(int row) {
+            return keys[row];
+        }
+
+        public long versionAt(int row) {
+            return version[row];
+        }
+    }
+}
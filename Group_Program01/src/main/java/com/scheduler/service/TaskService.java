@@ -1,200 +1,416 @@
 package com.scheduler.service;
 
 import com.scheduler.model.Task;
+import com.scheduler.util.Clock;
+import com.scheduler.util.LongPostingIndex;
 
 import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * 任务服务类：提供任务的增删改查等业务逻辑
+ * 界面线程、提醒线程和备份线程会同时访问，所有状态由一把StampedLock保护：
+ * 增删改持有写锁，一次写入同时更新存储、项目和日期索引以及列存储，其他线程看不到只改了一半的索引；
+ * 查询持有读锁，多个读取线程可以同时查询；只读取版本号时先乐观读取，读取期间有写入再加读锁重读
+ * 写锁没有按任务分段：每次写入都要更新所有任务共用的索引、列存储和版本号，分段后这些共享结构仍需一把锁保护
+ * snapshot()持有写锁，备份线程可随时取得一致的任务快照
+ * 每个任务带有版本戳（Task.getVersion()），编辑时用update(id, 版本戳, 修改)检查任务在此期间是否被他人修改过，
+ * 检查和写入在同一次写锁内完成，调用方不需要在编辑期间持有任何锁
  */
 public class TaskService {
-    private Map<String, Task> taskMap; // 存储所有任务的Map，key为任务ID
-    private Map<String, List<String>> tasksByProject; // 按项目分组的任务ID列表
-    private Map<Date, List<String>> tasksByDate; // 按日期分组的任务ID列表
+    private TaskStore taskStore; // 存储所有任务，key为任务ID对应的64位任务键
+    private LongPostingIndex<String> tasksByProject; // 按项目分组的任务键列表
+    private LongPostingIndex<Date> tasksByDate; // 按日期分组的任务键列表
+    private TaskColumns columns; // 统计用的列存储，随任务增删改增量维护
+    private long modificationVersion; // 全局修改版本号，每次增删改加1并记录到被修改的任务上
+    private Map<String, Long> deletedVersions; // 已删除任务ID -> 删除时的版本号，供增量备份使用
+    private volatile long lastModifiedAt; // 最近一次增删改任务的时间（毫秒），自动备份据此判断用户是否正在编辑
+    private final StampedLock lock = new StampedLock(); // 保护以上所有状态
     
     // 构造方法
     public TaskService() {
-        this.taskMap = new HashMap<>();
-        this.tasksByProject = new HashMap<>();
-        this.tasksByDate = new HashMap<>();
+        this.taskStore = new TaskStore();
+        this.tasksByProject = new LongPostingIndex<>();
+        this.tasksByDate = new LongPostingIndex<>();
+        this.columns = new TaskColumns();
+        this.deletedVersions = new HashMap<>();
     }
     
     // 添加任务
     public boolean addTask(Task task) {
-        if (task == null || task.getId() == null || taskMap.containsKey(task.getId())) {
+        if (task == null || task.getId() == null) {
             return false;
         }
         
-        taskMap.put(task.getId(), task);
-        
-        // 更新按项目分组的任务列表
-        if (task.getProjectId() != null) {
-            tasksByProject.computeIfAbsent(task.getProjectId(), k -> new ArrayList<>()).add(task.getId());
-        }
-        
-        // 更新按日期分组的任务列表
-        if (task.getStartTime() != null) {
-            Date dateKey = getDateKey(task.getStartTime());
-            tasksByDate.computeIfAbsent(dateKey, k -> new ArrayList<>()).add(task.getId());
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.add(task);
+            if (key < 0) {
+                return false;
+            }
+            
+            deletedVersions.remove(task.getId());
+            indexTask(key, task);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        return true;
     }
     
     // 更新任务
     public boolean updateTask(Task updatedTask) {
-        if (updatedTask == null || updatedTask.getId() == null || !taskMap.containsKey(updatedTask.getId())) {
+        if (updatedTask == null || updatedTask.getId() == null) {
             return false;
         }
         
-        Task oldTask = taskMap.get(updatedTask.getId());
-        
-        // 移除旧任务的项目关联
-        if (oldTask.getProjectId() != null) {
-            List<String> taskIds = tasksByProject.get(oldTask.getProjectId());
-            if (taskIds != null) {
-                taskIds.remove(oldTask.getId());
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.replace(updatedTask);
+            if (key < 0) {
+                return false;
             }
+            
+            // 倒排索引记录了任务键所在的分组，即使任务对象已被原地修改也能正确移出旧分组
+            unindexTask(key);
+            indexTask(key, updatedTask);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        // 移除旧任务的日期关联
-        if (oldTask.getStartTime() != null) {
-            Date oldDateKey = getDateKey(oldTask.getStartTime());
-            List<String> taskIds = tasksByDate.get(oldDateKey);
-            if (taskIds != null) {
-                taskIds.remove(oldTask.getId());
+    }
+    
+    // 删除任务
+    public boolean deleteTask(String taskId) {
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.keyOf(taskId);
+            if (key < 0) {
+                return false;
             }
+            
+            taskStore.remove(taskId);
+            unindexTask(key);
+            deletedVersions.put(taskId, ++modificationVersion);
+            lastModifiedAt = System.currentTimeMillis();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        // 更新任务
-        taskMap.put(updatedTask.getId(), updatedTask);
-        
-        // 更新新的项目关联
-        if (updatedTask.getProjectId() != null) {
-            tasksByProject.computeIfAbsent(updatedTask.getProjectId(), k -> new ArrayList<>()).add(updatedTask.getId());
-        }
-        
-        // 更新新的日期关联
-        if (updatedTask.getStartTime() != null) {
-            Date newDateKey = getDateKey(updatedTask.getStartTime());
-            tasksByDate.computeIfAbsent(newDateKey, k -> new ArrayList<>()).add(updatedTask.getId());
+    }
+    
+    // 用给定任务整体替换现有任务（加载数据或从备份恢复时使用）
+    // 在新的存储、索引和列存储上一次性建好后整体换入，代价与任务数成线性，不逐个删除旧任务
+    // 不在新数据中的旧任务记为删除，供增量备份使用；ID重复时只保留第一个
+    public void replaceAllTasks(Collection<Task> tasks) {
+        long stamp = lock.writeLock();
+        try {
+            replaceAllTasksLocked(tasks);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        return true;
     }
     
-    // 删除任务
-    public boolean deleteTask(String taskId) {
-        if (taskId == null || !taskMap.containsKey(taskId)) {
-            return false;
+    private void replaceAllTasksLocked(Collection<Task> tasks) {
+        TaskStore newStore = new TaskStore();
+        LongPostingIndex<String> newByProject = new LongPostingIndex<>();
+        LongPostingIndex<Date> newByDate = new LongPostingIndex<>();
+        TaskColumns newColumns = new TaskColumns();
+        for (Task task : tasks) {
+            if (task == null || task.getId() == null) {
+                continue;
+            }
+            long key = newStore.add(task);
+            if (key < 0) {
+                continue;
+            }
+            deletedVersions.remove(task.getId());
+            long version = ++modificationVersion;
+            newColumns.upsert(key, task, version);
+            task.setVersion(version);
+            if (task.getProjectId() != null) {
+                newByProject.add(task.getProjectId(), key);
+            }
+            if (task.getStartTime() != null) {
+                newByDate.add(getDateKey(task.getStartTime()), key);
+            }
         }
+        taskStore.forEach(old -> {
+            if (!newStore.contains(old.getId())) {
+                deletedVersions.put(old.getId(), ++modificationVersion);
+            }
+        });
         
-        Task task = taskMap.remove(taskId);
-        
-        // 从项目关联中移除
+        this.taskStore = newStore;
+        this.tasksByProject = newByProject;
+        this.tasksByDate = newByDate;
+        this.columns = newColumns;
+    }
+    
+    // 将任务加入项目和日期索引以及列存储
+    private void indexTask(long key, Task task) {
+        long version = ++modificationVersion;
+        columns.upsert(key, task, version);
+        task.setVersion(version);
+        lastModifiedAt = System.currentTimeMillis();
         if (task.getProjectId() != null) {
-            List<String> taskIds = tasksByProject.get(task.getProjectId());
-            if (taskIds != null) {
-                taskIds.remove(taskId);
-            }
+            tasksByProject.add(task.getProjectId(), key);
         }
-        
-        // 从日期关联中移除
         if (task.getStartTime() != null) {
-            Date dateKey = getDateKey(task.getStartTime());
-            List<String> taskIds = tasksByDate.get(dateKey);
-            if (taskIds != null) {
-                taskIds.remove(taskId);
-            }
+            tasksByDate.add(getDateKey(task.getStartTime()), key);
         }
-        
-        return true;
+    }
+    
+    // 将任务移出项目和日期索引以及列存储
+    private void unindexTask(long key) {
+        columns.remove(key);
+        tasksByProject.remove(key);
+        tasksByDate.remove(key);
     }
     
     // 根据ID获取任务
     public Task getTaskById(String taskId) {
-        return taskMap.get(taskId);
+        return read(() -> taskStore.get(taskId));
     }
     
     // 获取所有任务
     public List<Task> getAllTasks() {
-        return new ArrayList<>(taskMap.values());
+        return read(taskStore::values);
     }
     
     // 获取指定项目的任务
     public List<Task> getTasksByProject(String projectId) {
-        List<String> taskIds = tasksByProject.getOrDefault(projectId, Collections.emptyList());
-        return taskIds.stream()
-                .map(taskMap::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return read(() -> {
+            List<Task> result = new ArrayList<>(tasksByProject.count(projectId));
+            tasksByProject.forEach(projectId, key -> result.add(taskStore.get(key)));
+            return result;
+        });
     }
     
     // 获取指定日期的任务
     public List<Task> getTasksByDate(Date date) {
         Date dateKey = getDateKey(date);
-        List<String> taskIds = tasksByDate.getOrDefault(dateKey, Collections.emptyList());
-        return taskIds.stream()
-                .map(taskMap::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return read(() -> {
+            List<Task> result = new ArrayList<>(tasksByDate.count(dateKey));
+            tasksByDate.forEach(dateKey, key -> result.add(taskStore.get(key)));
+            return result;
+        });
     }
     
     // 按优先级排序获取任务
     public List<Task> getTasksSortedByPriority() {
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .sorted(Comparator.comparing(Task::getPriority).reversed())
                 .collect(Collectors.toList());
     }
     
     // 按截止时间排序获取任务
     public List<Task> getTasksSortedByEndTime() {
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .sorted(Comparator.comparing(Task::getEndTime))
                 .collect(Collectors.toList());
     }
     
     // 获取已过期的任务
     public List<Task> getOverdueTasks() {
-        return taskMap.values().stream()
-                .filter(task -> task.isOverdue())
+        long now = Clock.coarse().millis();
+        return getAllTasks().stream()
+                .filter(task -> task.isOverdue(now))
                 .collect(Collectors.toList());
     }
     
     // 标记任务完成
     public boolean markTaskAsCompleted(String taskId) {
-        Task task = getTaskById(taskId);
-        if (task != null) {
-            task.setStatus(Task.TaskStatus.COMPLETED);
-            return true;
-        }
-        return false;
+        return setTaskStatus(taskId, Task.TaskStatus.COMPLETED);
     }
     
     // 标记任务进行中
     public boolean markTaskAsInProgress(String taskId) {
-        Task task = getTaskById(taskId);
-        if (task != null) {
-            task.setStatus(Task.TaskStatus.IN_PROGRESS);
-            return true;
-        }
-        return false;
+        return setTaskStatus(taskId, Task.TaskStatus.IN_PROGRESS);
     }
     
     // 标记任务未开始
     public boolean markTaskAsNotStarted(String taskId) {
-        Task task = getTaskById(taskId);
-        if (task != null) {
-            task.setStatus(Task.TaskStatus.NOT_STARTED);
+        return setTaskStatus(taskId, Task.TaskStatus.NOT_STARTED);
+    }
+    
+    // 修改任务状态并同步列存储
+    // 在副本上修改后替换原任务，其他线程已取得的任务对象不会在读取中途改变
+    private boolean setTaskStatus(String taskId, Task.TaskStatus status) {
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.keyOf(taskId);
+            if (key < 0) {
+                return false;
+            }
+            Task task = taskStore.get(key).copy();
+            task.setStatus(status);
+            taskStore.replace(task);
+            long version = ++modificationVersion;
+            columns.upsert(key, task, version);
+            task.setVersion(version);
+            lastModifiedAt = System.currentTimeMillis();
             return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // 乐观并发修改：任务的当前版本戳等于expectedVersion时，在任务副本上执行mutator并替换原任务
+    // 任务在此期间已被其他人修改时不做改动，返回CONFLICT和当前任务，调用方可以合并后用新的版本戳重试
+    // mutator在写锁内执行，只应修改传入的任务，不能调用TaskService的其他方法；任务ID不可修改
+    public UpdateResult update(String taskId, long expectedVersion, Consumer<Task> mutator) {
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.keyOf(taskId);
+            if (key < 0) {
+                return new UpdateResult(UpdateResult.Status.NOT_FOUND, null);
+            }
+            Task current = taskStore.get(key);
+            if (current.getVersion() != expectedVersion) {
+                return new UpdateResult(UpdateResult.Status.CONFLICT, current);
+            }
+            
+            Task updated = current.copy();
+            mutator.accept(updated);
+            updated.setId(taskId);
+            taskStore.replace(updated);
+            unindexTask(key);
+            indexTask(key, updated);
+            return new UpdateResult(UpdateResult.Status.UPDATED, updated);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // 获取最近一次增删改任务的时间（毫秒），没有修改过时为0
+    public long getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+    
+    // 获取当前的全局修改版本号：乐观读取单个字段，读取期间有写入时加读锁重读
+    public long getModificationVersion() {
+        long stamp = lock.tryOptimisticRead();
+        long version = modificationVersion;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                version = modificationVersion;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+    
+    // 获取任务最后一次修改时的版本号，任务不存在时返回-1
+    public long getTaskVersion(String taskId) {
+        return read(() -> {
+            long key = taskStore.keyOf(taskId);
+            return key < 0 ? -1 : columns.versionOf(key);
+        });
+    }
+    
+    // 获取指定版本号之后新增或修改过的任务
+    public List<Task> getTasksModifiedSince(long version) {
+        return read(() -> {
+            List<Task> result = new ArrayList<>();
+            long[] keys = columns.keys();
+            long[] versions = columns.version();
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                if (versions[i] > version) {
+                    result.add(taskStore.get(keys[i]));
+                }
+            }
+            return result;
+        });
+    }
+    
+    // 获取指定版本号之后删除的任务ID
+    public List<String> getTaskIdsDeletedSince(long version) {
+        return getTaskIdsDeletedSince(version, Long.MAX_VALUE);
+    }
+    
+    // 获取版本号在(version, upTo]范围内删除的任务ID，upTo通常为某个快照的版本号
+    public List<String> getTaskIdsDeletedSince(long version, long upTo) {
+        return read(() -> {
+            List<String> result = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : deletedVersions.entrySet()) {
+                if (entry.getValue() > version && entry.getValue() <= upTo) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        });
+    }
+    
+    // 丢弃不晚于指定版本号的删除记录（全量备份后不再需要）
+    public void discardDeletionsUpTo(long version) {
+        long stamp = lock.writeLock();
+        try {
+            deletedVersions.values().removeIf(deleted -> deleted <= version);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return false;
+    }
+    
+    // 获取任务快照，代价为O(1)，可交给其他线程读取
+    // 快照会把存储标记为共享（之后的写入先复制），因此与写入一样持有写锁
+    public TaskSnapshot snapshot() {
+        long stamp = lock.writeLock();
+        try {
+            return new TaskSnapshot(taskStore.snapshot(), columns.snapshotVersions(), modificationVersion);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // 在统计用的列存储上执行只读计算，计算期间持有读锁，不会看到写了一半的列
+    // reader不能把列数组带出回调，回调结束后列数组可能被写入线程修改
+    public <T> T readColumns(Function<TaskColumns, T> reader) {
+        return read(() -> reader.apply(columns));
     }
     
     // 获取任务数量
     public int getTaskCount() {
-        return taskMap.size();
+        return read(taskStore::size);
+    }
+    
+    // 执行只读操作：持有读锁，读取线程之间不互斥，只与写入互斥
+    // 查询要遍历存储、索引和列存储等多个非线程安全的结构，不加锁读取可能看到写了一半的状态（甚至在探测循环中不能结束），
+    // 所以只有读取单个版本号字段时才用乐观读
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * 乐观并发修改的结果：UPDATED时为修改后的任务，CONFLICT时为当前（他人修改后）的任务
+     */
+    public static final class UpdateResult {
+        public enum Status { UPDATED, CONFLICT, NOT_FOUND }
+        
+        private final Status status;
+        private final Task task;
+        
+        UpdateResult(Status status, Task task) {
+            this.status = status;
+            this.task = task;
+        }
+        
+        public Status getStatus() { return status; }
+        public Task getTask() { return task; }
+        public boolean isUpdated() { return status == Status.UPDATED; }
+        
+        // 结果中任务的版本戳，重试时作为expectedVersion传入；任务不存在时为-1
+        public long getVersion() { return task != null ? task.getVersion() : -1; }
     }
     
     // 辅助方法：获取日期的关键部分（年月日）作为Map的键
@@ -0,0 +1,54 @@
+package com.scheduler.service;
+
+import com.scheduler.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 任务快照类：某一时刻的任务集合及各任务的修改版本号，由TaskService.snapshot()以O(1)代价生成
+ * 快照不随之后的增删改变化，可交给后台线程序列化；任务对象本身与TaskService共享
+ */
+public class TaskSnapshot {
+    private final TaskStore.Snapshot tasks; // 任务集合
+    private final TaskColumns.VersionSnapshot versions; // 各任务的修改版本号
+    private final long modificationVersion; // 取快照时的全局修改版本号
+    
+    TaskSnapshot(TaskStore.Snapshot tasks, TaskColumns.VersionSnapshot versions, long modificationVersion) {
+        this.tasks = tasks;
+        this.versions = versions;
+        this.modificationVersion = modificationVersion;
+    }
+    
+    // 获取取快照时的全局修改版本号
+    public long getModificationVersion() {
+        return modificationVersion;
+    }
+    
+    // 获取快照中的所有任务
+    public List<Task> getAllTasks() {
+        return tasks.values();
+    }
+    
+    // 遍历快照中的所有任务，不产生中间集合
+    public void forEach(Consumer<? super Task> action) {
+        tasks.forEach(action);
+    }
+    
+    // 获取任务数量
+    public int getTaskCount() {
+        return tasks.size();
+    }
+    
+    // 获取指定版本号之后新增或修改过的任务
+    public List<Task> getTasksModifiedSince(long version) {
+        List<Task> result = new ArrayList<>();
+        for (int i = 0, n = versions.size(); i < n; i++) {
+            if (versions.versionAt(i) > version) {
+                result.add(tasks.get(versions.keyAt(i)));
+            }
+        }
+        return result;
+    }
+}
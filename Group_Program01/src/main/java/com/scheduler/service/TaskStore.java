@@ -0,0 +1,160 @@
+package com.scheduler.service;
+
+import com.scheduler.model.Task;
+import com.scheduler.util.IdGenerator;
+import com.scheduler.util.LongObjectHashMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 任务存储类：以64位任务键保存任务，替代按字符串ID哈希的HashMap
+ * IdGenerator生成的ID直接解析出键；旧数据中的其他格式ID通过一张小映射表分配键
+ * snapshot()以O(1)代价取得任务集合的一致快照（写时复制），备份和保存可在后台线程遍历快照，不必复制任务也不会与修改冲突
+ * 快照只固定任务集合，任务对象本身仍与存储共享
+ */
+public class TaskStore {
+    private final LongObjectHashMap<Task> tasks; // 任务键 -> 任务
+    private final Map<String, Long> foreignKeys;  // 非生成格式的任务ID -> 任务键
+
+    public TaskStore() {
+        this.tasks = new LongObjectHashMap<>();
+        this.foreignKeys = new HashMap<>();
+    }
+
+    /**
+     * 查找任务ID对应的任务键
+     * @return 任务键，任务不存在时返回-1
+     */
+    public long keyOf(String taskId) {
+        if (taskId == null) {
+            return -1;
+        }
+        Long foreign = foreignKeys.get(taskId);
+        if (foreign != null) {
+            return foreign;
+        }
+        long key = IdGenerator.parseId(taskId);
+        if (key < 0) {
+            return -1;
+        }
+        // 解析出的键可能与其他ID巧合相同，需确认存的确实是这个任务
+        Task task = tasks.get(key);
+        return task != null && task.getId().equals(taskId) ? key : -1;
+    }
+
+    /**
+     * 根据任务ID获取任务
+     */
+    public Task get(String taskId) {
+        long key = keyOf(taskId);
+        return key < 0 ? null : tasks.get(key);
+    }
+
+    /**
+     * 根据任务键获取任务
+     */
+    public Task get(long key) {
+        return tasks.get(key);
+    }
+
+    public boolean contains(String taskId) {
+        return keyOf(taskId) >= 0;
+    }
+
+    /**
+     * 添加新任务
+     * @return 分配的任务键，ID已存在时返回-1
+     */
+    public synchronized long add(Task task) {
+        String taskId = task.getId();
+        if (contains(taskId)) {
+            return -1;
+        }
+        long key = IdGenerator.parseId(taskId);
+        if (key < 0 || tasks.containsKey(key)) {
+            key = IdGenerator.newLongId();
+            foreignKeys.put(taskId, key);
+        }
+        tasks.put(key, task);
+        return key;
+    }
+
+    /**
+     * 替换已存在任务
+     * @return 任务键，任务不存在时返回-1
+     */
+    public synchronized long replace(Task task) {
+        long key = keyOf(task.getId());
+        if (key >= 0) {
+            tasks.put(key, task);
+        }
+        return key;
+    }
+
+    /**
+     * 删除任务
+     * @return 被删除的任务，不存在时返回null
+     */
+    public synchronized Task remove(String taskId) {
+        long key = keyOf(taskId);
+        if (key < 0) {
+            return null;
+        }
+        foreignKeys.remove(taskId);
+        return tasks.remove(key);
+    }
+
+    public List<Task> values() {
+        return tasks.values();
+    }
+
+    public void forEach(Consumer<? super Task> action) {
+        tasks.forEachValue(action);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public synchronized void clear() {
+        tasks.clear();
+        foreignKeys.clear();
+    }
+
+    /**
+     * 获取任务集合的只读快照，可在其他线程使用
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(tasks.snapshot());
+    }
+
+    /**
+     * 任务存储的只读快照，内容固定为取快照时的任务集合
+     */
+    public static final class Snapshot {
+        private final LongObjectHashMap<Task> tasks;
+
+        private Snapshot(LongObjectHashMap<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        public Task get(long key) {
+            return tasks.get(key);
+        }
+
+        public List<Task> values() {
+            return tasks.values();
+        }
+
+        public void forEach(Consumer<? super Task> action) {
+            tasks.forEachValue(action);
+        }
+
+        public int size() {
+            return tasks.size();
+        }
+    }
+}
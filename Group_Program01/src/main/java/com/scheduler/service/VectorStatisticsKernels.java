@@ -0,0 +1,76 @@
+package com.scheduler.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 向量化统计内核类：基于jdk.incubator.vector的SIMD实现
+ * 需要在编译和运行时加上 --add-modules jdk.incubator.vector，否则StatisticsKernels会回退到标量实现
+ */
+public class VectorStatisticsKernels implements StatisticsKernels {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    // 逾期计数同时读取状态和截止时间：long按本机的向量宽度取，每次取的状态字节至少8个（最小的向量形状是64位），
+    // 再拆成若干组与long通道数相同的状态与截止时间比较
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> STATUS_BYTES = VectorSpecies.of(byte.class,
+            VectorShape.forBitSize(Math.max(64, LONGS.length() * Byte.SIZE)));
+
+    @Override
+    public int countEquals(byte[] column, int n, byte value) {
+        int count = 0;
+        int i = 0;
+        for (int bound = BYTES.loopBound(n); i < bound; i += BYTES.length()) {
+            count += ByteVector.fromArray(BYTES, column, i).compare(VectorOperators.EQ, value).trueCount();
+        }
+        for (; i < n; i++) {
+            if (column[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countOverdue(byte[] status, long[] end, int n, byte completed, long now) {
+        int count = 0;
+        int i = 0;
+        int step = STATUS_BYTES.length();
+        for (int bound = STATUS_BYTES.loopBound(n); i < bound; i += step) {
+            ByteVector statuses = ByteVector.fromArray(STATUS_BYTES, status, i);
+            for (int part = 0; part < step / LONGS.length(); part++) {
+                int offset = i + part * LONGS.length();
+                LongVector ends = LongVector.fromArray(LONGS, end, offset);
+                LongVector partStatus = (LongVector) statuses.convertShape(VectorOperators.B2L, LONGS, part);
+                VectorMask<Long> overdue = partStatus.compare(VectorOperators.NE, completed)
+                        .and(ends.compare(VectorOperators.NE, TaskColumns.NO_TIME))
+                        .and(ends.compare(VectorOperators.LT, now));
+                count += overdue.trueCount();
+            }
+        }
+        for (; i < n; i++) {
+            if (status[i] != completed && end[i] != TaskColumns.NO_TIME && end[i] < now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int[] histogram(byte[] column, int n, int buckets) {
+        // 取值种类很少（优先级、类型都不超过4种），逐个取值做一次向量化计数
+        int[] counts = new int[buckets];
+        for (int b = 0; b < buckets; b++) {
+            counts[b] = countEquals(column, n, (byte) b);
+        }
+        return counts;
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + BYTES.length() + "x8bit, " + LONGS.length() + "x64bit)";
+    }
+}
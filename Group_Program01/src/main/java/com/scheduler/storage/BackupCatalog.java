@@ -0,0 +1,199 @@
+package com.scheduler.storage;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 备份清单类：以追加方式记录每个备份片段的ID（文件名）、时间、大小、任务数、校验和以及所依赖的上一个片段
+ * 列出和清理备份时只读取清单，不再扫描备份目录、逐个读取文件修改时间或片段内容
+ * 清单丢失时从备份文件重建；删除记录累积过多时把清单压缩重写一次
+ */
+public final class BackupCatalog {
+    public static final String MANIFEST_NAME = "catalog.manifest";
+    private static final String ADD = "+";
+    private static final String REMOVE = "-";
+    private static final int MIN_COMPACT_REMOVALS = 64;
+
+    private final File directory; // 备份目录
+    private final File manifest;  // 清单文件
+    private final FilenameFilter backupFilter; // 重建时识别备份文件
+    private final EntryReader reader;          // 重建时从备份文件读取条目
+    private final Map<String, Entry> entries = new LinkedHashMap<>(); // 按登记顺序保存的条目
+    private int removals; // 清单中的删除记录数
+
+    // 从备份文件读取清单条目，用于重建清单
+    @FunctionalInterface
+    public interface EntryReader {
+        Entry read(File file) throws IOException, ClassNotFoundException;
+    }
+
+    // 构造方法：读取清单，清单不存在时从备份文件重建
+    public BackupCatalog(File directory, FilenameFilter backupFilter, EntryReader reader) {
+        this.directory = directory;
+        this.manifest = new File(directory, MANIFEST_NAME);
+        this.backupFilter = backupFilter;
+        this.reader = reader;
+        load();
+    }
+
+    // 获取所有备份，最新的在前面
+    public synchronized List<Entry> list() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort((e1, e2) -> Long.compare(e2.getCreatedAt(), e1.getCreatedAt()));
+        return list;
+    }
+
+    // 根据ID（文件名）获取条目
+    public synchronized Entry get(String id) {
+        return entries.get(id);
+    }
+
+    // 登记一个新备份
+    public synchronized void add(Entry entry) {
+        entries.put(entry.getId(), entry);
+        append(format(entry));
+    }
+
+    // 注销一个备份（不删除文件）
+    public synchronized void remove(String id) {
+        if (entries.remove(id) == null) {
+            return;
+        }
+        removals++;
+        if (removals > Math.max(MIN_COMPACT_REMOVALS, entries.size())) {
+            compact();
+        } else {
+            append(REMOVE + "\t" + id);
+        }
+    }
+
+    // 扫描备份目录重新生成清单，用于清单丢失或与文件不一致时
+    public synchronized void rebuild() {
+        entries.clear();
+        List<Entry> found = new ArrayList<>();
+        File[] files = directory.listFiles(backupFilter);
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    found.add(reader.read(file));
+                } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                    System.err.println("无法读取备份文件，未加入清单: " + file.getName() + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(Entry::getCreatedAt));
+        for (Entry entry : found) {
+            entries.put(entry.getId(), entry);
+        }
+        compact();
+    }
+
+    private void load() {
+        if (!manifest.exists()) {
+            rebuild();
+            return;
+        }
+        boolean damaged = false;
+        try {
+            for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 2 && REMOVE.equals(fields[0])) {
+                    entries.remove(fields[1]);
+                    removals++;
+                } else if (fields.length == 7 && ADD.equals(fields[0])) {
+                    Entry entry = parse(fields);
+                    if (entry != null) {
+                        entries.put(entry.getId(), entry);
+                    } else {
+                        damaged = true;
+                    }
+                } else if (!line.isEmpty()) {
+                    damaged = true; // 例如写到一半的最后一行
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("读取备份清单失败，从备份文件重建: " + e.getMessage());
+            rebuild();
+            return;
+        }
+        if (damaged) {
+            compact();
+        }
+    }
+
+    private void append(String line) {
+        try {
+            Files.write(manifest.toPath(), (line + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("写入备份清单失败: " + e.getMessage());
+        }
+    }
+
+    // 只保留现有条目重写清单（先写临时文件，再原子替换）
+    private void compact() {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            lines.add(format(entry));
+        }
+        File temp = new File(directory, MANIFEST_NAME + ".tmp");
+        try {
+            Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), manifest.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            removals = 0;
+        } catch (IOException e) {
+            System.err.println("重写备份清单失败: " + e.getMessage());
+        }
+    }
+
+    private static String format(Entry entry) {
+        return String.join("\t", ADD, entry.getId(), Long.toString(entry.getCreatedAt()),
+                Long.toString(entry.getSize()), Integer.toString(entry.getTaskCount()),
+                Long.toHexString(entry.getChecksum()), entry.getParent() != null ? entry.getParent() : "");
+    }
+
+    private static Entry parse(String[] fields) {
+        try {
+            return new Entry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                    Integer.parseInt(fields[4]), Long.parseUnsignedLong(fields[5], 16),
+                    fields[6].isEmpty() ? null : fields[6]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清单条目类：一个备份文件的摘要信息
+     */
+    public static class Entry {
+        private final String id;        // 备份文件名
+        private final long createdAt;   // 备份时间（毫秒）
+        private final long size;        // 文件大小（字节）
+        private final int taskCount;    // 片段中的任务数
+        private final long checksum;    // 整个文件的CRC32
+        private final String parent;    // 增量片段依赖的上一个片段，全量片段为null
+
+        public Entry(String id, long createdAt, long size, int taskCount, long checksum, String parent) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.size = size;
+            this.taskCount = taskCount;
+            this.checksum = checksum;
+            this.parent = parent;
+        }
+
+        public String getId() { return id; }
+        public long getCreatedAt() { return createdAt; }
+        public long getSize() { return size; }
+        public int getTaskCount() { return taskCount; }
+        public long getChecksum() { return checksum; }
+        public String getParent() { return parent; }
+    }
+}
@@ -0,0 +1,107 @@
+package com.scheduler.storage;
+
+import com.scheduler.model.Project;
+import com.scheduler.model.Task;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 备份片段类：备份链中的一个文件
+ * 全量片段保存所有任务；增量片段只保存上一个片段之后新增、修改的任务和删除的任务ID，并记录所依赖的上一个片段
+ * 项目数量很少，每个片段都保存完整的项目列表
+ * 写入文件时任务按项目和开始时间排序后分块单独序列化，片段本身（不含任务）作为文件尾部的索引，
+ * 记录每块的位置、项目ID和时间范围，选择性恢复时只读取可能匹配的块
+ */
+public class BackupSegment implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final boolean full;             // 是否为全量片段
+    private final String parentFile;        // 增量片段依赖的上一个片段文件名，全量片段为null
+    private final long version;             // 备份时任务服务的修改版本号
+    private final long createdAt;           // 备份时间（毫秒）
+    private final List<Task> tasks;         // 全量：所有任务；增量：新增或修改的任务
+    private final List<String> deletedTaskIds; // 增量：已删除的任务ID
+    private final List<Project> projects;   // 所有项目
+    private final List<String> taskIds;     // 片段包含的所有任务ID（分块格式）
+    private final List<BlockEntry> blocks;  // 任务块索引（分块格式），旧格式为null
+    
+    public BackupSegment(boolean full, String parentFile, long version, long createdAt,
+                         List<Task> tasks, List<String> deletedTaskIds, List<Project> projects) {
+        this(full, parentFile, version, createdAt, tasks, deletedTaskIds, projects, null, null);
+    }
+    
+    private BackupSegment(boolean full, String parentFile, long version, long createdAt, List<Task> tasks,
+                          List<String> deletedTaskIds, List<Project> projects,
+                          List<String> taskIds, List<BlockEntry> blocks) {
+        this.full = full;
+        this.parentFile = parentFile;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.tasks = tasks;
+        this.deletedTaskIds = deletedTaskIds;
+        this.projects = projects;
+        this.taskIds = taskIds;
+        this.blocks = blocks;
+    }
+    
+    // 生成写在文件尾部的索引：不含任务本身，只记录任务ID和块索引
+    public BackupSegment toIndex(List<BlockEntry> blocks) {
+        List<String> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return new BackupSegment(full, parentFile, version, createdAt, new ArrayList<>(),
+                deletedTaskIds, projects, ids, blocks);
+    }
+    
+    public boolean isFull() { return full; }
+    public String getParentFile() { return parentFile; }
+    public long getVersion() { return version; }
+    public long getCreatedAt() { return createdAt; }
+    public List<Task> getTasks() { return tasks; }
+    public List<String> getDeletedTaskIds() { return deletedTaskIds; }
+    public List<Project> getProjects() { return projects; }
+    public List<BlockEntry> getBlocks() { return blocks; }
+    
+    // 片段包含的任务ID，旧格式从任务列表中获取
+    public List<String> getTaskIds() {
+        if (taskIds != null) {
+            return taskIds;
+        }
+        List<String> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    /**
+     * 任务块索引项：块在文件中的位置和长度，以及块内任务的项目ID和时间范围
+     */
+    public static class BlockEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private final long offset;          // 块在文件中的偏移
+        private final int length;           // 块的字节数
+        private final long minTime;         // 块内任务的最早时间（毫秒）
+        private final long maxTime;         // 块内任务的最晚时间（毫秒）
+        private final Set<String> projectIds; // 块内任务的项目ID
+        
+        public BlockEntry(long offset, int length, long minTime, long maxTime, Set<String> projectIds) {
+            this.offset = offset;
+            this.length = length;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.projectIds = projectIds;
+        }
+        
+        public long getOffset() { return offset; }
+        public int getLength() { return length; }
+        public long getMinTime() { return minTime; }
+        public long getMaxTime() { return maxTime; }
+        public Set<String> getProjectIds() { return projectIds; }
+    }
+}
@@ -1,29 +1,59 @@
 package com.scheduler.storage;
 
+import com.scheduler.model.Project;
+import com.scheduler.model.Task;
 import com.scheduler.service.ProjectService;
 import com.scheduler.service.TaskService;
+import com.scheduler.service.TaskSnapshot;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * 数据备份服务类：负责定期自动备份和手动导出日程数据
+ * 备份以链的形式保存：每隔若干次做一次全量备份作为链的起点，其余只做增量备份，
+ * 增量备份只记录上次备份后修改过的任务（按TaskService的修改版本号判断）和删除的任务ID
+ * 版本号不写入文件，程序重启后第一次备份时从清单找到最新的链，重建链末端的任务内容，与当前任务逐个比较得到增量
+ * 备份文件中任务分块保存，文件尾部有按项目和时间范围建立的块索引，可以只恢复部分任务而不影响其余数据
+ * 所有片段登记在备份清单（BackupCatalog）中，列出和清理备份时不扫描备份目录
+ * 定期自动备份由BackupScheduler在低优先级线程上限速执行，用户正在编辑时推迟
  */
 public class DataBackupService {
     private DataStorage dataStorage; // 数据存储服务
     private TaskService taskService; // 任务服务，用于获取任务数据
     private ProjectService projectService; // 项目服务，用于获取项目数据
     private String backupDirectory; // 备份文件目录
-    private Timer backupTimer; // 备份定时器
+    private BackupScheduler backupScheduler; // 自动备份调度器
     private SimpleDateFormat dateFormat; // 日期格式化对象，用于生成备份文件名
+    private BackupCatalog catalog; // 备份清单
+    
+    // 每条备份链中全量备份之后最多跟随的增量备份数量
+    private static final int INCREMENTALS_PER_FULL = 6;
+    private static final long AUTO_BACKUP_INTERVAL = 24 * 60 * 60 * 1000; // 自动备份间隔24小时
+    private static final long AUTO_BACKUP_BYTES_PER_SECOND = 4L * 1024 * 1024; // 自动备份限速4MB/s
+    private static final String BACKUP_SUFFIX = ".bak";
+    // 分块备份文件格式
+    private static final int SEGMENT_MAGIC = 0x42534547; // "BSEG"
+    private static final int SEGMENT_FORMAT = 2;
+    private static final int TASKS_PER_BLOCK = 512;
+    // 按项目、开始时间排序，使同一项目、相近时间的任务落在同一块中
+    private static final Comparator<Task> BLOCK_ORDER = Comparator
+            .comparing(Task::getProjectId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Task::getStartTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    // 当前备份链的状态；换了任务服务（例如程序重启）后从清单中接上最新的链
+    private TaskService chainTaskService; // 当前链对应的任务服务
+    private String lastBackupFile;        // 链上最后一个备份文件名
+    private long lastBackupVersion;       // 最后一次备份时的修改版本号
+    private int incrementalCount;         // 当前链上已有的增量备份数量
+    private Map<String, Task> chainTasks; // 接上已有的链时链末端的任务内容，下一次增量备份与它比较得到修改和删除
     
     // 构造方法
     public DataBackupService(DataStorage dataStorage, TaskService taskService, 
@@ -39,16 +69,16 @@ public class DataBackupService {
         if (!dir.exists()) {
             dir.mkdirs();
         }
+        this.catalog = new BackupCatalog(dir, (d, name) -> name.endsWith(BACKUP_SUFFIX),
+                DataBackupService::readCatalogEntry);
     }
     
     // 开始定期自动备份（默认每天凌晨2点）
-    public void startAutoBackup() {
-        if (backupTimer != null) {
+    public synchronized void startAutoBackup() {
+        if (backupScheduler != null) {
             stopAutoBackup();
         }
         
-        backupTimer = new Timer(true); // 守护线程，程序结束时自动停止
-        
         // 设置备份时间：每天凌晨2点
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.HOUR_OF_DAY, 2);
@@ -62,51 +92,93 @@ public class DataBackupService {
             firstBackupTime = calendar.getTime();
         }
         
-        // 安排定期备份任务，间隔24小时
-        backupTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    performBackup(taskService, projectService);
-                    System.out.println("自动备份完成: " + new Date());
-                } catch (Exception e) {
-                    System.err.println("自动备份失败: " + e.getMessage());
-                    e.printStackTrace();
-                }
+        // 安排定期备份任务，间隔24小时；在低优先级守护线程上限速写入，用户正在编辑时推迟
+        backupScheduler = new BackupScheduler(throttle -> {
+            boolean success = performBackup(taskService, projectService, throttle);
+            if (success) {
+                System.out.println("自动备份完成: " + new Date());
             }
-        }, firstBackupTime, 24 * 60 * 60 * 1000); // 24小时
+            return success;
+        }, taskService::getLastModifiedAt, AUTO_BACKUP_INTERVAL, AUTO_BACKUP_BYTES_PER_SECOND);
+        backupScheduler.start(firstBackupTime.getTime() - System.currentTimeMillis());
         
         System.out.println("定期自动备份已启动，下次备份时间: " + firstBackupTime);
     }
     
     // 停止定期自动备份
-    public void stopAutoBackup() {
-        if (backupTimer != null) {
-            backupTimer.cancel();
-            backupTimer = null;
+    public synchronized void stopAutoBackup() {
+        if (backupScheduler != null) {
+            backupScheduler.stop();
+            backupScheduler = null;
             System.out.println("定期自动备份已停止");
         }
     }
     
-    // 手动执行备份
+    // 获取自动备份的进度和最近一次运行情况，未启动自动备份时返回null
+    public synchronized BackupScheduler.Metrics getAutoBackupMetrics() {
+        return backupScheduler != null ? backupScheduler.getMetrics() : null;
+    }
+    
+    // 手动执行备份：备份链起点缺失或增量备份已达到上限时做全量备份，否则做增量备份
     public boolean performBackup(TaskService taskService, ProjectService projectService) {
+        return performBackup(taskService, projectService, new IoThrottle(0));
+    }
+    
+    // 执行备份，写文件的速度受throttle限制
+    public synchronized boolean performBackup(TaskService taskService, ProjectService projectService,
+                                              IoThrottle throttle) {
         try {
-            // 获取当前时间作为备份文件名的一部分
-            String timestamp = dateFormat.format(new Date());
+            if (chainTaskService != taskService) {
+                resumeChain(taskService);
+            }
+            boolean full = lastBackupFile == null
+                    || incrementalCount >= INCREMENTALS_PER_FULL
+                    || catalog.get(lastBackupFile) == null;
+            // 从O(1)快照读取任务，备份期间界面和定时器可以继续修改数据
+            TaskSnapshot snapshot = taskService.snapshot();
+            long version = snapshot.getModificationVersion();
             
-            // 创建备份文件路径
-            String taskBackupPath = backupDirectory + File.separator + "tasks_backup_" + timestamp + ".dat";
-            String projectBackupPath = backupDirectory + File.separator + "projects_backup_" + timestamp + ".dat";
+            BackupSegment segment;
+            if (full) {
+                segment = new BackupSegment(true, null, version, System.currentTimeMillis(),
+                        snapshot.getAllTasks(), new ArrayList<>(),
+                        copyProjects(projectService.getAllProjects()));
+            } else if (chainTasks != null) {
+                segment = diffAgainstChain(snapshot, version, copyProjects(projectService.getAllProjects()));
+            } else {
+                segment = new BackupSegment(false, lastBackupFile, version, System.currentTimeMillis(),
+                        snapshot.getTasksModifiedSince(lastBackupVersion),
+                        taskService.getTaskIdsDeletedSince(lastBackupVersion, version),
+                        copyProjects(projectService.getAllProjects()));
+            }
             
-            // 备份数据
-            DataStorage backupStorage = new DataStorage(taskBackupPath, projectBackupPath);
-            boolean success = backupStorage.saveAllData(taskService, projectService);
+            // 获取当前时间作为备份文件名的一部分
+            // 同一秒内版本号不变的两次备份加序号区分，不能覆盖链上的上一个片段
+            String baseName = "backup_" + dateFormat.format(new Date()) + "_" + version
+                    + (full ? "_full" : "_incr");
+            String fileName = baseName + BACKUP_SUFFIX;
+            File file = new File(backupDirectory, fileName);
+            for (int n = 2; file.exists() || catalog.get(fileName) != null; n++) {
+                fileName = baseName + "_" + n + BACKUP_SUFFIX;
+                file = new File(backupDirectory, fileName);
+            }
+            long checksum = writeSegment(file, segment, throttle);
+            catalog.add(new BackupCatalog.Entry(fileName, segment.getCreatedAt(), file.length(),
+                    segment.getTasks().size(), checksum, segment.getParentFile()));
             
-            if (success) {
-                System.out.println("手动备份完成，文件保存在: " + backupDirectory);
+            chainTaskService = taskService;
+            lastBackupFile = fileName;
+            lastBackupVersion = version;
+            incrementalCount = full ? 0 : incrementalCount + 1;
+            chainTasks = null; // 之后的增量备份按修改版本号判断
+            if (full) {
+                // 全量备份之前的删除记录已不会再被增量备份用到
+                taskService.discardDeletionsUpTo(version);
             }
             
-            return success;
+            System.out.println((full ? "全量" : "增量") + "备份完成，共" + segment.getTasks().size()
+                    + "个任务，文件保存在: " + backupDirectory);
+            return true;
         } catch (Exception e) {
             System.err.println("手动备份失败: " + e.getMessage());
             e.printStackTrace();
@@ -114,7 +186,182 @@ public class DataBackupService {
         }
     }
     
-    // 从备份文件恢复数据
+    // 接上清单中最新的备份链：链还能继续追加增量备份时，按依赖关系读出链末端的全部任务
+    // 清单中的链不完整或片段无法读取时不接，下一次备份做全量备份
+    private void resumeChain(TaskService taskService) {
+        chainTaskService = taskService;
+        lastBackupFile = null;
+        chainTasks = null;
+        List<BackupCatalog.Entry> entries = catalog.list();
+        if (entries.isEmpty()) {
+            return;
+        }
+        String tip = entries.get(0).getId();
+        int incrementals = -1;
+        for (String name = tip; name != null; name = catalog.get(name).getParent()) {
+            if (catalog.get(name) == null) {
+                return; // 链的某个片段已不在清单中
+            }
+            incrementals++;
+        }
+        if (incrementals >= INCREMENTALS_PER_FULL) {
+            return; // 下一次本来就是全量备份，不必读取链
+        }
+        try {
+            Map<String, Task> tasks = new HashMap<>();
+            for (Map.Entry<File, BackupSegment> part : readChain(tip).entrySet()) {
+                for (String taskId : part.getValue().getDeletedTaskIds()) {
+                    tasks.remove(taskId);
+                }
+                for (Task task : readTasks(part.getKey(), part.getValue(), null)) {
+                    tasks.put(task.getId(), task);
+                }
+            }
+            lastBackupFile = tip;
+            incrementalCount = incrementals;
+            chainTasks = tasks;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            System.err.println("无法读取上一条备份链，下一次备份为全量备份: " + e.getMessage());
+        }
+    }
+    
+    // 与链末端的任务内容比较：新增或内容不同的任务写入增量片段，链中有而当前没有的任务记为删除
+    private BackupSegment diffAgainstChain(TaskSnapshot snapshot, long version, List<Project> projects) {
+        List<Task> changed = new ArrayList<>();
+        Set<String> live = new HashSet<>();
+        snapshot.forEach(task -> {
+            live.add(task.getId());
+            Task backedUp = chainTasks.get(task.getId());
+            if (backedUp == null || !backedUp.sameContentAs(task)) {
+                changed.add(task);
+            }
+        });
+        List<String> deleted = new ArrayList<>();
+        for (String taskId : chainTasks.keySet()) {
+            if (!live.contains(taskId)) {
+                deleted.add(taskId);
+            }
+        }
+        return new BackupSegment(false, lastBackupFile, version, System.currentTimeMillis(),
+                changed, deleted, projects);
+    }
+    
+    // 从备份链恢复数据：从全量备份开始依次应用增量备份，直到指定的备份文件为止
+    public synchronized boolean restoreFromBackup(String backupFile, TaskService taskService,
+                                                  ProjectService projectService) {
+        try {
+            LinkedHashMap<File, BackupSegment> chain = readChain(backupFile);
+            
+            // 按顺序应用各片段
+            Map<String, Task> tasks = new LinkedHashMap<>();
+            BackupSegment last = null;
+            for (Map.Entry<File, BackupSegment> part : chain.entrySet()) {
+                for (String taskId : part.getValue().getDeletedTaskIds()) {
+                    tasks.remove(taskId);
+                }
+                for (Task task : readTasks(part.getKey(), part.getValue(), null)) {
+                    tasks.put(task.getId(), task);
+                }
+                last = part.getValue();
+            }
+            
+            // 用备份内容整体替换现有数据
+            projectService.replaceAllProjects(last.getProjects());
+            taskService.replaceAllTasks(tasks.values());
+            
+            // 恢复后版本号已重新分配，下一次备份从全量备份开始
+            lastBackupFile = null;
+            chainTasks = null;
+            System.out.println("数据已从备份链恢复，共应用" + chain.size() + "个备份文件");
+            return true;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("从备份文件恢复数据失败: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    // 从备份链选择性恢复满足条件的任务：只读取可能匹配的任务块，其余现有数据保持不变
+    // 已存在的任务用备份内容覆盖，不存在的任务重新添加，任务所属的项目不存在时一并恢复
+    // 返回恢复的任务数，失败返回-1
+    public synchronized int restoreTasks(String backupFile, RestoreFilter filter, TaskService taskService,
+                                         ProjectService projectService) {
+        try {
+            LinkedHashMap<File, BackupSegment> chain = readChain(backupFile);
+            
+            Map<String, Task> tasks = new LinkedHashMap<>();
+            BackupSegment last = null;
+            for (Map.Entry<File, BackupSegment> part : chain.entrySet()) {
+                BackupSegment segment = part.getValue();
+                for (String taskId : segment.getDeletedTaskIds()) {
+                    tasks.remove(taskId);
+                }
+                // 增量片段中修改过的任务可能已不再满足条件（例如移到了其他项目），先全部移除，匹配的再加回
+                for (String taskId : segment.getTaskIds()) {
+                    tasks.remove(taskId);
+                }
+                for (Task task : readTasks(part.getKey(), segment, filter)) {
+                    tasks.put(task.getId(), task);
+                }
+                last = segment;
+            }
+            
+            for (Project project : last.getProjects()) {
+                if (projectService.getProjectById(project.getId()) == null && referencesProject(tasks, project)) {
+                    projectService.addProject(project);
+                }
+            }
+            for (Task task : tasks.values()) {
+                if (!taskService.updateTask(task)) {
+                    taskService.addTask(task);
+                }
+            }
+            
+            System.out.println("已从备份链选择性恢复" + tasks.size() + "个任务");
+            return tasks.size();
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("从备份文件选择性恢复任务失败: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    // 沿着依赖关系找到链的起点，按从全量备份到指定备份的顺序返回各片段（只含索引，不读取任务块）
+    private LinkedHashMap<File, BackupSegment> readChain(String backupFile)
+            throws IOException, ClassNotFoundException {
+        LinkedList<File> files = new LinkedList<>();
+        LinkedList<BackupSegment> segments = new LinkedList<>();
+        File file = new File(backupFile);
+        if (!file.isAbsolute() && !file.exists()) {
+            file = new File(backupDirectory, backupFile);
+        }
+        BackupSegment segment = readSegment(file);
+        files.addFirst(file);
+        segments.addFirst(segment);
+        while (!segment.isFull()) {
+            file = new File(file.getParentFile(), segment.getParentFile());
+            segment = readSegment(file);
+            files.addFirst(file);
+            segments.addFirst(segment);
+        }
+        
+        LinkedHashMap<File, BackupSegment> chain = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            chain.put(files.get(i), segments.get(i));
+        }
+        return chain;
+    }
+    
+    private static boolean referencesProject(Map<String, Task> tasks, Project project) {
+        for (Task task : tasks.values()) {
+            if (project.getId().equals(task.getProjectId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // 从旧格式的全量备份文件（tasks_backup_*.dat和projects_backup_*.dat）恢复数据
     public boolean restoreFromBackup(String taskBackupFile, String projectBackupFile, 
                                     TaskService taskService, ProjectService projectService) {
         try {
@@ -144,32 +391,201 @@ public class DataBackupService {
     }
     
     // 获取备份目录中的所有备份文件
+    // 备份片段从清单读取（最新的在前），旧格式的.dat文件仍需扫描目录
     public String[] getBackupFiles() {
-        File dir = new File(backupDirectory);
-        return dir.list((d, name) -> name.endsWith(".dat"));
+        List<String> files = new ArrayList<>();
+        for (BackupCatalog.Entry entry : catalog.list()) {
+            files.add(entry.getId());
+        }
+        String[] legacy = new File(backupDirectory).list((d, name) -> name.endsWith(".dat"));
+        if (legacy != null) {
+            files.addAll(Arrays.asList(legacy));
+        }
+        return files.toArray(new String[0]);
+    }
+    
+    // 获取备份清单中的所有片段，最新的在前
+    public List<BackupCatalog.Entry> getBackupEntries() {
+        return catalog.list();
     }
     
     // 清理旧的备份文件（保留指定数量的最新备份）
-    public void cleanupOldBackups(int keepCount) {
+    // 备份链中的文件只有在没有任何保留的备份依赖它时才会被删除
+    public synchronized void cleanupOldBackups(int keepCount) {
         try {
             File dir = new File(backupDirectory);
-            File[] files = dir.listFiles((d, name) -> name.endsWith(".dat"));
+            deleteOldest(dir.listFiles((d, name) -> name.endsWith(".dat")), keepCount, Collections.emptySet());
             
-            if (files == null || files.length <= keepCount) {
-                return; // 不需要清理
+            List<BackupCatalog.Entry> segments = catalog.list();
+            if (segments.size() <= keepCount) {
+                return;
             }
             
-            // 按修改时间排序（最新的在前）
-            java.util.Arrays.sort(files, (f1, f2) -> Long.compare(f2.lastModified(), f1.lastModified()));
-            
-            // 删除多余的旧备份文件
-            for (int i = keepCount; i < files.length; i++) {
-                Files.delete(Paths.get(files[i].getPath()));
-                System.out.println("已删除旧备份文件: " + files[i].getName());
+            // 保留最新的keepCount个备份以及它们依赖的所有片段，依赖关系直接从清单读取
+            Set<String> required = new HashSet<>();
+            for (int i = 0; i < keepCount; i++) {
+                String name = segments.get(i).getId();
+                while (name != null && required.add(name)) {
+                    BackupCatalog.Entry entry = catalog.get(name);
+                    name = entry != null ? entry.getParent() : null;
+                }
+            }
+            for (BackupCatalog.Entry entry : segments) {
+                if (!required.contains(entry.getId())) {
+                    Files.deleteIfExists(new File(dir, entry.getId()).toPath());
+                    catalog.remove(entry.getId());
+                    System.out.println("已删除旧备份文件: " + entry.getId());
+                }
             }
         } catch (Exception e) {
             System.err.println("清理旧备份文件失败: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+    
+    // 按修改时间删除除最新keepCount个以及required之外的文件
+    private void deleteOldest(File[] files, int keepCount, Set<String> required) throws IOException {
+        if (files == null || files.length <= keepCount) {
+            return; // 不需要清理
+        }
+        
+        // 按修改时间排序（最新的在前）
+        Arrays.sort(files, (f1, f2) -> Long.compare(f2.lastModified(), f1.lastModified()));
+        
+        // 删除多余的旧备份文件
+        for (int i = keepCount; i < files.length; i++) {
+            if (!required.contains(files[i].getName())) {
+                Files.delete(Paths.get(files[i].getPath()));
+                System.out.println("已删除旧备份文件: " + files[i].getName());
+            }
+        }
+    }
+    
+    // 写入分块备份文件：文件头、各任务块、片段索引，最后8字节为索引的偏移
+    // 返回整个文件的CRC32，供备份清单登记
+    private static long writeSegment(File file, BackupSegment segment, IoThrottle throttle) throws IOException {
+        List<Task> ordered = new ArrayList<>(segment.getTasks());
+        ordered.sort(BLOCK_ORDER);
+        
+        CheckedOutputStream checked = new CheckedOutputStream(throttle.wrap(new FileOutputStream(file)), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked))) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(SEGMENT_FORMAT);
+            
+            List<BackupSegment.BlockEntry> blocks = new ArrayList<>();
+            for (int from = 0; from < ordered.size(); from += TASKS_PER_BLOCK) {
+                List<Task> chunk = new ArrayList<>(ordered.subList(from, Math.min(ordered.size(), from + TASKS_PER_BLOCK)));
+                Set<String> projectIds = new HashSet<>();
+                long minTime = Long.MAX_VALUE;
+                long maxTime = Long.MIN_VALUE;
+                for (Task task : chunk) {
+                    projectIds.add(task.getProjectId());
+                    for (Date time : new Date[] {task.getStartTime(), task.getEndTime()}) {
+                        if (time != null) {
+                            minTime = Math.min(minTime, time.getTime());
+                            maxTime = Math.max(maxTime, time.getTime());
+                        }
+                    }
+                }
+                byte[] data = serialize(chunk);
+                blocks.add(new BackupSegment.BlockEntry(out.size(), data.length, minTime, maxTime, projectIds));
+                out.write(data);
+            }
+            
+            long indexOffset = out.size();
+            out.write(serialize(segment.toIndex(blocks)));
+            out.writeLong(indexOffset);
+        }
+        return checked.getChecksum().getValue();
+    }
+    
+    // 备份清单丢失时，从片段文件读取清单条目（只读索引，校验和需要顺序读取整个文件）
+    private static BackupCatalog.Entry readCatalogEntry(File file) throws IOException, ClassNotFoundException {
+        BackupSegment segment = readSegment(file);
+        CRC32 checksum = new CRC32();
+        try (InputStream in = new CheckedInputStream(new FileInputStream(file), checksum)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) >= 0) {
+                // 只需累计校验和
+            }
+        }
+        return new BackupCatalog.Entry(file.getName(), segment.getCreatedAt(), file.length(),
+                segment.getTaskIds().size(), checksum.getValue(), segment.getParentFile());
+    }
+    
+    // 读取备份片段：分块格式只读取文件尾部的索引，旧格式读取整个片段
+    private static BackupSegment readSegment(File file) throws IOException, ClassNotFoundException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < 16 || raf.readInt() != SEGMENT_MAGIC) {
+                raf.seek(0);
+                return (BackupSegment) deserialize(readFully(raf, (int) raf.length()));
+            }
+            int format = raf.readInt();
+            if (format != SEGMENT_FORMAT) {
+                throw new IOException("不支持的备份文件格式版本: " + format);
+            }
+            raf.seek(raf.length() - 8);
+            long indexOffset = raf.readLong();
+            raf.seek(indexOffset);
+            return (BackupSegment) deserialize(readFully(raf, (int) (raf.length() - 8 - indexOffset)));
+        }
+    }
+    
+    // 读取片段中的任务，filter不为null时跳过不可能匹配的块并逐个过滤任务
+    @SuppressWarnings("unchecked")
+    private static List<Task> readTasks(File file, BackupSegment segment, RestoreFilter filter)
+            throws IOException, ClassNotFoundException {
+        List<Task> tasks = new ArrayList<>();
+        if (segment.getBlocks() == null) {
+            for (Task task : segment.getTasks()) {
+                if (filter == null || filter.matches(task)) {
+                    tasks.add(task);
+                }
+            }
+            return tasks;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            for (BackupSegment.BlockEntry block : segment.getBlocks()) {
+                if (filter != null && !filter.mayMatch(block)) {
+                    continue;
+                }
+                raf.seek(block.getOffset());
+                for (Task task : (List<Task>) deserialize(readFully(raf, block.getLength()))) {
+                    if (filter == null || filter.matches(task)) {
+                        tasks.add(task);
+                    }
+                }
+            }
+        }
+        return tasks;
+    }
+    
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return ois.readObject();
+        }
+    }
+    
+    private static byte[] readFully(RandomAccessFile raf, int length) throws IOException {
+        byte[] data = new byte[length];
+        raf.readFully(data);
+        return data;
+    }
+    
+    // 项目数量很少，备份时直接复制
+    private static List<Project> copyProjects(List<Project> projects) {
+        List<Project> copies = new ArrayList<>(projects.size());
+        for (Project project : projects) {
+            copies.add(project.copy());
+        }
+        return copies;
+    }
+}
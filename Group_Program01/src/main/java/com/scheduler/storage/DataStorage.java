@@ -6,31 +6,53 @@ import com.scheduler.service.ProjectService;
 import com.scheduler.service.TaskService;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 数据存储类：负责任务和项目数据的保存和加载
+ * 指定了内存映射存储时任务保存在映射存储中，每次保存只重写有变化的记录；
+ * 原来的序列化任务文件还在时（第一次使用映射存储）从该文件加载，第一次保存到映射存储后把它改名为.migrated
  */
 public class DataStorage {
     private String taskFilePath; // 任务数据文件路径
     private String projectFilePath; // 项目数据文件路径
+    private MappedTaskStore mappedTaskStore; // 任务的内存映射存储，为null时使用序列化文件
     
     // 构造方法
     public DataStorage(String taskFilePath, String projectFilePath) {
+        this(taskFilePath, projectFilePath, null);
+    }
+    
+    // 构造方法：任务保存在给定的内存映射存储中
+    public DataStorage(String taskFilePath, String projectFilePath, MappedTaskStore mappedTaskStore) {
         this.taskFilePath = taskFilePath;
         this.projectFilePath = projectFilePath;
+        this.mappedTaskStore = mappedTaskStore;
     }
     
     // 保存任务数据到文件
     public boolean saveTasks(TaskService taskService) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(taskFilePath))) {
-            // 将任务数据转换为可序列化的Map
-            Map<String, Task> taskMap = new HashMap<>();
-            for (Task task : taskService.getAllTasks()) {
-                taskMap.put(task.getId(), task);
-            }
-            oos.writeObject(taskMap);
+        return saveTasks(taskService.getAllTasks());
+    }
+    
+    // 保存给定的任务列表到文件
+    public boolean saveTasks(List<Task> tasks) {
+        if (mappedTaskStore != null) {
+            return saveTasks(tasks, mappedTaskStore);
+        }
+        
+        // 将任务数据转换为可序列化的Map
+        Map<String, Task> taskMap = new HashMap<>();
+        for (Task task : tasks) {
+            taskMap.put(task.getId(), task);
+        }
+        try {
+            writeDurably(taskFilePath, taskMap);
             return true;
         } catch (IOException e) {
             System.err.println("保存任务数据失败: " + e.getMessage());
@@ -42,6 +64,10 @@ public class DataStorage {
     // 从文件加载任务数据
     public boolean loadTasks(TaskService taskService) {
         File file = new File(taskFilePath);
+        if (mappedTaskStore != null && !file.exists()) {
+            return loadTasks(taskService, mappedTaskStore);
+        }
+        
         if (!file.exists()) {
             return false;
         }
@@ -49,15 +75,8 @@ public class DataStorage {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(taskFilePath))) {
             Map<String, Task> taskMap = (Map<String, Task>) ois.readObject();
             
-            // 清空现有任务数据
-            for (Task task : taskService.getAllTasks()) {
-                taskService.deleteTask(task.getId());
-            }
-            
-            // 加载新的任务数据
-            for (Task task : taskMap.values()) {
-                taskService.addTask(task);
-            }
+            // 用加载的任务整体替换现有任务
+            taskService.replaceAllTasks(taskMap.values());
             
             return true;
         } catch (IOException | ClassNotFoundException e) {
@@ -67,15 +86,61 @@ public class DataStorage {
         }
     }
     
+    // 将任务写入内存映射存储，只重写有变化的记录；写入成功后原来的序列化文件不再使用
+    private boolean saveTasks(List<Task> tasks, MappedTaskStore store) {
+        try {
+            store.sync(tasks);
+            File legacy = new File(taskFilePath);
+            if (legacy.exists()) {
+                Files.move(legacy.toPath(), new File(taskFilePath + ".migrated").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("保存任务数据失败: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    // 从内存映射存储加载任务，存储中没有任务时返回false
+    // TaskService的索引和界面的表格模型都持有Task对象，所以这里仍逐条通过享元视图物化为Task
+    private boolean loadTasks(TaskService taskService, MappedTaskStore store) {
+        List<Task> tasks = new ArrayList<>(store.size());
+        store.forEach(view -> tasks.add(view.toTask()));
+        if (tasks.isEmpty()) {
+            return false;
+        }
+        taskService.replaceAllTasks(tasks);
+        return true;
+    }
+    
+    // 关闭内存映射存储，程序退出前调用
+    public void close() {
+        if (mappedTaskStore == null) {
+            return;
+        }
+        try {
+            mappedTaskStore.close();
+        } catch (IOException e) {
+            System.err.println("关闭任务存储失败: " + e.getMessage());
+        }
+    }
+    
     // 保存项目数据到文件
     public boolean saveProjects(ProjectService projectService) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(projectFilePath))) {
-            // 将项目数据转换为可序列化的Map
-            Map<String, Project> projectMap = new HashMap<>();
-            for (Project project : projectService.getAllProjects()) {
-                projectMap.put(project.getId(), project);
-            }
-            oos.writeObject(projectMap);
+        return saveProjects(projectService.getAllProjects());
+    }
+    
+    // 保存给定的项目列表到文件
+    public boolean saveProjects(List<Project> projects) {
+        // 将项目数据转换为可序列化的Map
+        Map<String, Project> projectMap = new HashMap<>();
+        for (Project project : projects) {
+            projectMap.put(project.getId(), project);
+        }
+        try {
+            writeDurably(projectFilePath, projectMap);
             return true;
         } catch (IOException e) {
             System.err.println("保存项目数据失败: " + e.getMessage());
@@ -94,15 +159,8 @@ public class DataStorage {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(projectFilePath))) {
             Map<String, Project> projectMap = (Map<String, Project>) ois.readObject();
             
-            // 清空现有项目数据
-            for (Project project : projectService.getAllProjects()) {
-                projectService.deleteProject(project.getId());
-            }
-            
-            // 加载新的项目数据
-            for (Project project : projectMap.values()) {
-                projectService.addProject(project);
-            }
+            // 用加载的项目整体替换现有项目
+            projectService.replaceAllProjects(projectMap.values());
             
             return true;
         } catch (IOException | ClassNotFoundException e) {
@@ -119,10 +177,30 @@ public class DataStorage {
         return tasksSaved && projectsSaved;
     }
     
+    // 同时保存给定的任务和项目列表
+    public boolean saveAllData(List<Task> tasks, List<Project> projects) {
+        boolean tasksSaved = saveTasks(tasks);
+        boolean projectsSaved = saveProjects(projects);
+        return tasksSaved && projectsSaved;
+    }
+    
     // 同时加载任务和项目数据
     public boolean loadAllData(TaskService taskService, ProjectService projectService) {
         boolean projectsLoaded = loadProjects(projectService);
         boolean tasksLoaded = loadTasks(taskService);
         return projectsLoaded && tasksLoaded;
     }
-}
\ No newline at end of file
+    
+    // 先写临时文件并同步到磁盘，再替换目标文件，写入中途失败不会破坏原文件
+    private static void writeDurably(String filePath, Object data) throws IOException {
+        File target = new File(filePath);
+        File temp = new File(filePath + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp);
+             ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(fos))) {
+            oos.writeObject(data);
+            oos.flush();
+            fos.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,172 @@
+package com.scheduler.storage;
+
+import com.scheduler.model.Project;
+import com.scheduler.service.ProjectService;
+import com.scheduler.service.TaskService;
+import com.scheduler.service.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并提交保存类：界面上的每次修改只登记一个保存请求，由后台提交线程把一个时间窗口内的所有请求合并成一次写入
+ * 数据快照通过snapshotExecutor在修改数据的线程（界面线程）上生成，任务部分是TaskService的O(1)快照，
+ * 不再逐个复制任务；遍历快照和写文件都在提交线程上完成
+ * 无论修改多频繁，每个时间窗口最多写一次文件
+ */
+public class GroupCommitSaver {
+    private final DataStorage dataStorage;
+    private final TaskService taskService;
+    private final ProjectService projectService;
+    private final Executor snapshotExecutor; // 生成快照的线程，界面程序传入SwingUtilities::invokeLater
+    private final long windowMillis;         // 合并窗口（毫秒）
+
+    private final Object lock = new Object();
+    private final Object writeLock = new Object();
+    private List<CompletableFuture<Boolean>> pending = new ArrayList<>(); // 等待提交的请求
+    private boolean closed;
+    private final AtomicLong snapshotSequence = new AtomicLong(); // 快照序号，防止旧快照覆盖新快照
+    private long writtenSequence;  // 已写入的最新快照序号，受writeLock保护
+    private long commitCount;      // 实际写文件的次数
+    private final Thread committer;
+
+    // 构造方法
+    public GroupCommitSaver(DataStorage dataStorage, TaskService taskService, ProjectService projectService,
+                            Executor snapshotExecutor, long windowMillis) {
+        this.dataStorage = dataStorage;
+        this.taskService = taskService;
+        this.projectService = projectService;
+        this.snapshotExecutor = snapshotExecutor;
+        this.windowMillis = windowMillis;
+        this.committer = new Thread(this::runCommitter, "group-commit-saver");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * 登记一次保存请求
+     * @return 包含此次修改的数据写入磁盘后完成的Future，结果表示是否保存成功；调用方可以忽略
+     */
+    public CompletableFuture<Boolean> requestSave() {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        synchronized (lock) {
+            if (closed) {
+                future.complete(false);
+                return future;
+            }
+            pending.add(future);
+            lock.notifyAll();
+        }
+        return future;
+    }
+
+    /**
+     * 停止后台提交并在当前线程同步保存最新数据，用于程序退出前
+     * 必须在修改数据的线程上调用
+     */
+    public boolean close() {
+        List<CompletableFuture<Boolean>> batch;
+        synchronized (lock) {
+            closed = true;
+            batch = pending;
+            pending = new ArrayList<>();
+            lock.notifyAll();
+        }
+        boolean success = write(takeSnapshot());
+        for (CompletableFuture<Boolean> future : batch) {
+            future.complete(success);
+        }
+        return success;
+    }
+
+    // 获取实际写文件的次数
+    public long getCommitCount() {
+        synchronized (writeLock) {
+            return commitCount;
+        }
+    }
+
+    private void runCommitter() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+
+            // 等待一个合并窗口，收集这段时间内的所有请求
+            try {
+                Thread.sleep(windowMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            List<CompletableFuture<Boolean>> batch;
+            synchronized (lock) {
+                if (closed) {
+                    return; // close已接管剩余请求
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+
+            boolean success;
+            try {
+                Snapshot snapshot = CompletableFuture.supplyAsync(this::takeSnapshot, snapshotExecutor).join();
+                success = write(snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("合并保存失败: " + e.getMessage());
+                success = false;
+            }
+            for (CompletableFuture<Boolean> future : batch) {
+                future.complete(success);
+            }
+        }
+    }
+
+    private boolean write(Snapshot snapshot) {
+        synchronized (writeLock) {
+            if (snapshot.sequence <= writtenSequence) {
+                return true; // 已有更新的快照写入
+            }
+            boolean success = dataStorage.saveAllData(snapshot.tasks.getAllTasks(), snapshot.projects);
+            if (success) {
+                writtenSequence = snapshot.sequence;
+            }
+            commitCount++;
+            return success;
+        }
+    }
+
+    private Snapshot takeSnapshot() {
+        TaskSnapshot tasks = taskService.snapshot();
+        List<Project> projects = new ArrayList<>();
+        for (Project project : projectService.getAllProjects()) {
+            projects.add(project.copy());
+        }
+        return new Snapshot(snapshotSequence.incrementAndGet(), tasks, projects);
+    }
+
+    // 某一时刻的任务和项目副本
+    private static final class Snapshot {
+        final long sequence;
+        final TaskSnapshot tasks;
+        final List<Project> projects;
+
+        Snapshot(long sequence, TaskSnapshot tasks, List<Project> projects) {
+            this.sequence = sequence;
+            this.tasks = tasks;
+            this.projects = projects;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.scheduler.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * I/O限速器类：按每秒字节数限制写入速度（令牌桶），同时统计已写入的字节数作为备份进度
+ * 写入方在每次写之前调用acquire，超出速率时在调用线程上休眠；空闲期间最多积累BURST_NANOS的额度
+ * 速率不大于0时不限速，只统计字节数
+ */
+public class IoThrottle {
+    public static final int CHUNK_SIZE = 64 * 1024; // 每次限速的最大写入量，大块数据按此拆分
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    
+    private final long bytesPerSecond; // 限速（字节/秒），不大于0表示不限速
+    private final AtomicLong bytesWritten = new AtomicLong(); // 已写入的字节数
+    private long nextFreeNanos = System.nanoTime(); // 之前写入的数据按限速应写完的时刻
+    
+    // 构造方法
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+    
+    // 写入bytes个字节之前调用，必要时休眠到限速允许的时刻
+    public void acquire(int bytes) throws InterruptedIOException {
+        bytesWritten.addAndGet(bytes);
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long sleepNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            nextFreeNanos = Math.max(nextFreeNanos, now - BURST_NANOS)
+                    + TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+            sleepNanos = nextFreeNanos - now;
+        }
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("备份写入被中断");
+            }
+        }
+    }
+    
+    // 包装输出流，所有写入都经过限速
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                acquire(1);
+                out.write(b);
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    int chunk = Math.min(len, CHUNK_SIZE);
+                    acquire(chunk);
+                    out.write(b, off, chunk);
+                    off += chunk;
+                    len -= chunk;
+                }
+            }
+        };
+    }
+    
+    // 获取限速（字节/秒）
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+    
+    // 获取到目前为止写入的字节数
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+}
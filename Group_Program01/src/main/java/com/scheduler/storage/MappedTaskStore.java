@@ -0,0 +1,800 @@
+package com.scheduler.storage;
+
+import com.scheduler.model.Task;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 内存映射任务存储类：任务以定长记录保存在映射文件中，名称、内容等变长字符串保存在单独的映射字符串堆中
+ * 打开时不反序列化记录，只检查每条记录的字符串偏移和长度是否在字符串堆的已提交范围内；通过TaskView享元按需读取字段
+ * 保存时用sync与当前任务逐条比对，只重写有变化的记录：更新字符串字段时在字符串堆末尾追加新内容，旧内容不回收；
+ * 删除记录只打删除标记。失效的记录或字符串多于有效内容时压缩：把有效记录写入下一代文件，
+ * 写完后原子地替换CURRENT文件切换到新一代，压缩中途失败时旧一代文件仍然完整
+ * 每次修改作为一次提交，崩溃后只会看到提交前或提交后的内容：
+ * 1. 新字符串和新记录只写在已提交的末尾之后，已有记录的新内容先暂存在内存中
+ * 2. 先把字符串堆、再把记录文件刷新到磁盘，然后把暂存的记录、新的记录数和字符串堆末尾写入日志文件并同步
+ * 3. 日志写完后才改写映射中的已有记录和文件头，刷新后清空日志；打开时发现完整的日志就重放，不完整的日志说明提交未完成，忽略即可
+ * 单个MappedByteBuffer最大2GB，记录文件和字符串堆都不能超过这个上限，超过时append/sync抛出IOException
+ * 注意：DataStorage加载时仍把全部记录物化为Task交给TaskService，映射存储减少的是保存时的写入量，不是常驻内存
+ */
+public class MappedTaskStore implements AutoCloseable {
+    private static final int MAGIC = 0x54534B52; // "TSKR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;   // 记录文件头，与记录等长以保持对齐
+    private static final int RECORD_SIZE = 64;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final int INITIAL_HEAP = 64 * 1024;
+    private static final long MAX_MAPPING = Integer.MAX_VALUE; // 单个MappedByteBuffer的容量上限
+    private static final int MAX_RECORDS = (int) ((MAX_MAPPING - HEADER_SIZE) / RECORD_SIZE);
+    private static final String CURRENT_FILE = "CURRENT"; // 保存当前代号的文件
+    private static final int JOURNAL_MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int JOURNAL_HEADER = 16;        // 魔数、记录数、字符串堆末尾、暂存记录数
+
+    // 文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_COUNT = 8;
+    private static final int H_HEAP_END = 16;
+
+    // 记录字段偏移
+    private static final int R_START = 0;      // long 开始时间，空为NO_TIME
+    private static final int R_END = 8;        // long 截止时间，空为NO_TIME
+    private static final int R_ID = 16;        // int偏移 + int长度
+    private static final int R_NAME = 24;
+    private static final int R_CONTENT = 32;
+    private static final int R_PROJECT = 40;
+    private static final int R_REMINDER = 48;  // int 提前提醒分钟数
+    private static final int R_PRIORITY = 52;  // byte 枚举序号，空为-1
+    private static final int R_STATUS = 53;
+    private static final int R_TYPE = 54;
+    private static final int R_FLAGS = 55;     // byte 标志位
+
+    private static final byte FLAG_DELETED = 1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NULL_STRING = -1;
+
+    private final File directory;
+    private int generation; // 当前代号，文件为tasks-代号.rec和tasks-代号.str
+    private FileChannel recordChannel;
+    private FileChannel heapChannel;
+    private FileChannel journalChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer heap;
+    private int count;    // 已写入的记录数（含已删除和未提交的）
+    private int heapEnd;  // 字符串堆已使用的字节数（含未提交的）
+    private int committedCount;   // 文件头中已提交的记录数
+    private int committedHeapEnd; // 文件头中已提交的字符串堆末尾
+    private final Map<Integer, byte[]> staged = new TreeMap<>(); // 已提交记录的新内容，提交时才写入映射
+    private Map<String, Integer> liveRecords; // 任务ID -> 未删除的记录号，第一次sync时才建立
+
+    private MappedTaskStore(File directory, int generation) {
+        this.directory = directory;
+        this.generation = generation;
+    }
+
+    /**
+     * 打开（或创建）目录下的映射存储
+     * @param directory 存放CURRENT和各代记录、字符串堆文件的目录
+     * @return 存储实例，文件损坏或无法映射时返回null
+     */
+    public static MappedTaskStore open(String directory) {
+        File dir = new File(directory);
+        if (!dir.exists() && !dir.mkdirs()) {
+            System.err.println("创建映射存储目录失败: " + directory);
+            return null;
+        }
+        try {
+            File current = new File(dir, CURRENT_FILE);
+            int generation = 0;
+            if (current.exists()) {
+                generation = Integer.parseInt(new String(Files.readAllBytes(current.toPath()),
+                        StandardCharsets.UTF_8).trim());
+            }
+            MappedTaskStore store = new MappedTaskStore(dir, generation);
+            if (!store.mapGeneration()) {
+                return null;
+            }
+            if (!current.exists()) {
+                writeCurrent(dir, generation);
+            }
+            deleteStaleGenerations(dir, generation);
+            return store;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("打开映射存储失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 映射当前代的文件，文件头为空时写入文件头；有完整的日志时先重放，再检查记录引用的字符串
+    private boolean mapGeneration() throws IOException {
+        recordChannel = new RandomAccessFile(recordFile(directory, generation), "rw").getChannel();
+        try {
+            heapChannel = new RandomAccessFile(heapFile(directory, generation), "rw").getChannel();
+            journalChannel = new RandomAccessFile(journalFile(directory, generation), "rw").getChannel();
+            syncDirectory(directory); // 新建的文件在目录中的登记也要落盘，日志才能在崩溃后找到
+            if (recordChannel.size() > MAX_MAPPING || heapChannel.size() > MAX_MAPPING) {
+                System.err.println("映射存储文件超过2GB上限: " + directory);
+                closeChannels();
+                return false;
+            }
+            records = map(recordChannel,
+                    Math.max(recordChannel.size(), HEADER_SIZE + (long) INITIAL_RECORDS * RECORD_SIZE));
+            heap = map(heapChannel, Math.max(heapChannel.size(), INITIAL_HEAP));
+            if (records.getInt(H_MAGIC) == 0 && records.getInt(H_COUNT) == 0) {
+                // 新文件，或者创建后还没来得及写入文件头
+                records.putInt(H_MAGIC, MAGIC);
+                records.putInt(H_VERSION, VERSION);
+                records.putInt(H_COUNT, 0);
+                records.putInt(H_HEAP_END, 0);
+                records.force();
+            } else if (records.getInt(H_MAGIC) != MAGIC || records.getInt(H_VERSION) != VERSION) {
+                System.err.println("映射存储文件格式不正确: " + directory);
+                closeChannels();
+                return false;
+            }
+            if (!replayJournal()) {
+                System.err.println("映射存储的提交日志与数据文件不一致: " + directory);
+                closeChannels();
+                return false;
+            }
+            count = records.getInt(H_COUNT);
+            heapEnd = records.getInt(H_HEAP_END);
+            if (count < 0 || count > MAX_RECORDS || offset(count) > records.capacity()
+                    || heapEnd < 0 || heapEnd > heap.capacity()) {
+                System.err.println("映射存储文件头已损坏: " + directory);
+                closeChannels();
+                return false;
+            }
+            committedCount = count;
+            committedHeapEnd = heapEnd;
+            int damaged = firstInvalidRecord();
+            if (damaged >= 0) {
+                System.err.println("映射存储记录" + damaged + "引用的字符串超出字符串堆: " + directory);
+                closeChannels();
+                return false;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            closeChannels();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加一条任务记录并提交
+     * @return 记录号
+     * @throws IOException 记录文件已达到2GB上限、扩展映射失败或写入日志失败
+     */
+    public synchronized int append(Task task) throws IOException {
+        try {
+            int index = stageAppend(task);
+            commit();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * 用任务的当前内容覆盖指定记录并提交
+     */
+    public synchronized void update(int index, Task task) throws IOException {
+        checkIndex(index);
+        try {
+            stageWrite(index, task);
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * 将指定记录标记为已删除并提交
+     */
+    public synchronized void delete(int index) throws IOException {
+        checkIndex(index);
+        try {
+            stageDelete(index);
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * 使存储的内容与给定任务一致：新任务追加，内容有变化的任务重写，不在给定任务中的记录标记删除
+     * 比较通过享元视图进行，没有变化的记录不读取也不写入字符串；ID重复时只保留第一个
+     * 失效的记录或字符串多于有效内容时顺带压缩，最后刷新到磁盘
+     */
+    public synchronized void sync(Collection<Task> tasks) throws IOException {
+        long liveBytes = 0;
+        int liveCount;
+        try {
+            Map<String, Integer> live = liveRecords();
+            Set<String> seen = new HashSet<>();
+            TaskView view = new TaskView();
+            for (Task task : tasks) {
+                if (task == null || task.getId() == null || !seen.add(task.getId())) {
+                    continue;
+                }
+                Integer index = live.get(task.getId());
+                if (index == null) {
+                    index = stageAppend(task);
+                    liveBytes += stringBytes(records, offset(index));
+                } else {
+                    view.moveTo(index);
+                    if (view.sameAs(task)) {
+                        liveBytes += view.stringBytes();
+                    } else {
+                        byte[] record = stageWrite(index, task);
+                        liveBytes += stringBytes(wrap(record), 0);
+                    }
+                }
+            }
+            for (Iterator<Map.Entry<String, Integer>> it = live.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Integer> entry = it.next();
+                if (!seen.contains(entry.getKey())) {
+                    stageDelete(entry.getValue());
+                    it.remove();
+                }
+            }
+            liveCount = live.size();
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+
+        boolean staleRecords = count > INITIAL_RECORDS && count > 2 * liveCount;
+        boolean staleStrings = heapEnd > INITIAL_HEAP && heapEnd > 2 * liveBytes;
+        if (staleRecords || staleStrings) {
+            compact();
+        }
+    }
+
+    /**
+     * 清空所有记录和字符串堆（不缩小文件）
+     */
+    public synchronized void clear() throws IOException {
+        staged.clear();
+        count = 0;
+        heapEnd = 0;
+        if (liveRecords != null) {
+            liveRecords.clear();
+        }
+        commit();
+    }
+
+    /**
+     * 记录数（含已删除的记录）
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 创建指向指定记录的享元视图
+     */
+    public synchronized TaskView view(int index) {
+        TaskView view = new TaskView();
+        view.moveTo(index);
+        return view;
+    }
+
+    /**
+     * 遍历所有未删除的记录，整个遍历只复用一个享元视图
+     * 视图只在回调期间有效，需要保留时请调用toTask
+     */
+    public synchronized void forEach(Consumer<TaskView> action) {
+        TaskView view = new TaskView();
+        for (int i = 0; i < count; i++) {
+            view.moveTo(i);
+            if (!view.isDeleted()) {
+                action.accept(view);
+            }
+        }
+    }
+
+    /**
+     * 将映射内容刷新到磁盘，先刷新字符串堆再刷新记录，记录不会先于它引用的字符串落盘
+     */
+    public synchronized void force() {
+        heap.force();
+        records.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        closeChannels();
+    }
+
+    // 任务ID到未删除记录号的映射，只读取每条记录的ID字段
+    private Map<String, Integer> liveRecords() {
+        if (liveRecords == null) {
+            liveRecords = new HashMap<>();
+            TaskView view = new TaskView();
+            for (int i = 0; i < count; i++) {
+                view.moveTo(i);
+                if (!view.isDeleted()) {
+                    liveRecords.put(view.getId(), i);
+                }
+            }
+        }
+        return liveRecords;
+    }
+
+    // 把未删除的记录写入下一代文件，写完后切换CURRENT，再关闭并删除旧一代文件
+    private void compact() throws IOException {
+        MappedTaskStore next = new MappedTaskStore(directory, generation + 1);
+        recordFile(directory, next.generation).delete(); // 上次压缩中途失败留下的文件
+        heapFile(directory, next.generation).delete();
+        journalFile(directory, next.generation).delete();
+        if (!next.mapGeneration()) {
+            throw new IOException("创建压缩文件失败");
+        }
+        next.liveRecords = new HashMap<>();
+        try {
+            TaskView view = new TaskView();
+            for (int i = 0; i < count; i++) {
+                view.moveTo(i);
+                if (!view.isDeleted()) {
+                    next.stageAppend(view.toTask());
+                }
+            }
+            next.commit();
+            writeCurrent(directory, next.generation);
+        } catch (IOException | RuntimeException e) {
+            next.closeChannels();
+            throw e;
+        }
+
+        int old = generation;
+        closeChannels();
+        generation = next.generation;
+        recordChannel = next.recordChannel;
+        heapChannel = next.heapChannel;
+        journalChannel = next.journalChannel;
+        records = next.records;
+        heap = next.heap;
+        count = next.count;
+        heapEnd = next.heapEnd;
+        committedCount = next.committedCount;
+        committedHeapEnd = next.committedHeapEnd;
+        liveRecords = next.liveRecords;
+        // 旧文件的映射在缓冲区被回收前仍然有效，某些系统上此时删除会失败，留到下次打开时再删
+        recordFile(directory, old).delete();
+        heapFile(directory, old).delete();
+        journalFile(directory, old).delete();
+    }
+
+    // 在已提交的末尾之后追加一条记录（提交前不可见）
+    private int stageAppend(Task task) throws IOException {
+        if (count >= MAX_RECORDS) {
+            throw new IOException("记录文件超过2GB上限，最多" + MAX_RECORDS + "条记录");
+        }
+        if (offset(count + 1) > records.capacity()) {
+            long capacity = Math.min((long) records.capacity() * 2, offset(MAX_RECORDS));
+            records = map(recordChannel, capacity);
+        }
+        int index = count;
+        records.put(offset(index), encode(task));
+        count++;
+        if (liveRecords != null && task.getId() != null) {
+            liveRecords.put(task.getId(), index);
+        }
+        return index;
+    }
+
+    // 暂存已有记录的新内容，提交时才写入映射；返回编码后的记录
+    private byte[] stageWrite(int index, Task task) throws IOException {
+        byte[] record = encode(task);
+        stage(index, record);
+        return record;
+    }
+
+    private void stageDelete(int index) {
+        byte[] record = staged.get(index);
+        if (record == null) {
+            record = new byte[RECORD_SIZE];
+            records.get(offset(index), record);
+        }
+        record[R_FLAGS] |= FLAG_DELETED;
+        stage(index, record);
+    }
+
+    // 未提交的新记录直接写在映射中，已提交的记录暂存到提交时
+    private void stage(int index, byte[] record) {
+        if (index >= committedCount) {
+            records.put(offset(index), record);
+        } else {
+            staged.put(index, record);
+        }
+    }
+
+    /**
+     * 提交暂存的修改：字符串堆和新记录落盘后写日志，日志落盘后才改写已有记录和文件头
+     */
+    private void commit() throws IOException {
+        if (staged.isEmpty() && count == committedCount && heapEnd == committedHeapEnd) {
+            return;
+        }
+        heap.force();
+        records.force();
+        writeJournal();
+        apply(staged, count, heapEnd);
+        staged.clear();
+        committedCount = count;
+        committedHeapEnd = heapEnd;
+        records.force();
+        clearJournal();
+    }
+
+    // 丢弃未提交的修改，映射中已提交的内容没有被改动过
+    private void rollback() {
+        staged.clear();
+        count = committedCount;
+        heapEnd = committedHeapEnd;
+        liveRecords = null;
+    }
+
+    private void apply(Map<Integer, byte[]> changes, int newCount, int newHeapEnd) {
+        for (Map.Entry<Integer, byte[]> change : changes.entrySet()) {
+            records.put(offset(change.getKey()), change.getValue());
+        }
+        records.putInt(H_COUNT, newCount);
+        records.putInt(H_HEAP_END, newHeapEnd);
+    }
+
+    // 日志格式：魔数、记录数、字符串堆末尾、暂存记录数，之后每条为记录号和记录内容，最后是以上内容的CRC32
+    private void writeJournal() throws IOException {
+        ByteBuffer journal = ByteBuffer.allocate(JOURNAL_HEADER + staged.size() * (4 + RECORD_SIZE) + 8)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        journal.putInt(JOURNAL_MAGIC).putInt(count).putInt(heapEnd).putInt(staged.size());
+        for (Map.Entry<Integer, byte[]> change : staged.entrySet()) {
+            journal.putInt(change.getKey()).put(change.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(journal.array(), 0, journal.position());
+        journal.putLong(crc.getValue());
+        journal.flip();
+        journalChannel.truncate(0);
+        while (journal.hasRemaining()) {
+            journalChannel.write(journal, journal.position());
+        }
+        journalChannel.force(true);
+    }
+
+    private void clearJournal() throws IOException {
+        journalChannel.truncate(0);
+        journalChannel.force(true);
+    }
+
+    // 重放完整的日志；日志不完整（提交中途崩溃）时映射中已提交的内容没有被改动过，直接丢弃
+    // 日志完整但与数据文件对不上时返回false
+    private boolean replayJournal() throws IOException {
+        long size = journalChannel.size();
+        if (size < JOURNAL_HEADER + 8 || size > Integer.MAX_VALUE) {
+            clearJournal();
+            return true;
+        }
+        ByteBuffer journal = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        while (journal.hasRemaining()) {
+            if (journalChannel.read(journal, journal.position()) < 0) {
+                break;
+            }
+        }
+        journal.flip();
+        int stagedCount = journal.getInt(12);
+        CRC32 crc = new CRC32();
+        crc.update(journal.array(), 0, (int) size - 8);
+        if (journal.getInt(0) != JOURNAL_MAGIC || stagedCount < 0
+                || size != JOURNAL_HEADER + (long) stagedCount * (4 + RECORD_SIZE) + 8
+                || journal.getLong((int) size - 8) != crc.getValue()) {
+            clearJournal();
+            return true;
+        }
+        int newCount = journal.getInt(4);
+        int newHeapEnd = journal.getInt(8);
+        if (newCount < 0 || newCount > MAX_RECORDS || offset(newCount) > records.capacity()
+                || newHeapEnd < 0 || newHeapEnd > heap.capacity()) {
+            return false;
+        }
+        Map<Integer, byte[]> changes = new TreeMap<>();
+        journal.position(JOURNAL_HEADER);
+        for (int i = 0; i < stagedCount; i++) {
+            int index = journal.getInt();
+            byte[] record = new byte[RECORD_SIZE];
+            journal.get(record);
+            if (index < 0 || index >= newCount) {
+                return false;
+            }
+            changes.put(index, record);
+        }
+        apply(changes, newCount, newHeapEnd);
+        records.force();
+        clearJournal();
+        return true;
+    }
+
+    // 检查已提交的每条记录引用的字符串都在字符串堆的已提交范围内，返回第一条不合法的记录号，都合法时返回-1
+    private int firstInvalidRecord() {
+        for (int i = 0; i < count; i++) {
+            int base = offset(i);
+            for (int field = R_ID; field <= R_PROJECT; field += 8) {
+                int start = records.getInt(base + field);
+                int length = records.getInt(base + field + 4);
+                boolean valid = start == NULL_STRING ? length == 0
+                        : start >= 0 && length >= 0 && (long) start + length <= heapEnd;
+                if (!valid) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // 把任务编码为一条记录，字符串追加到字符串堆的末尾
+    private byte[] encode(Task task) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer buffer = wrap(record);
+        buffer.putLong(R_START, task.getStartTime() != null ? task.getStartTime().getTime() : NO_TIME);
+        buffer.putLong(R_END, task.getEndTime() != null ? task.getEndTime().getTime() : NO_TIME);
+        putString(buffer, R_ID, task.getId());
+        putString(buffer, R_NAME, task.getName());
+        putString(buffer, R_CONTENT, task.getContent());
+        putString(buffer, R_PROJECT, task.getProjectId());
+        buffer.putInt(R_REMINDER, task.getReminderMinutes());
+        buffer.put(R_PRIORITY, ordinal(task.getPriority()));
+        buffer.put(R_STATUS, ordinal(task.getStatus()));
+        buffer.put(R_TYPE, ordinal(task.getType()));
+        buffer.put(R_FLAGS, (byte) 0);
+        return record;
+    }
+
+    // 将字符串追加到字符串堆，并在记录中写入偏移和长度
+    private void putString(ByteBuffer record, int fieldOffset, String value) throws IOException {
+        if (value == null) {
+            record.putInt(fieldOffset, NULL_STRING);
+            record.putInt(fieldOffset + 4, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long required = (long) heapEnd + bytes.length;
+        if (required > heap.capacity()) {
+            if (required > MAX_MAPPING) {
+                throw new IOException("字符串堆超过2GB上限");
+            }
+            long capacity = heap.capacity();
+            while (capacity < required) {
+                capacity *= 2;
+            }
+            heap = map(heapChannel, Math.min(capacity, MAX_MAPPING));
+        }
+        heap.put(heapEnd, bytes);
+        record.putInt(fieldOffset, heapEnd);
+        record.putInt(fieldOffset + 4, bytes.length);
+        heapEnd += bytes.length;
+    }
+
+    // 记录引用的字符串字节数，用于判断字符串堆中失效内容的比例
+    private static int stringBytes(ByteBuffer buffer, int base) {
+        return buffer.getInt(base + R_ID + 4) + buffer.getInt(base + R_NAME + 4)
+                + buffer.getInt(base + R_CONTENT + 4) + buffer.getInt(base + R_PROJECT + 4);
+    }
+
+    private static ByteBuffer wrap(byte[] record) {
+        return ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private String getString(int fieldOffset) {
+        int start = records.getInt(fieldOffset);
+        if (start == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[records.getInt(fieldOffset + 4)];
+        heap.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("记录号越界: " + index);
+        }
+    }
+
+    private void closeChannels() {
+        closeQuietly(recordChannel);
+        closeQuietly(heapChannel);
+        closeQuietly(journalChannel);
+    }
+
+    // 记录在文件中的偏移，按long计算；记录号不超过MAX_RECORDS时结果一定在int范围内
+    private static int offset(int index) {
+        return Math.toIntExact(HEADER_SIZE + (long) index * RECORD_SIZE);
+    }
+
+    private static File recordFile(File directory, int generation) {
+        return new File(directory, "tasks-" + generation + ".rec");
+    }
+
+    private static File heapFile(File directory, int generation) {
+        return new File(directory, "tasks-" + generation + ".str");
+    }
+
+    private static File journalFile(File directory, int generation) {
+        return new File(directory, "tasks-" + generation + ".wal");
+    }
+
+    // 先写临时文件并同步到磁盘，再原子地替换CURRENT
+    private static void writeCurrent(File directory, int generation) throws IOException {
+        File temp = new File(directory, CURRENT_FILE + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            fos.write(Integer.toString(generation).getBytes(StandardCharsets.UTF_8));
+            fos.getFD().sync();
+        }
+        Files.move(temp.toPath(), new File(directory, CURRENT_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    // 同步目录本身；部分系统（如Windows）不支持打开目录，此时只能依赖文件系统自身的保证
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    // 删除不属于当前代的记录、字符串堆和日志文件（压缩后没能删除的旧文件，或压缩中途失败留下的新文件）
+    private static void deleteStaleGenerations(File directory, int generation) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("tasks-")
+                && (name.endsWith(".rec") || name.endsWith(".str") || name.endsWith(".wal")));
+        if (files == null) {
+            return;
+        }
+        String currentPrefix = "tasks-" + generation + ".";
+        for (File file : files) {
+            if (!file.getName().startsWith(currentPrefix)) {
+                file.delete();
+            }
+        }
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : -1;
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 任务享元视图：只保存记录号，每次调用getter时直接从映射缓冲区读取字段
+     * 基本类型字段不分配对象；字符串字段在调用时才解码
+     */
+    public final class TaskView {
+        private int index;
+        private int base;
+
+        private TaskView() {
+        }
+
+        // 将视图移动到另一条记录，便于遍历时复用
+        public void moveTo(int index) {
+            checkIndex(index);
+            this.index = index;
+            this.base = offset(index);
+        }
+
+        public int getIndex() { return index; }
+
+        public boolean isDeleted() { return (records.get(base + R_FLAGS) & FLAG_DELETED) != 0; }
+
+        public long getStartMillis() { return records.getLong(base + R_START); }
+
+        public long getEndMillis() { return records.getLong(base + R_END); }
+
+        public int getReminderMinutes() { return records.getInt(base + R_REMINDER); }
+
+        public Task.Priority getPriority() { return fromOrdinal(Task.Priority.values(), records.get(base + R_PRIORITY)); }
+
+        public Task.TaskStatus getStatus() { return fromOrdinal(Task.TaskStatus.values(), records.get(base + R_STATUS)); }
+
+        public Task.TaskType getType() { return fromOrdinal(Task.TaskType.values(), records.get(base + R_TYPE)); }
+
+        public String getId() { return getString(base + R_ID); }
+
+        public String getName() { return getString(base + R_NAME); }
+
+        public String getContent() { return getString(base + R_CONTENT); }
+
+        public String getProjectId() { return getString(base + R_PROJECT); }
+
+        // 与Task.isOverdue一致：未完成且截止时间已过
+        public boolean isOverdue(long now) {
+            long end = getEndMillis();
+            return getStatus() != Task.TaskStatus.COMPLETED && end != NO_TIME && now > end;
+        }
+
+        /**
+         * 记录内容是否与任务相同，先比较基本类型字段，都相同时才解码字符串
+         */
+        public boolean sameAs(Task task) {
+            long start = task.getStartTime() != null ? task.getStartTime().getTime() : NO_TIME;
+            long end = task.getEndTime() != null ? task.getEndTime().getTime() : NO_TIME;
+            return getStartMillis() == start && getEndMillis() == end
+                    && getReminderMinutes() == task.getReminderMinutes()
+                    && getPriority() == task.getPriority() && getStatus() == task.getStatus()
+                    && getType() == task.getType()
+                    && Objects.equals(getName(), task.getName())
+                    && Objects.equals(getContent(), task.getContent())
+                    && Objects.equals(getProjectId(), task.getProjectId());
+        }
+
+        // 记录引用的字符串字节数，用于判断字符串堆中失效内容的比例
+        int stringBytes() {
+            return MappedTaskStore.stringBytes(records, base);
+        }
+
+        /**
+         * 将当前记录物化为堆上的Task对象
+         */
+        public Task toTask() {
+            Task task = new Task();
+            task.setId(getId());
+            task.setName(getName());
+            task.setContent(getContent());
+            long start = getStartMillis();
+            long end = getEndMillis();
+            task.setStartTime(start != NO_TIME ? new Date(start) : null);
+            task.setEndTime(end != NO_TIME ? new Date(end) : null);
+            task.setPriority(getPriority());
+            task.setStatus(getStatus());
+            task.setType(getType());
+            task.setProjectId(getProjectId());
+            task.setReminderMinutes(getReminderMinutes());
+            return task;
+        }
+    }
+}
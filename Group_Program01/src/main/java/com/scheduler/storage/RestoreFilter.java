@@ -0,0 +1,61 @@
+package com.scheduler.storage;
+
+import com.scheduler.model.Task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 恢复过滤条件类：选择性恢复时按项目和时间范围挑选任务
+ * 项目集合为null表示不限项目；时间范围任一端为null表示该端不限，任务时间段与范围有交集即匹配
+ */
+public class RestoreFilter {
+    private final Set<String> projectIds; // 允许的项目ID，集合中的null表示不属于任何项目的任务
+    private final long from; // 时间范围起点（毫秒），不限时为Long.MIN_VALUE
+    private final long to;   // 时间范围终点（毫秒），不限时为Long.MAX_VALUE
+    
+    // 构造方法
+    public RestoreFilter(Collection<String> projectIds, Date from, Date to) {
+        this.projectIds = projectIds != null ? new HashSet<>(projectIds) : null;
+        this.from = from != null ? from.getTime() : Long.MIN_VALUE;
+        this.to = to != null ? to.getTime() : Long.MAX_VALUE;
+    }
+    
+    // 只恢复指定项目的任务
+    public static RestoreFilter forProject(String projectId) {
+        return new RestoreFilter(Collections.singleton(projectId), null, null);
+    }
+    
+    // 只恢复与指定时间范围有交集的任务
+    public static RestoreFilter forRange(Date from, Date to) {
+        return new RestoreFilter(null, from, to);
+    }
+    
+    // 判断任务是否满足条件
+    public boolean matches(Task task) {
+        if (projectIds != null && !projectIds.contains(task.getProjectId())) {
+            return false;
+        }
+        if (!hasTimeRange()) {
+            return true;
+        }
+        Date start = task.getStartTime() != null ? task.getStartTime() : task.getEndTime();
+        Date end = task.getEndTime() != null ? task.getEndTime() : task.getStartTime();
+        return start != null && start.getTime() <= to && end.getTime() >= from;
+    }
+    
+    // 根据块索引判断块中是否可能有满足条件的任务
+    public boolean mayMatch(BackupSegment.BlockEntry block) {
+        if (projectIds != null && Collections.disjoint(projectIds, block.getProjectIds())) {
+            return false;
+        }
+        return !hasTimeRange() || (block.getMinTime() <= to && block.getMaxTime() >= from);
+    }
+    
+    private boolean hasTimeRange() {
+        return from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+    }
+}
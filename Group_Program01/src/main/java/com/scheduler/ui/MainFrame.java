@@ -8,6 +8,8 @@ import com.scheduler.service.StatisticsService;
 import com.scheduler.service.TaskService;
 import com.scheduler.storage.DataBackupService;
 import com.scheduler.storage.DataStorage;
+import com.scheduler.storage.GroupCommitSaver;
+import com.scheduler.storage.MappedTaskStore;
 import com.scheduler.Main;
 
 import javax.swing.*;
@@ -31,6 +33,7 @@ public class MainFrame extends JFrame {
     private StatisticsService statisticsService;
     private DataStorage dataStorage;
     private DataBackupService dataBackupService;
+    private GroupCommitSaver saveQueue; // 合并界面修改产生的自动保存请求
     
     // UI组件
     private GanttChart ganttChart;
@@ -75,11 +78,16 @@ public class MainFrame extends JFrame {
         
         String taskFilePath = dataDir + File.separator + "tasks.dat";
         String projectFilePath = dataDir + File.separator + "projects.dat";
-        dataStorage = new DataStorage(taskFilePath, projectFilePath);
+        // 任务保存在内存映射存储中，无法打开时（返回null）仍使用序列化文件
+        MappedTaskStore mappedTaskStore = MappedTaskStore.open(dataDir + File.separator + "tasks");
+        dataStorage = new DataStorage(taskFilePath, projectFilePath, mappedTaskStore);
         
         // 创建备份服务
         String backupDir = dataDir + File.separator + "backups";
         dataBackupService = new DataBackupService(dataStorage, taskService, projectService, backupDir);
+        
+        // 创建合并提交保存队列，300毫秒内的修改合并为一次写入
+        saveQueue = new GroupCommitSaver(dataStorage, taskService, projectService, SwingUtilities::invokeLater, 300);
     }
     
     // 初始化UI
@@ -90,6 +98,15 @@ public class MainFrame extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         
+        // 关闭窗口前同步写入尚未保存的修改
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                saveQueue.close();
+                dataStorage.close();
+            }
+        });
+        
         // 创建菜单
         createMenuBar();
         
@@ -392,7 +409,7 @@ public class MainFrame extends JFrame {
         if (dialog.isConfirmed()) {
             Task newTask = dialog.getTask();
             taskService.addTask(newTask);
-            saveData(); // 自动保存数据
+            requestSave(); // 自动保存数据
             updateUI(); // 更新界面显示
         }
     }
@@ -414,12 +431,35 @@ public class MainFrame extends JFrame {
             }
             
             if (taskToEdit != null) {
-                TaskDialog dialog = new TaskDialog(this, taskToEdit, projectService, reminderService);
+                // 在副本上编辑，确认后按打开对话框时的版本戳提交，期间任务被其他地方修改过时提示用户
+                long expectedVersion = taskToEdit.getVersion();
+                Task draft = taskToEdit.copy();
+                TaskDialog dialog = new TaskDialog(this, draft, projectService, reminderService);
                 dialog.setVisible(true);
                 
                 if (dialog.isConfirmed()) {
-                    taskService.updateTask(taskToEdit);
-                    saveData(); // 自动保存数据
+                    TaskService.UpdateResult result =
+                            taskService.update(draft.getId(), expectedVersion, task -> task.assignFrom(draft));
+                    if (result.getStatus() == TaskService.UpdateResult.Status.CONFLICT) {
+                        int overwrite = JOptionPane.showConfirmDialog(this,
+                                "任务'" + taskName + "'在编辑期间已被修改，是否用您的修改覆盖？", "修改冲突",
+                                JOptionPane.YES_NO_OPTION);
+                        if (overwrite == JOptionPane.YES_OPTION) {
+                            result = taskService.update(draft.getId(), result.getVersion(), task -> task.assignFrom(draft));
+                        }
+                    }
+                    
+                    if (result.isUpdated()) {
+                        // 对话框是按修改前的任务时间设置的提醒，修改生效后按新的时间重新设置
+                        Task updated = result.getTask();
+                        if (updated.getStartTime() != null && updated.getReminderMinutes() > 0) {
+                            reminderService.cancelReminder(updated.getId());
+                            reminderService.setReminder(updated.getId(), updated.getReminderMinutes());
+                        }
+                        requestSave(); // 自动保存数据
+                    } else if (result.getStatus() == TaskService.UpdateResult.Status.NOT_FOUND) {
+                        JOptionPane.showMessageDialog(this, "任务已被删除，修改未保存", "错误", JOptionPane.ERROR_MESSAGE);
+                    }
                     updateUI(); // 更新界面显示
                 }
             } else {
@@ -454,7 +494,7 @@ public class MainFrame extends JFrame {
                 
                 if (confirm == JOptionPane.YES_OPTION) {
                     taskService.deleteTask(taskToDelete.getId());
-                    saveData(); // 自动保存数据
+                    requestSave(); // 自动保存数据
                     updateUI(); // 更新界面显示
                 }
             } else {
@@ -473,7 +513,7 @@ public class MainFrame extends JFrame {
         if (dialog.isConfirmed()) {
             Project newProject = dialog.getProject();
             projectService.addProject(newProject);
-            saveData(); // 自动保存数据
+            requestSave(); // 自动保存数据
             updateUI(); // 更新界面显示
         }
     }
@@ -491,7 +531,7 @@ public class MainFrame extends JFrame {
                 
                 if (dialog.isConfirmed()) {
                     projectService.updateProject(projectToEdit);
-                    saveData(); // 自动保存数据
+                    requestSave(); // 自动保存数据
                     updateUI(); // 更新界面显示
                 }
             } else {
@@ -531,7 +571,7 @@ public class MainFrame extends JFrame {
                 
                 if (confirm == JOptionPane.YES_OPTION) {
                     projectService.deleteProject(projectToDelete.getId());
-                    saveData(); // 自动保存数据
+                    requestSave(); // 自动保存数据
                     updateUI(); // 更新界面显示
                 }
             } else {
@@ -562,6 +602,16 @@ public class MainFrame extends JFrame {
         }
     }
     
+    // 登记自动保存请求，保存失败时提示用户
+    private void requestSave() {
+        saveQueue.requestSave().thenAccept(success -> {
+            if (!success) {
+                SwingUtilities.invokeLater(() ->
+                        JOptionPane.showMessageDialog(this, "数据保存失败", "错误", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+    
     // 执行手动备份
     private void performBackup() {
         boolean success = dataBackupService.performBackup(taskService, projectService);
@@ -0,0 +1,118 @@
+package com.scheduler.util;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时钟类：业务逻辑中取“当前时间”的统一入口，测试和模拟时可以换成手动推进的虚拟时钟（VirtualClock）
+ * get()为精确时间，coarse()为粗粒度缓存时间，适合大批量扫描；一次查询或扫描只读取一次当前时间，再把同一时刻用于每个元素
+ */
+public abstract class Clock {
+    /** 粗粒度时钟的更新间隔（毫秒） */
+    public static final long COARSE_TICK_MILLIS = 5;
+
+    private static volatile Clock defaultClock = SystemClock.INSTANCE;
+
+    /**
+     * 当前时间（毫秒）
+     */
+    public abstract long millis();
+
+    /**
+     * 当前时间
+     */
+    public Date now() {
+        return new Date(millis());
+    }
+
+    /**
+     * 默认时钟：平时为系统时钟，测试或模拟时可用set替换
+     */
+    public static Clock get() {
+        return defaultClock;
+    }
+
+    /**
+     * 粗粒度时钟：默认时钟为系统时钟时，返回每COARSE_TICK_MILLIS毫秒更新一次的缓存时间，读取只是一次volatile读；
+     * 默认时钟被替换时直接返回替换后的时钟
+     */
+    public static Clock coarse() {
+        Clock clock = defaultClock;
+        return clock == SystemClock.INSTANCE ? CoarseClock.INSTANCE : clock;
+    }
+
+    /**
+     * 替换默认时钟，传入null恢复为系统时钟
+     */
+    public static void set(Clock clock) {
+        defaultClock = clock != null ? clock : SystemClock.INSTANCE;
+    }
+
+    public static Clock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    // 系统时钟
+    private static final class SystemClock extends Clock {
+        static final SystemClock INSTANCE = new SystemClock();
+
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+    }
+
+    // 粗粒度时钟，第一次使用时启动后台守护线程
+    private static final class CoarseClock extends Clock {
+        static final CoarseClock INSTANCE = new CoarseClock();
+
+        private volatile long now = System.currentTimeMillis();
+
+        private CoarseClock() {
+            Thread ticker = new Thread(() -> {
+                while (true) {
+                    now = System.currentTimeMillis();
+                    try {
+                        Thread.sleep(COARSE_TICK_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "coarse-clock");
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+
+    /**
+     * 虚拟时钟 - 时间只在调用set或advance时改变，用于测试和模拟
+     */
+    public static class VirtualClock extends Clock {
+        private final AtomicLong now;
+
+        public VirtualClock(long startMillis) {
+            this.now = new AtomicLong(startMillis);
+        }
+
+        @Override
+        public long millis() {
+            return now.get();
+        }
+
+        public void set(long millis) {
+            now.set(millis);
+        }
+
+        /**
+         * 时间前进deltaMillis毫秒，返回前进后的时间
+         */
+        public long advance(long deltaMillis) {
+            return now.addAndGet(deltaMillis);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.scheduler.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 倒排索引类：按分组键（如项目ID、日期）维护任务键的long型倒排列表
+ * 每个任务键记录所在列表和下标（回指针），删除时与列表末尾元素交换，复杂度O(1)
+ * @param <K> 分组键类型
+ */
+public class LongPostingIndex<K> {
+    private final Map<K, Postings<K>> lists;           // 分组键 -> 倒排列表
+    private final LongObjectHashMap<Postings<K>> owner; // 任务键 -> 所在倒排列表
+    private final LongIntHashMap position;             // 任务键 -> 在列表中的下标
+
+    public LongPostingIndex() {
+        this.lists = new HashMap<>();
+        this.owner = new LongObjectHashMap<>();
+        this.position = new LongIntHashMap(-1);
+    }
+
+    /**
+     * 将任务键加入指定分组，如已在其他分组中则先移出
+     */
+    public void add(K bucket, long key) {
+        Postings<K> current = owner.get(key);
+        if (current != null) {
+            if (current.bucket.equals(bucket)) {
+                return;
+            }
+            remove(key);
+        }
+        Postings<K> postings = lists.computeIfAbsent(bucket, Postings::new);
+        position.put(key, postings.size);
+        postings.append(key);
+        owner.put(key, postings);
+    }
+
+    /**
+     * 从索引中移除任务键
+     * @return 是否存在并已移除
+     */
+    public boolean remove(long key) {
+        Postings<K> postings = owner.remove(key);
+        if (postings == null) {
+            return false;
+        }
+        int index = position.remove(key);
+        int last = postings.size - 1;
+        if (index != last) {
+            // 用末尾元素填补空位，并更新其回指针
+            long moved = postings.keys[last];
+            postings.keys[index] = moved;
+            position.put(moved, index);
+        }
+        postings.size = last;
+        if (postings.size == 0) {
+            lists.remove(postings.bucket);
+        }
+        return true;
+    }
+
+    /**
+     * 遍历指定分组中的所有任务键
+     */
+    public void forEach(K bucket, LongConsumer action) {
+        Postings<K> postings = lists.get(bucket);
+        if (postings == null) {
+            return;
+        }
+        for (int i = 0; i < postings.size; i++) {
+            action.accept(postings.keys[i]);
+        }
+    }
+
+    /**
+     * 获取指定分组中的任务数量
+     */
+    public int count(K bucket) {
+        Postings<K> postings = lists.get(bucket);
+        return postings == null ? 0 : postings.size;
+    }
+
+    public void clear() {
+        lists.clear();
+        owner.clear();
+        position.clear();
+    }
+
+    // 单个分组的倒排列表
+    private static final class Postings<K> {
+        final K bucket;
+        long[] keys = new long[4];
+        int size;
+
+        Postings(K bucket) {
+            this.bucket = bucket;
+        }
+
+        void append(long key) {
+            if (size == keys.length) {
+                long[] grown = new long[size << 1];
+                System.arraycopy(keys, 0, grown, 0, size);
+                keys = grown;
+            }
+            keys[size++] = key;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.scheduler.util;
+
+import com.scheduler.model.Task;
+import com.scheduler.service.ScalarStatisticsKernels;
+import com.scheduler.service.StatisticsKernels;
+import com.scheduler.service.TaskColumns;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 统计内核基准测试类：在合成的列数据上比较标量和向量化实现的耗时
+ * 运行方式：java --add-modules jdk.incubator.vector -cp bin com.scheduler.util.StatisticsBenchmark [行数]
+ */
+public class StatisticsBenchmark {
+    private static final int DEFAULT_ROWS = 10_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 10;
+    
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        
+        // 生成合成数据：约10%的截止时间为空，其余分布在当前时间前后30天内
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        long range = 30L * 24 * 60 * 60 * 1000;
+        byte[] status = new byte[rows];
+        byte[] priority = new byte[rows];
+        long[] end = new long[rows];
+        int statusCount = Task.TaskStatus.values().length;
+        int priorityCount = Task.Priority.values().length;
+        for (int i = 0; i < rows; i++) {
+            status[i] = (byte) random.nextInt(statusCount);
+            priority[i] = (byte) random.nextInt(priorityCount);
+            end[i] = random.nextInt(10) == 0 ? TaskColumns.NO_TIME : now - range + (long) (random.nextDouble() * 2 * range);
+        }
+        byte completed = (byte) Task.TaskStatus.COMPLETED.ordinal();
+        
+        StatisticsKernels scalar = ScalarStatisticsKernels.INSTANCE;
+        StatisticsKernels vector = StatisticsKernels.select(true);
+        if (vector == scalar) {
+            System.out.println("向量模块不可用，请使用 --add-modules jdk.incubator.vector 运行");
+            return;
+        }
+        
+        System.out.println("行数: " + rows);
+        double scalarMs = measure(scalar, status, priority, end, rows, completed, now);
+        double vectorMs = measure(vector, status, priority, end, rows, completed, now);
+        System.out.printf("加速比: %.2fx%n", scalarMs / vectorMs);
+        
+        // 校验两种实现的结果一致
+        boolean same = scalar.countEquals(status, rows, completed) == vector.countEquals(status, rows, completed)
+                && scalar.countOverdue(status, end, rows, completed, now) == vector.countOverdue(status, end, rows, completed, now)
+                && Arrays.equals(scalar.histogram(priority, rows, priorityCount), vector.histogram(priority, rows, priorityCount));
+        System.out.println("结果一致: " + same);
+    }
+    
+    // 返回一轮（完成率 + 延迟率 + 优先级分布）的平均耗时（毫秒）
+    private static double measure(StatisticsKernels kernels, byte[] status, byte[] priority, long[] end,
+                                  int rows, byte completed, long now) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += runRound(kernels, status, priority, end, rows, completed, now);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            sink += runRound(kernels, status, priority, end, rows, completed, now);
+        }
+        double ms = (System.nanoTime() - begin) / 1_000_000.0 / MEASURE_ROUNDS;
+        System.out.printf("%-16s %8.2f ms/轮 (校验和 %d)%n", kernels.name(), ms, sink);
+        return ms;
+    }
+    
+    private static long runRound(StatisticsKernels kernels, byte[] status, byte[] priority, long[] end,
+                                 int rows, byte completed, long now) {
+        long total = kernels.countEquals(status, rows, completed);
+        total += kernels.countOverdue(status, end, rows, completed, now);
+        for (int count : kernels.histogram(priority, rows, Task.Priority.values().length)) {
+            total += count;
+        }
+        return total;
+    }
+}
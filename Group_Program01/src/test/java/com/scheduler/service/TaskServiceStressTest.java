@@ -0,0 +1,227 @@
+package com.scheduler.service;
+
+import com.scheduler.model.Task;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TaskService并发压力测试：多个写线程同时增删改任务，多个读线程同时查询，结束后检查数量和索引
+ * 1. 每个写线程添加WRITER_TASKS个任务，其中一部分随后更新到另一个项目、标记完成或删除，最终任务数必须与预期一致
+ * 2. 所有写线程还对同一批共享任务做版本戳检查的加1修改（冲突时重试），最终计数等于加1总次数，说明没有丢失更新
+ * 3. 读线程在写入期间不断查询，不允许出现任何异常（包括ConcurrentModificationException）
+ * 4. 结束后按项目和日期索引查到的任务、列存储的行数和统计结果必须与逐个扫描全部任务的结果一致
+ * 运行方式：java -cp 编译输出目录 com.scheduler.service.TaskServiceStressTest，失败时抛出AssertionError
+ */
+public class TaskServiceStressTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 3;
+    private static final int WRITER_TASKS = 20_000;
+    private static final int SHARED_TASKS = 8;
+    private static final int INCREMENTS_PER_WRITER = 2_000;
+    private static final long MINUTE = 60 * 1000L;
+
+    public static void main(String[] args) throws Exception {
+        TaskService taskService = new TaskService();
+        StatisticsService statisticsService = new StatisticsService(taskService);
+        Date base = new Date(System.currentTimeMillis() / (24 * 60 * MINUTE) * (24 * 60 * MINUTE));
+
+        List<String> sharedIds = new ArrayList<>();
+        for (int i = 0; i < SHARED_TASKS; i++) {
+            Task task = new Task("共享" + i, "", base, new Date(base.getTime() + MINUTE),
+                    Task.Priority.HIGH, "shared", Task.TaskType.MEETING);
+            task.setReminderMinutes(0);
+            check(taskService.addTask(task), "添加共享任务失败");
+            sharedIds.add(task.getId());
+        }
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(pool.submit(() -> {
+                start.await();
+                write(taskService, writer, base, sharedIds);
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        query(taskService, statisticsService, base);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        pool.shutdown();
+        check(pool.awaitTermination(30, TimeUnit.SECONDS), "读线程没有结束");
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError("并发查询出现异常: " + failures.peek());
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+
+        verify(taskService, statisticsService, base, sharedIds);
+        System.out.println("TaskService并发压力测试通过，任务数 " + taskService.getTaskCount());
+    }
+
+    // 写线程：第i个任务在i%3==0时改到项目moved，i%5==0时删除，i%7==0时标记完成；每次添加后对一个共享任务加1
+    private static void write(TaskService taskService, int writer, Date base, List<String> sharedIds) {
+        for (int i = 0; i < WRITER_TASKS; i++) {
+            Date start = new Date(base.getTime() + (i % 48) * 30 * MINUTE);
+            Task task = new Task("w" + writer + "_" + i, "", start, new Date(start.getTime() + 30 * MINUTE),
+                    Task.Priority.values()[i % 4], "p" + writer, Task.TaskType.DAILY);
+            check(taskService.addTask(task), "添加任务失败");
+            if (i % 3 == 0) {
+                Task moved = task.copy();
+                moved.setProjectId("moved");
+                check(taskService.updateTask(moved), "更新任务失败");
+            }
+            if (i % 7 == 0) {
+                check(taskService.markTaskAsCompleted(task.getId()), "标记完成失败");
+            }
+            if (i % 5 == 0) {
+                check(taskService.deleteTask(task.getId()), "删除任务失败");
+            }
+            if (i < INCREMENTS_PER_WRITER) {
+                increment(taskService, sharedIds.get((writer + i) % sharedIds.size()));
+            }
+        }
+    }
+
+    // 读出版本戳后在写锁外准备修改，提交时发现冲突就用新的版本戳重试
+    private static void increment(TaskService taskService, String taskId) {
+        while (true) {
+            Task current = taskService.getTaskById(taskId);
+            int next = current.getReminderMinutes() + 1;
+            TaskService.UpdateResult result = taskService.update(taskId, current.getVersion(),
+                    task -> task.setReminderMinutes(next));
+            if (result.isUpdated()) {
+                return;
+            }
+            check(result.getStatus() == TaskService.UpdateResult.Status.CONFLICT, "共享任务不存在");
+        }
+    }
+
+    private static void query(TaskService taskService, StatisticsService statisticsService, Date base) {
+        for (Task task : taskService.getAllTasks()) {
+            check(task != null && task.getId() != null, "查询到空任务");
+        }
+        for (Task task : taskService.getTasksByProject("moved")) {
+            check(task != null, "项目索引返回了空任务");
+        }
+        for (Task task : taskService.getTasksByDate(base)) {
+            check(task != null, "日期索引返回了空任务");
+        }
+        taskService.getTasksModifiedSince(taskService.getModificationVersion() / 2);
+        taskService.snapshot().getAllTasks();
+        statisticsService.getTaskCompletionRate();
+        statisticsService.getTaskCountByPriority();
+        statisticsService.getTaskOverdueRate();
+    }
+
+    private static void verify(TaskService taskService, StatisticsService statisticsService, Date base,
+                               List<String> sharedIds) {
+        int survivors = 0;
+        int moved = 0;
+        int completed = 0;
+        for (int i = 0; i < WRITER_TASKS; i++) {
+            if (i % 5 != 0) {
+                survivors++;
+                moved += i % 3 == 0 ? 1 : 0;
+                completed += i % 7 == 0 ? 1 : 0;
+            }
+        }
+        List<Task> all = taskService.getAllTasks();
+        int expected = WRITERS * survivors + SHARED_TASKS;
+        checkEquals(expected, all.size(), "任务总数");
+        checkEquals(expected, taskService.getTaskCount(), "getTaskCount");
+        checkEquals(expected, taskService.readColumns(TaskColumns::size), "列存储行数");
+
+        // 没有丢失更新：共享任务的计数之和等于加1的总次数
+        int increments = 0;
+        for (String id : sharedIds) {
+            increments += taskService.getTaskById(id).getReminderMinutes();
+        }
+        checkEquals(WRITERS * INCREMENTS_PER_WRITER, increments, "共享任务的加1次数");
+
+        // 项目、日期索引和列存储统计与逐个扫描一致
+        int scannedMoved = 0;
+        int scannedCompleted = 0;
+        Set<String> scannedToday = new HashSet<>();
+        for (Task task : all) {
+            if ("moved".equals(task.getProjectId())) {
+                scannedMoved++;
+            }
+            if (task.getStatus() == Task.TaskStatus.COMPLETED) {
+                scannedCompleted++;
+            }
+            if (sameDay(task.getStartTime(), base)) {
+                scannedToday.add(task.getId());
+            }
+        }
+        checkEquals(WRITERS * moved, scannedMoved, "移到moved项目的任务数");
+        checkEquals(WRITERS * completed, scannedCompleted, "已完成任务数");
+        checkEquals(scannedMoved, taskService.getTasksByProject("moved").size(), "项目索引");
+        for (int w = 0; w < WRITERS; w++) {
+            checkEquals(survivors - moved, taskService.getTasksByProject("p" + w).size(), "项目p" + w + "的索引");
+        }
+        Set<String> indexedToday = new HashSet<>();
+        for (Task task : taskService.getTasksByDate(base)) {
+            indexedToday.add(task.getId());
+        }
+        check(!scannedToday.isEmpty() && indexedToday.equals(scannedToday), "日期索引与扫描结果不一致");
+        Map<Task.Priority, Integer> byPriority = statisticsService.getTaskCountByPriority();
+        int scannedUrgent = 0;
+        for (Task task : all) {
+            scannedUrgent += task.getPriority() == Task.Priority.URGENT ? 1 : 0;
+        }
+        checkEquals(scannedUrgent, byPriority.get(Task.Priority.URGENT), "按优先级统计");
+    }
+
+    private static boolean sameDay(Date a, Date b) {
+        Calendar x = Calendar.getInstance();
+        Calendar y = Calendar.getInstance();
+        x.setTime(a);
+        y.setTime(b);
+        return x.get(Calendar.YEAR) == y.get(Calendar.YEAR)
+                && x.get(Calendar.DAY_OF_YEAR) == y.get(Calendar.DAY_OF_YEAR);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void checkEquals(long expected, long actual, String what) {
+        if (expected != actual) {
+            throw new AssertionError(what + "：期望 " + expected + "，实际 " + actual);
+        }
+    }
+}
@@ -1,23 +1,48 @@
 package com.schedule.model;
 
+import com.schedule.util.Clock;
+
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 提醒类 - 处理任务的提醒功能
+ * 提醒状态和提醒时间一起保存在一个原子变量中：到期的提醒要先用tryClaim()从PENDING/SNOOZED原子地改为CLAIMED，
+ * 成功的一方才能弹出提醒，因此无论有多少个检查线程、上一次的提醒对话框是否还没关闭，同一个提醒都只会送达一次
+ * 状态和时间作为一个整体替换，snooze失败时提醒时间不会改变，检查线程也不会看到新状态配旧时间
+ * 状态转换：PENDING/SNOOZED -> CLAIMED -> DELIVERED（或release回到PENDING），CLAIMED/DELIVERED -> SNOOZED，
+ * 任何未送达的状态都可以cancel为CANCELLED
  */
 public class Reminder {
-    private String id;          // 提醒ID
-    private Task task;          // 关联的任务
-    private Date reminderTime;  // 提醒时间
-    private boolean notified;   // 是否已通知
+    // 提醒状态枚举
+    public enum State {
+        PENDING,    // 等待到期
+        CLAIMED,    // 已被某个线程领取，正在提醒
+        DELIVERED,  // 已送达
+        SNOOZED,    // 稍后再提醒，到新的提醒时间后可再次领取
+        CANCELLED   // 已取消（任务已删除或已延迟）
+    }
+
+    // 某一时刻的状态和提醒时间，不可变
+    private static final class Status {
+        final State state;
+        final long reminderMillis;
+
+        Status(State state, long reminderMillis) {
+            this.state = state;
+            this.reminderMillis = reminderMillis;
+        }
+    }
+
+    private String id;                   // 提醒ID
+    private volatile Task task;          // 关联的任务
+    private final AtomicReference<Status> status;
 
     public Reminder(String id, Task task) {
         this.id = id;
         this.task = task;
         // 计算提醒时间（任务开始时间减去提前提醒的分钟数）
-        long reminderMillis = task.getStartTime().getTime() - (task.getReminderMinutes() * 60 * 1000);
-        this.reminderTime = new Date(reminderMillis);
-        this.notified = false;
+        this.status = new AtomicReference<>(new Status(State.PENDING, reminderMillisOf(task)));
     }
 
     // getter和setter方法
@@ -36,36 +61,131 @@ public class Reminder {
     public void setTask(Task task) {
         this.task = task;
         // 更新提醒时间
-        long reminderMillis = task.getStartTime().getTime() - (task.getReminderMinutes() * 60 * 1000);
-        this.reminderTime = new Date(reminderMillis);
+        setReminderMillis(reminderMillisOf(task));
     }
 
     public Date getReminderTime() {
-        return reminderTime;
+        return new Date(status.get().reminderMillis);
     }
 
     public void setReminderTime(Date reminderTime) {
-        this.reminderTime = reminderTime;
+        setReminderMillis(reminderTime.getTime());
+    }
+
+    public State getState() {
+        return status.get().state;
     }
 
+    // 是否已送达或已取消（不会再提醒）
     public boolean isNotified() {
-        return notified;
+        State current = getState();
+        return current == State.DELIVERED || current == State.CANCELLED;
     }
 
+    // 直接标记为已送达，或重新设为等待提醒
     public void setNotified(boolean notified) {
-        this.notified = notified;
+        State target = notified ? State.DELIVERED : State.PENDING;
+        status.updateAndGet(current -> new Status(target, current.reminderMillis));
     }
 
     // 检查是否需要提醒
     public boolean shouldRemind() {
-        Date now = new Date();
-        return !notified && now.after(reminderTime) && task.getStatus() != Task.TaskStatus.COMPLETED;
+        return shouldRemind(Clock.get().millis());
+    }
+
+    // 检查在指定时刻（毫秒）是否需要提醒，批量检查时传入同一个时刻
+    public boolean shouldRemind(long now) {
+        return isDue(status.get(), now);
+    }
+
+    /**
+     * 领取到期的提醒：状态为PENDING或SNOOZED且已到提醒时间时原子地改为CLAIMED
+     * 返回true的调用方负责提醒用户，之后调用markDelivered、snooze或release
+     */
+    public boolean tryClaim() {
+        return tryClaim(Clock.get().millis());
+    }
+
+    public boolean tryClaim(long now) {
+        while (true) {
+            Status current = status.get();
+            if (!isDue(current, now)) {
+                return false;
+            }
+            if (status.compareAndSet(current, new Status(State.CLAIMED, current.reminderMillis))) {
+                return true;
+            }
+        }
+    }
+
+    // 提醒已送达，返回false表示提醒在此期间已被取消
+    public boolean markDelivered() {
+        return transition(State.CLAIMED, State.DELIVERED);
+    }
+
+    // 稍后再提醒（正在提醒或已送达时）：从现在起minutes分钟后可再次领取
+    // 新的提醒时间与SNOOZED状态一起写入，返回false时提醒保持原状
+    public boolean snooze(int minutes) {
+        long snoozeUntil = Clock.get().millis() + minutes * 60 * 1000L;
+        while (true) {
+            Status current = status.get();
+            if (current.state != State.CLAIMED && current.state != State.DELIVERED) {
+                return false;
+            }
+            if (status.compareAndSet(current, new Status(State.SNOOZED, snoozeUntil))) {
+                return true;
+            }
+        }
+    }
+
+    // 未能提醒用户（例如界面已关闭），放回等待状态，下次检查时重新领取
+    public boolean release() {
+        return transition(State.CLAIMED, State.PENDING);
+    }
+
+    // 取消提醒，已送达的提醒保持不变
+    public boolean cancel() {
+        while (true) {
+            Status current = status.get();
+            if (current.state == State.DELIVERED || current.state == State.CANCELLED) {
+                return false;
+            }
+            if (status.compareAndSet(current, new Status(State.CANCELLED, current.reminderMillis))) {
+                return true;
+            }
+        }
     }
 
     // 更新提醒时间（根据任务的提前提醒分钟数）
     public void updateReminderTime() {
-        long reminderMillis = task.getStartTime().getTime() - (task.getReminderMinutes() * 60 * 1000);
-        this.reminderTime = new Date(reminderMillis);
+        setReminderMillis(reminderMillisOf(task));
+    }
+
+    private boolean isDue(Status current, long now) {
+        return (current.state == State.PENDING || current.state == State.SNOOZED)
+                && now > current.reminderMillis && task.getStatus() != Task.TaskStatus.COMPLETED;
+    }
+
+    // 状态为from时改为to，提醒时间不变
+    private boolean transition(State from, State to) {
+        while (true) {
+            Status current = status.get();
+            if (current.state != from) {
+                return false;
+            }
+            if (status.compareAndSet(current, new Status(to, current.reminderMillis))) {
+                return true;
+            }
+        }
+    }
+
+    // 只修改提醒时间，状态不变
+    private void setReminderMillis(long reminderMillis) {
+        status.updateAndGet(current -> new Status(current.state, reminderMillis));
+    }
+
+    private static long reminderMillisOf(Task task) {
+        return task.getStartTime().getTime() - (task.getReminderMinutes() * 60 * 1000L);
     }
 
     @Override
@@ -83,6 +203,6 @@ public class Reminder {
 
     @Override
     public String toString() {
-        return "提醒: " + task.getName() + " (" + reminderTime + ")";
+        return "提醒: " + task.getName() + " (" + getReminderTime() + ")";
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.schedule.model;
 
+import com.schedule.util.Clock;
+
 import java.util.Date;
 
 /**
  * 任务类 - 表示日程安排中的任务
+ * version是TaskService在每次修改任务时更新的版本戳，用于乐观并发控制（见TaskService.update）
  */
 public class Task {
     // 任务状态枚举
@@ -72,6 +75,7 @@ public class Task {
     private TaskType type;          // 任务类型
     private Project project;        // 所属项目
     private int reminderMinutes;    // 提前提醒分钟数（如30分钟）
+    private long version;           // 版本戳，由TaskService在每次修改时更新
 
     public Task(String id, String name, Date startTime, Date endTime, Priority priority, TaskType type, Project project) {
         this.id = id;
@@ -167,24 +171,53 @@ public class Task {
         this.reminderMinutes = reminderMinutes;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    // 复制当前任务（包括版本戳），所属项目对象与原任务共用
+    public Task copy() {
+        Task copy = new Task(id, name, startTime != null ? new Date(startTime.getTime()) : null,
+                endTime != null ? new Date(endTime.getTime()) : null, priority, type, project);
+        copy.content = content;
+        copy.status = status;
+        copy.reminderMinutes = reminderMinutes;
+        copy.version = version;
+        return copy;
+    }
+
     // 判断任务是否过期
     public boolean isOverdue() {
-        Date now = new Date();
-        return status != TaskStatus.COMPLETED && now.after(endTime);
+        return isOverdue(Clock.get().millis());
+    }
+
+    // 判断任务在指定时刻（毫秒）是否过期，批量判断时传入同一个时刻，不必每次创建Date
+    public boolean isOverdue(long now) {
+        return status != TaskStatus.COMPLETED && now > endTime.getTime();
     }
 
     // 判断任务是否即将开始（在提醒时间范围内）
     public boolean isUpcoming() {
-        Date now = new Date();
-        long diff = startTime.getTime() - now.getTime();
+        return isUpcoming(Clock.get().millis());
+    }
+
+    public boolean isUpcoming(long now) {
+        long diff = startTime.getTime() - now;
         long reminderTime = reminderMinutes * 60 * 1000; // 转换为毫秒
         return status != TaskStatus.COMPLETED && diff > 0 && diff <= reminderTime;
     }
 
     // 计算剩余时间（以毫秒为单位）
     public long getRemainingTime() {
-        Date now = new Date();
-        return endTime.getTime() - now.getTime();
+        return getRemainingTime(Clock.get().millis());
+    }
+
+    public long getRemainingTime(long now) {
+        return endTime.getTime() - now;
     }
 
     @Override
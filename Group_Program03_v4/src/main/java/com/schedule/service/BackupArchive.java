@@ -0,0 +1,609 @@
+package com.schedule.service;
+
+import com.schedule.model.Project;
+import com.schedule.model.Task;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 备份归档 - 分块压缩的二进制备份文件格式
+ * 文件结构：文件头 | 项目块 | 任务块 ... | 块索引（文件尾）| 索引偏移 | 结束标记
+ * 每个任务块包含至多blockSize个任务，独立用Deflater压缩，因此可以在ForkJoinPool上并行压缩和解压；
+ * 压缩好的块按顺序流式写入磁盘，同时在途的块数量有上限，不会把整个备份放在内存里
+ * 写入前任务按项目和开始时间排序，块索引记录每块包含的项目ID和时间范围，选择性恢复时只读取可能匹配的块
+ */
+public class BackupArchive {
+    public static final String FILE_SUFFIX = ".sbak";
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final int MAGIC = 0x5342414B;   // "SBAK"
+    private static final int END_MAGIC = 0x4B414253; // "KABS"
+    private static final int FORMAT_VERSION = 2; // 版本2在块索引中增加项目ID和时间范围
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // 按项目、开始时间排序，使同一项目、相近时间的任务落在同一块中
+    private static final Comparator<Task> BLOCK_ORDER = Comparator
+            .comparing((Task task) -> task.getProject() != null ? task.getProject().getId() : "")
+            .thenComparingLong(task -> task.getStartTime() != null ? task.getStartTime().getTime() : Long.MIN_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+
+    public BackupArchive() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
+    }
+
+    public BackupArchive(ForkJoinPool pool, int blockSize) {
+        this.pool = pool;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 写入备份归档（先写临时文件，完成后原子替换）
+     * @return 归档摘要，供备份清单登记
+     */
+    public Summary write(Path file, List<Task> tasks, List<Project> projects) throws IOException {
+        return write(file, tasks, projects, new IoThrottle(0));
+    }
+
+    /**
+     * 写入备份归档，写磁盘的速度受throttle限制（压缩不受限制，但在途块数有上限，会随写入一起放慢）
+     * 写入失败或被中断时删除临时文件
+     */
+    public Summary write(Path file, List<Task> tasks, List<Project> projects, IoThrottle throttle) throws IOException {
+        List<Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(BLOCK_ORDER);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<BlockInfo> index = new ArrayList<>();
+        CRC32 checksum = new CRC32();
+        long createdAt = System.currentTimeMillis();
+        long size;
+        try {
+            size = writeTemp(temp, ordered, projects, createdAt, index, checksum, throttle);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Summary(createdAt, size, tasks.size(), checksum.getValue());
+    }
+
+    private long writeTemp(Path temp, List<Task> ordered, List<Project> projects, long createdAt,
+                           List<BlockInfo> index, CRC32 checksum, IoThrottle throttle) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(20);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(blockSize).putLong(createdAt);
+            writeFully(channel, header.flip(), checksum, throttle);
+
+            // 项目块
+            Block projectBlock = compress(encodeProjects(projects), projects.size());
+            BlockInfo projectInfo = writeBlock(channel, projectBlock, checksum, throttle);
+
+            // 任务块：并行压缩，按顺序写出；最多同时有2倍并行度的块在途
+            int inFlight = Math.max(2, pool.getParallelism() * 2);
+            Deque<CompletableFuture<Block>> queue = new ArrayDeque<>();
+            for (int from = 0; from < ordered.size(); from += blockSize) {
+                List<Task> chunk = ordered.subList(from, Math.min(ordered.size(), from + blockSize));
+                queue.addLast(CompletableFuture.supplyAsync(() -> taskBlock(chunk), pool));
+                if (queue.size() >= inFlight) {
+                    index.add(writeBlock(channel, join(queue.removeFirst()), checksum, throttle));
+                }
+            }
+            while (!queue.isEmpty()) {
+                index.add(writeBlock(channel, join(queue.removeFirst()), checksum, throttle));
+            }
+
+            // 块索引
+            long indexOffset = channel.position();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            projectInfo.writeTo(out);
+            out.writeInt(index.size());
+            for (BlockInfo info : index) {
+                info.writeTo(out);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(END_MAGIC);
+            out.flush();
+            writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()), checksum, throttle);
+            channel.force(false);
+            return channel.size();
+        }
+    }
+
+    /**
+     * 读取归档摘要：备份时间和任务数来自文件头和块索引，校验和需要顺序读取整个文件
+     * 用于备份清单丢失时重建
+     */
+    public Summary readSummary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readAt(channel, 0, 20);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("不是有效的备份归档: " + file);
+            }
+            int version = header.getInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("不支持的备份归档版本: " + version);
+            }
+            header.getInt(); // 块大小
+            long createdAt = header.getLong();
+
+            long size = channel.size();
+            ByteBuffer tail = readAt(channel, size - 12, 12);
+            long indexOffset = tail.getLong();
+            if (tail.getInt() != END_MAGIC) {
+                throw new IOException("备份归档不完整: " + file);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    readAt(channel, indexOffset, (int) (size - 12 - indexOffset)).array()));
+            BlockInfo.readFrom(in, version); // 项目块
+            int blockCount = in.readInt();
+            int taskCount = 0;
+            for (int i = 0; i < blockCount; i++) {
+                taskCount += BlockInfo.readFrom(in, version).count;
+            }
+
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                checksum.update(buffer.flip());
+                buffer.clear();
+                position += read;
+            }
+            return new Summary(createdAt, size, taskCount, checksum.getValue());
+        }
+    }
+
+    /**
+     * 读取备份归档，任务块在ForkJoinPool上并行解压
+     */
+    public Contents read(Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * 读取备份归档中满足条件的任务，块索引显示不可能匹配的块不会被读取和解压
+     * @param filter 过滤条件，null表示读取全部任务
+     */
+    public Contents read(Path file, RestoreFilter filter) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readAt(channel, 0, 20);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("不是有效的备份归档: " + file);
+            }
+            int version = header.getInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("不支持的备份归档版本: " + version);
+            }
+
+            // 从文件尾读取块索引
+            long size = channel.size();
+            ByteBuffer tail = readAt(channel, size - 12, 12);
+            long indexOffset = tail.getLong();
+            if (tail.getInt() != END_MAGIC) {
+                throw new IOException("备份归档不完整: " + file);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    readAt(channel, indexOffset, (int) (size - 12 - indexOffset)).array()));
+            BlockInfo projectInfo = BlockInfo.readFrom(in, version);
+            int blockCount = in.readInt();
+            List<BlockInfo> index = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                BlockInfo info = BlockInfo.readFrom(in, version);
+                if (filter == null || filter.mayMatchBlock(info.projectIds, info.minTime, info.maxTime)) {
+                    index.add(info);
+                }
+            }
+
+            // 先恢复项目，任务按项目ID关联到这些对象
+            Map<String, Project> projects = new LinkedHashMap<>();
+            for (Project project : decodeProjects(inflate(readBlock(channel, projectInfo), projectInfo))) {
+                projects.put(project.getId(), project);
+            }
+
+            // 读块是顺序I/O，解压和解码并行
+            List<CompletableFuture<List<Task>>> futures = new ArrayList<>(index.size());
+            for (BlockInfo info : index) {
+                byte[] compressed = readBlock(channel, info);
+                futures.add(CompletableFuture.supplyAsync(() -> decodeTasks(inflate(compressed, info), projects), pool));
+            }
+            List<Task> tasks = new ArrayList<>();
+            for (CompletableFuture<List<Task>> future : futures) {
+                for (Task task : join(future)) {
+                    if (filter == null || filter.matches(task)) {
+                        tasks.add(task);
+                    }
+                }
+            }
+            return new Contents(tasks, new ArrayList<>(projects.values()), index.size(), blockCount);
+        }
+    }
+
+    // 编码任务列表，字段依次为：ID、名称、内容、开始、截止、优先级、状态、类型、项目ID、提醒分钟数
+    private static byte[] encodeTasks(List<Task> tasks) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(tasks.size() * 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Task task : tasks) {
+                writeString(out, task.getId());
+                writeString(out, task.getName());
+                writeString(out, task.getContent());
+                out.writeLong(task.getStartTime() != null ? task.getStartTime().getTime() : NO_TIME);
+                out.writeLong(task.getEndTime() != null ? task.getEndTime().getTime() : NO_TIME);
+                out.writeByte(ordinal(task.getPriority()));
+                out.writeByte(ordinal(task.getStatus()));
+                out.writeByte(ordinal(task.getType()));
+                writeString(out, task.getProject() != null ? task.getProject().getId() : null);
+                out.writeInt(task.getReminderMinutes());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Task> decodeTasks(byte[] raw, Map<String, Project> projects) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            List<Task> tasks = new ArrayList<>();
+            while (in.available() > 0) {
+                String id = readString(in);
+                String name = readString(in);
+                String content = readString(in);
+                long start = in.readLong();
+                long end = in.readLong();
+                Task.Priority priority = fromOrdinal(Task.Priority.values(), in.readByte());
+                Task.TaskStatus status = fromOrdinal(Task.TaskStatus.values(), in.readByte());
+                Task.TaskType type = fromOrdinal(Task.TaskType.values(), in.readByte());
+                String projectId = readString(in);
+                int reminderMinutes = in.readInt();
+
+                Task task = new Task(id, name, start != NO_TIME ? new Date(start) : null,
+                        end != NO_TIME ? new Date(end) : null, priority, type,
+                        projectId != null ? projects.get(projectId) : null);
+                task.setContent(content);
+                task.setStatus(status);
+                task.setReminderMinutes(reminderMinutes);
+                tasks.add(task);
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encodeProjects(List<Project> projects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Project project : projects) {
+            writeString(out, project.getId());
+            writeString(out, project.getName());
+            writeString(out, project.getDescription());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<Project> decodeProjects(byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<Project> projects = new ArrayList<>();
+        while (in.available() > 0) {
+            projects.add(new Project(readString(in), readString(in), readString(in)));
+        }
+        return projects;
+    }
+
+    // 编码并压缩一个任务块，同时统计块中的项目ID和时间范围
+    private static Block taskBlock(List<Task> chunk) {
+        Block block = compress(encodeTasks(chunk), chunk.size());
+        Set<String> projectIds = new HashSet<>();
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (Task task : chunk) {
+            projectIds.add(task.getProject() != null ? task.getProject().getId() : null);
+            for (Date time : new Date[] {task.getStartTime(), task.getEndTime()}) {
+                if (time != null) {
+                    minTime = Math.min(minTime, time.getTime());
+                    maxTime = Math.max(maxTime, time.getTime());
+                }
+            }
+        }
+        block.projectIds = projectIds;
+        block.minTime = minTime;
+        block.maxTime = maxTime;
+        return block;
+    }
+
+    private static Block compress(byte[] raw, int count) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            CRC32 crc = new CRC32();
+            crc.update(raw);
+            return new Block(out.toByteArray(), raw.length, count, (int) crc.getValue());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, BlockInfo info) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[info.rawLength];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += n;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, length);
+            if (length != raw.length || (int) crc.getValue() != info.crc) {
+                throw new UncheckedIOException(new IOException("备份块校验失败，偏移: " + info.offset));
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("备份块数据损坏，偏移: " + info.offset, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static BlockInfo writeBlock(FileChannel channel, Block block, CRC32 checksum,
+                                        IoThrottle throttle) throws IOException {
+        BlockInfo info = new BlockInfo(channel.position(), block.data.length, block.rawLength, block.count, block.crc,
+                block.minTime, block.maxTime, block.projectIds);
+        writeFully(channel, ByteBuffer.wrap(block.data), checksum, throttle);
+        return info;
+    }
+
+    private static byte[] readBlock(FileChannel channel, BlockInfo info) throws IOException {
+        return readAt(channel, info.offset, info.compressedLength).array();
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > channel.size()) {
+            throw new IOException("备份归档结构损坏");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("备份归档意外结束");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // 写出缓冲区内容，同时累计整个文件的校验和；按IoThrottle.CHUNK_SIZE分段限速
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, CRC32 checksum,
+                                   IoThrottle throttle) throws IOException {
+        checksum.update(buffer.duplicate());
+        int limit = buffer.limit();
+        while (buffer.position() < limit) {
+            buffer.limit(Math.min(limit, buffer.position() + IoThrottle.CHUNK_SIZE));
+            throttle.acquire(buffer.remaining());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.limit(limit);
+    }
+
+    // 等待异步结果，并把压缩/解压线程中的IO异常还原出来
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (java.util.concurrent.CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 字符串：长度（-1表示null）+ UTF-8字节，没有writeUTF的64KB限制
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : -1;
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    /**
+     * 归档摘要 - 备份时间、文件大小、任务数和整个文件的CRC32
+     */
+    public static class Summary {
+        private final long createdAt;
+        private final long size;
+        private final int taskCount;
+        private final long checksum;
+
+        public Summary(long createdAt, long size, int taskCount, long checksum) {
+            this.createdAt = createdAt;
+            this.size = size;
+            this.taskCount = taskCount;
+            this.checksum = checksum;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+    }
+
+    /**
+     * 备份归档中的任务和项目
+     */
+    public static class Contents {
+        private final List<Task> tasks;
+        private final List<Project> projects;
+        private final int blocksRead;   // 实际读取的任务块数
+        private final int blockCount;   // 归档中的任务块总数
+
+        public Contents(List<Task> tasks, List<Project> projects, int blocksRead, int blockCount) {
+            this.tasks = tasks;
+            this.projects = projects;
+            this.blocksRead = blocksRead;
+            this.blockCount = blockCount;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public List<Project> getProjects() {
+            return projects;
+        }
+
+        public int getBlocksRead() {
+            return blocksRead;
+        }
+
+        public int getBlockCount() {
+            return blockCount;
+        }
+    }
+
+    // 压缩后的块
+    private static final class Block {
+        final byte[] data;
+        final int rawLength;
+        final int count;
+        final int crc;
+        // 任务块的索引信息，项目块保持默认值（总是读取）
+        long minTime = Long.MIN_VALUE;
+        long maxTime = Long.MAX_VALUE;
+        Set<String> projectIds;
+
+        Block(byte[] data, int rawLength, int count, int crc) {
+            this.data = data;
+            this.rawLength = rawLength;
+            this.count = count;
+            this.crc = crc;
+        }
+    }
+
+    // 块索引项：块在文件中的位置、压缩前后长度、记录数、校验和，以及块中任务的时间范围和项目ID
+    private static final class BlockInfo {
+        final long offset;
+        final int compressedLength;
+        final int rawLength;
+        final int count;
+        final int crc;
+        final long minTime;
+        final long maxTime;
+        final Set<String> projectIds; // null表示未知（版本1的归档）
+
+        BlockInfo(long offset, int compressedLength, int rawLength, int count, int crc,
+                  long minTime, long maxTime, Set<String> projectIds) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.count = count;
+            this.crc = crc;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.projectIds = projectIds;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(offset);
+            out.writeInt(compressedLength);
+            out.writeInt(rawLength);
+            out.writeInt(count);
+            out.writeInt(crc);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            if (projectIds == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(projectIds.size());
+            for (String projectId : projectIds) {
+                writeString(out, projectId);
+            }
+        }
+
+        static BlockInfo readFrom(DataInputStream in, int version) throws IOException {
+            long offset = in.readLong();
+            int compressedLength = in.readInt();
+            int rawLength = in.readInt();
+            int count = in.readInt();
+            int crc = in.readInt();
+            if (version < 2) {
+                return new BlockInfo(offset, compressedLength, rawLength, count, crc, Long.MIN_VALUE, Long.MAX_VALUE, null);
+            }
+            long minTime = in.readLong();
+            long maxTime = in.readLong();
+            int projectCount = in.readInt();
+            Set<String> projectIds = null;
+            if (projectCount >= 0) {
+                projectIds = new HashSet<>();
+                for (int i = 0; i < projectCount; i++) {
+                    projectIds.add(readString(in));
+                }
+            }
+            return new BlockInfo(offset, compressedLength, rawLength, count, crc, minTime, maxTime, projectIds);
+        }
+    }
+}
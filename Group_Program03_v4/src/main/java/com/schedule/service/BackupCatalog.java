@@ -0,0 +1,227 @@
+package com.schedule.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 备份目录清单 - 以追加方式记录每个备份的ID（文件名）、时间、大小、任务数、校验和以及所依赖的上一个备份
+ * 列出、清理和选择备份时只读取清单，不再扫描备份目录、逐个读取文件修改时间
+ * 清单丢失时从备份文件重建；删除记录累积过多时把清单压缩重写一次
+ */
+public final class BackupCatalog {
+    public static final String MANIFEST_NAME = "catalog.manifest";
+    private static final String ADD = "+";
+    private static final String REMOVE = "-";
+    private static final int MIN_COMPACT_REMOVALS = 64;
+
+    private final Path directory;
+    private final Path manifest;
+    private final Predicate<String> backupNames; // 重建时识别备份文件名
+    private final EntryReader reader;            // 重建时从备份文件读取条目
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int removals; // 清单中的删除记录数
+
+    /**
+     * 从备份文件读取清单条目，用于重建清单
+     */
+    @FunctionalInterface
+    public interface EntryReader {
+        Entry read(Path file) throws IOException;
+    }
+
+    public BackupCatalog(Path directory, Predicate<String> backupNames, EntryReader reader) {
+        this.directory = directory;
+        this.manifest = directory.resolve(MANIFEST_NAME);
+        this.backupNames = backupNames;
+        this.reader = reader;
+        load();
+    }
+
+    /**
+     * 所有备份，最新的在前面
+     */
+    public synchronized List<Entry> list() {
+        return entries.values().stream()
+                .sorted(Comparator.comparingLong(Entry::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public synchronized Entry get(String id) {
+        return entries.get(id);
+    }
+
+    /**
+     * 登记一个新备份
+     */
+    public synchronized void add(Entry entry) {
+        entries.put(entry.getId(), entry);
+        append(format(entry));
+    }
+
+    /**
+     * 注销一个备份（不删除文件）
+     */
+    public synchronized void remove(String id) {
+        if (entries.remove(id) == null) {
+            return;
+        }
+        removals++;
+        if (removals > Math.max(MIN_COMPACT_REMOVALS, entries.size())) {
+            compact();
+        } else {
+            append(REMOVE + "\t" + id);
+        }
+    }
+
+    /**
+     * 扫描备份目录重新生成清单，用于清单丢失或与文件不一致时
+     */
+    public synchronized void rebuild() {
+        entries.clear();
+        List<Entry> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!backupNames.test(name)) {
+                    continue;
+                }
+                try {
+                    found.add(reader.read(file));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("无法读取备份文件，未加入清单: " + name + " (" + e.getMessage() + ")");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("扫描备份目录失败: " + e.getMessage());
+        }
+        found.sort(Comparator.comparingLong(Entry::getCreatedAt));
+        for (Entry entry : found) {
+            entries.put(entry.getId(), entry);
+        }
+        compact();
+    }
+
+    private void load() {
+        if (!Files.exists(manifest)) {
+            rebuild();
+            return;
+        }
+        boolean damaged = false;
+        try {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 2 && REMOVE.equals(fields[0])) {
+                    entries.remove(fields[1]);
+                    removals++;
+                } else if (fields.length == 7 && ADD.equals(fields[0])) {
+                    Entry entry = parse(fields);
+                    if (entry != null) {
+                        entries.put(entry.getId(), entry);
+                    } else {
+                        damaged = true;
+                    }
+                } else if (!line.isEmpty()) {
+                    damaged = true; // 例如写到一半的最后一行
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("读取备份清单失败，从备份文件重建: " + e.getMessage());
+            rebuild();
+            return;
+        }
+        if (damaged) {
+            compact();
+        }
+    }
+
+    private void append(String line) {
+        try {
+            Files.write(manifest, (line + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("写入备份清单失败: " + e.getMessage());
+        }
+    }
+
+    // 只保留现有条目重写清单（先写临时文件，再原子替换）
+    private void compact() {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            lines.add(format(entry));
+        }
+        Path temp = manifest.resolveSibling(MANIFEST_NAME + ".tmp");
+        try {
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            removals = 0;
+        } catch (IOException e) {
+            System.err.println("重写备份清单失败: " + e.getMessage());
+        }
+    }
+
+    private static String format(Entry entry) {
+        return String.join("\t", ADD, entry.getId(), Long.toString(entry.getCreatedAt()),
+                Long.toString(entry.getSize()), Integer.toString(entry.getTaskCount()),
+                Long.toHexString(entry.getChecksum()), entry.getParent() != null ? entry.getParent() : "");
+    }
+
+    private static Entry parse(String[] fields) {
+        try {
+            return new Entry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                    Integer.parseInt(fields[4]), Long.parseUnsignedLong(fields[5], 16),
+                    fields[6].isEmpty() ? null : fields[6]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清单条目 - 一个备份文件的摘要信息
+     */
+    public static final class Entry {
+        private final String id;        // 备份文件名
+        private final long createdAt;   // 备份时间（毫秒）
+        private final long size;        // 文件大小（字节）
+        private final int taskCount;    // 任务数，未知时为-1
+        private final long checksum;    // 整个文件的CRC32
+        private final String parent;    // 所依赖的上一个备份，独立备份为null
+
+        public Entry(String id, long createdAt, long size, int taskCount, long checksum, String parent) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.size = size;
+            this.taskCount = taskCount;
+            this.checksum = checksum;
+            this.parent = parent;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public String getParent() {
+            return parent;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.schedule.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 后台备份调度器 - 在单个低优先级守护线程上定期执行备份，写入速度由IoThrottle限制，避免拖慢界面和同一磁盘上的其他程序
+ * 到期时如果用户最近quietMillis内还在编辑，就每隔retryMillis推迟一次；推迟超过maxDeferMillis后跳过本次，等下一个周期
+ * 通过getMetrics()可以随时查看当前进度和最近一次运行的结果
+ */
+public class BackupScheduler {
+    public static final long DEFAULT_QUIET_MILLIS = 60 * 1000;
+    public static final long DEFAULT_RETRY_MILLIS = 30 * 1000;
+    public static final long DEFAULT_MAX_DEFER_MILLIS = 30 * 60 * 1000;
+
+    /**
+     * 一次备份，写文件时需要经过给定的限速器
+     */
+    @FunctionalInterface
+    public interface BackupJob {
+        boolean run(IoThrottle throttle) throws Exception;
+    }
+
+    private final BackupJob job;
+    private final LongSupplier lastActivity; // 用户最近一次编辑的时间（毫秒）
+    private final long intervalMillis;
+    private final long bytesPerSecond;
+    private long quietMillis = DEFAULT_QUIET_MILLIS;
+    private long retryMillis = DEFAULT_RETRY_MILLIS;
+    private long maxDeferMillis = DEFAULT_MAX_DEFER_MILLIS;
+    private ScheduledExecutorService executor;
+
+    // 调度状态
+    private volatile long dueAt;      // 本周期应执行的时间
+    private volatile long nextRunAt;  // 下一次检查的时间
+    // 运行统计
+    private volatile IoThrottle current; // 正在进行的备份的限速器，没有备份时为null
+    private volatile long lastStartTime;
+    private volatile long lastDurationMillis;
+    private volatile long lastBytesWritten;
+    private volatile boolean lastSuccess;
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong deferCount = new AtomicLong();
+    private final AtomicLong skipCount = new AtomicLong();
+
+    public BackupScheduler(BackupJob job, LongSupplier lastActivity, long intervalMillis, long bytesPerSecond) {
+        this.job = job;
+        this.lastActivity = lastActivity;
+        this.intervalMillis = intervalMillis;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * 设置编辑期间的推迟策略，需在start之前调用
+     */
+    public void setDeferPolicy(long quietMillis, long retryMillis, long maxDeferMillis) {
+        this.quietMillis = quietMillis;
+        this.retryMillis = retryMillis;
+        this.maxDeferMillis = maxDeferMillis;
+    }
+
+    /**
+     * 启动调度，第一次备份在initialDelayMillis之后，之后每intervalMillis一次
+     */
+    public synchronized void start(long initialDelayMillis) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backup-scheduler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        dueAt = System.currentTimeMillis() + initialDelayMillis;
+        scheduleAt(dueAt);
+    }
+
+    /**
+     * 停止调度，正在进行的备份会被中断
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return executor != null;
+    }
+
+    public Metrics getMetrics() {
+        IoThrottle throttle = current;
+        return new Metrics(throttle != null, throttle != null ? throttle.getBytesWritten() : 0,
+                nextRunAt, lastStartTime, lastDurationMillis, lastBytesWritten, lastSuccess,
+                runCount.get(), failureCount.get(), deferCount.get(), skipCount.get());
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        if (now - lastActivity.getAsLong() < quietMillis) {
+            if (now - dueAt < maxDeferMillis) {
+                deferCount.incrementAndGet();
+                scheduleAt(now + retryMillis);
+                return;
+            }
+            skipCount.incrementAndGet();
+        } else {
+            runBackup();
+        }
+        // 备份耗时超过一个周期或电脑休眠错过多个周期时，只补做一次
+        dueAt = Math.max(dueAt + intervalMillis, System.currentTimeMillis());
+        scheduleAt(dueAt);
+    }
+
+    private void runBackup() {
+        IoThrottle throttle = new IoThrottle(bytesPerSecond);
+        long start = System.currentTimeMillis();
+        current = throttle;
+        boolean success = false;
+        try {
+            success = job.run(throttle);
+        } catch (Exception e) {
+            System.err.println("自动备份失败: " + e.getMessage());
+        } finally {
+            current = null;
+            lastStartTime = start;
+            lastDurationMillis = System.currentTimeMillis() - start;
+            lastBytesWritten = throttle.getBytesWritten();
+            lastSuccess = success;
+            runCount.incrementAndGet();
+            if (!success) {
+                failureCount.incrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void scheduleAt(long time) {
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        nextRunAt = time;
+        executor.schedule(this::tick, Math.max(0, time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 调度器运行情况的快照
+     */
+    public static final class Metrics {
+        private final boolean running;
+        private final long bytesWritten;
+        private final long nextRunTime;
+        private final long lastStartTime;
+        private final long lastDurationMillis;
+        private final long lastBytesWritten;
+        private final boolean lastSuccess;
+        private final long runCount;
+        private final long failureCount;
+        private final long deferCount;
+        private final long skipCount;
+
+        Metrics(boolean running, long bytesWritten, long nextRunTime, long lastStartTime, long lastDurationMillis,
+                long lastBytesWritten, boolean lastSuccess, long runCount, long failureCount,
+                long deferCount, long skipCount) {
+            this.running = running;
+            this.bytesWritten = bytesWritten;
+            this.nextRunTime = nextRunTime;
+            this.lastStartTime = lastStartTime;
+            this.lastDurationMillis = lastDurationMillis;
+            this.lastBytesWritten = lastBytesWritten;
+            this.lastSuccess = lastSuccess;
+            this.runCount = runCount;
+            this.failureCount = failureCount;
+            this.deferCount = deferCount;
+            this.skipCount = skipCount;
+        }
+
+        /** 是否正在备份 */
+        public boolean isRunning() {
+            return running;
+        }
+
+        /** 正在进行的备份已写入的字节数 */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getNextRunTime() {
+            return nextRunTime;
+        }
+
+        public long getLastStartTime() {
+            return lastStartTime;
+        }
+
+        public long getLastDurationMillis() {
+            return lastDurationMillis;
+        }
+
+        public long getLastBytesWritten() {
+            return lastBytesWritten;
+        }
+
+        public boolean isLastSuccess() {
+            return lastSuccess;
+        }
+
+        public long getRunCount() {
+            return runCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        /** 因用户正在编辑而推迟的次数 */
+        public long getDeferCount() {
+            return deferCount;
+        }
+
+        /** 推迟过久而跳过的周期数 */
+        public long getSkipCount() {
+            return skipCount;
+        }
+    }
+}
@@ -9,29 +9,43 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * 备份服务类 - 负责数据备份和恢复
  * 对应功能5：数据备份与恢复
+ * 备份写成分块压缩的归档文件（见BackupArchive），压缩和解压在ForkJoinPool上并行进行；旧的.json备份仍可恢复
+ * 备份列表从备份清单（见BackupCatalog）读取，不扫描备份目录
+ * 备份从TaskService的O(1)快照读取任务，写文件期间界面和定时器可以继续修改数据
+ * 自动备份由BackupScheduler在低优先级线程上限速执行，用户正在编辑时推迟
  */
 public class BackupService {
     private TaskService taskService;
+    private BackupArchive archive;
+    private BackupCatalog catalog;
+    private BackupScheduler autoBackupScheduler;
     private static final String BACKUP_DIR = "backups";
     private static final String BACKUP_FILE_PREFIX = "schedule_backup_";
-    private static final String BACKUP_FILE_SUFFIX = ".json";
+    private static final String BACKUP_FILE_SUFFIX = BackupArchive.FILE_SUFFIX;
+    private static final String LEGACY_FILE_SUFFIX = ".json";
     private static final long AUTO_BACKUP_INTERVAL = 24 * 60 * 60 * 1000; // 24小时
+    private static final long AUTO_BACKUP_BYTES_PER_SECOND = 4L * 1024 * 1024; // 自动备份限速4MB/s
 
     public BackupService(TaskService taskService) {
         this.taskService = taskService;
+        this.archive = new BackupArchive();
         // 确保备份目录存在
         File backupDir = new File(BACKUP_DIR);
         if (!backupDir.exists()) {
             backupDir.mkdirs();
         }
+        this.catalog = new BackupCatalog(backupDir.toPath(), BackupService::isBackupFileName, this::readCatalogEntry);
     }
 
     /**
@@ -39,23 +53,39 @@ public class BackupService {
      * @return 备份文件路径，如果备份失败则返回null
      */
     public String backupData() {
-        try {
-            // 创建备份数据对象
-            BackupData backupData = new BackupData();
-            backupData.setTasks(taskService.getAllTasks());
-            backupData.setProjects(taskService.getAllProjects());
-            // 不单独备份提醒，因为TaskService在添加任务时会自动创建提醒
-            backupData.setBackupTime(new Date());
+        return backupData(new IoThrottle(0));
+    }
+
+    /**
+     * 备份数据到文件，写磁盘的速度受throttle限制
+     * @return 备份文件路径，如果备份失败则返回null
+     */
+    public String backupData(IoThrottle throttle) {
+        return writeBackup(taskService.snapshot(), taskService.getAllProjects(), throttle);
+    }
+
+    /**
+     * 在调用线程上取快照，在后台线程写备份文件，调用线程不等待写文件
+     * @return 完成时给出备份文件路径的Future，备份失败时结果为null
+     */
+    public CompletableFuture<String> backupDataAsync() {
+        TaskStore.Snapshot snapshot = taskService.snapshot();
+        List<Project> projects = taskService.getAllProjects();
+        return CompletableFuture.supplyAsync(() -> writeBackup(snapshot, projects, new IoThrottle(0)));
+    }
 
+    private String writeBackup(TaskStore.Snapshot snapshot, List<Project> projects, IoThrottle throttle) {
+        try {
             // 生成备份文件名
             SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
             String timestamp = dateFormat.format(new Date());
             String backupFileName = BACKUP_FILE_PREFIX + timestamp + BACKUP_FILE_SUFFIX;
             String backupFilePath = BACKUP_DIR + File.separator + backupFileName;
 
-            // 保存为JSON文件（Java 8兼容方式）
-            String jsonData = JsonUtil.toJson(backupData);
-            Files.write(Paths.get(backupFilePath), jsonData.getBytes(StandardCharsets.UTF_8));
+            // 不单独备份提醒，因为TaskService在添加任务时会自动创建提醒
+            BackupArchive.Summary summary = archive.write(Paths.get(backupFilePath), snapshot.values(), projects, throttle);
+            catalog.add(new BackupCatalog.Entry(backupFileName, summary.getCreatedAt(), summary.getSize(),
+                    summary.getTaskCount(), summary.getChecksum(), null));
 
             return backupFilePath;
         } catch (IOException e) {
@@ -70,6 +100,60 @@ public class BackupService {
      * @return 是否恢复成功
      */
     public boolean restoreFromBackup(String backupFilePath) {
+        if (!backupFilePath.endsWith(BACKUP_FILE_SUFFIX)) {
+            return restoreFromJsonBackup(backupFilePath);
+        }
+        try {
+            BackupArchive.Contents contents = archive.read(Paths.get(backupFilePath));
+            replaceAll(contents.getTasks(), contents.getProjects());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 从备份文件选择性恢复满足条件的任务，其余当前数据保持不变
+     * 已存在的任务用备份内容替换，不存在的任务重新添加；任务所属项目不存在时一并恢复
+     * @param backupFilePath 备份文件路径（仅支持分块归档）
+     * @param filter 按项目和时间范围挑选任务的条件
+     * @return 恢复的任务数，失败返回-1
+     */
+    public int restoreTasks(String backupFilePath, RestoreFilter filter) {
+        if (!backupFilePath.endsWith(BACKUP_FILE_SUFFIX)) {
+            System.err.println("选择性恢复只支持" + BACKUP_FILE_SUFFIX + "格式的备份: " + backupFilePath);
+            return -1;
+        }
+        try {
+            BackupArchive.Contents contents = archive.read(Paths.get(backupFilePath), filter);
+            Map<String, Project> liveProjects = new HashMap<>();
+            for (Project project : taskService.getAllProjects()) {
+                liveProjects.put(project.getId(), project);
+            }
+            for (Task task : contents.getTasks()) {
+                Project project = task.getProject();
+                if (project != null) {
+                    // 任务指向当前数据中的同名项目对象，缺失的项目从备份中补回
+                    Project live = liveProjects.get(project.getId());
+                    if (live == null) {
+                        live = taskService.addProject(project);
+                        liveProjects.put(live.getId(), live);
+                    }
+                    task.setProject(live);
+                }
+                // addTask在一次写锁内覆盖同ID的任务并取消其原来的提醒，任务不会有短暂缺失
+                taskService.addTask(task);
+            }
+            return contents.getTasks().size();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // 从旧版本的JSON备份文件恢复数据
+    private boolean restoreFromJsonBackup(String backupFilePath) {
         try {
             // 读取备份文件（Java 8兼容方式）
             String jsonData = new String(Files.readAllBytes(Paths.get(backupFilePath)), StandardCharsets.UTF_8);
@@ -79,27 +163,7 @@ public class BackupService {
                 return false;
             }
 
-            // 清空当前数据
-            // 通过删除所有任务和项目来清空数据
-            List<Task> allTasks = taskService.getAllTasks();
-            for (Task task : allTasks) {
-                taskService.deleteTask(task.getId());
-            }
-            
-            // 恢复项目
-            if (backupData.getProjects() != null) {
-                for (Project project : backupData.getProjects()) {
-                    taskService.addProject(project);
-                }
-            }
-
-            // 恢复任务（TaskService会自动创建提醒）
-            if (backupData.getTasks() != null) {
-                for (Task task : backupData.getTasks()) {
-                    taskService.addTask(task);
-                }
-            }
-
+            replaceAll(backupData.getTasks(), backupData.getProjects());
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -107,36 +171,98 @@ public class BackupService {
         }
     }
 
+    // 用备份中的任务和项目整体替换当前数据（TaskService会重新创建提醒）
+    private void replaceAll(List<Task> tasks, List<Project> projects) {
+        taskService.replaceAll(tasks, projects);
+    }
+
     /**
      * 列出所有备份文件
-     * @return 备份文件路径列表
+     * @return 备份文件路径列表，最新的在前面
      */
     public List<String> listBackupFiles() {
         File backupDir = new File(BACKUP_DIR);
-        File[] files = backupDir.listFiles((dir, name) -> name.startsWith(BACKUP_FILE_PREFIX) && name.endsWith(BACKUP_FILE_SUFFIX));
+        return catalog.list().stream()
+                .map(entry -> new File(backupDir, entry.getId()).getAbsolutePath())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 列出所有备份的清单条目，顺序与listBackupFiles一致
+     */
+    public List<BackupCatalog.Entry> listBackups() {
+        return catalog.list();
+    }
 
-        if (files == null) {
-            return Collections.emptyList();
+    /**
+     * 获取清单条目ID对应的备份文件路径
+     * @param backupId 清单条目ID（备份文件名）
+     */
+    public String getBackupFile(String backupId) {
+        return new File(BACKUP_DIR, backupId).getAbsolutePath();
+    }
+
+    /**
+     * 删除备份文件并从清单中注销
+     * @param backupFilePath 备份文件路径
+     * @return 是否删除成功
+     */
+    public boolean deleteBackup(String backupFilePath) {
+        File file = new File(backupFilePath);
+        if (file.exists() && !file.delete()) {
+            return false;
         }
+        catalog.remove(file.getName());
+        return true;
+    }
 
-        // 按修改时间排序，最新的在前面
-        return Arrays.stream(files)
-                .sorted(Comparator.comparingLong(File::lastModified).reversed())
-                .map(File::getAbsolutePath)
-                .collect(Collectors.toList());
+    // 备份清单丢失时，从备份文件读取清单条目
+    private BackupCatalog.Entry readCatalogEntry(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(BACKUP_FILE_SUFFIX)) {
+            BackupArchive.Summary summary = archive.readSummary(file);
+            return new BackupCatalog.Entry(name, summary.getCreatedAt(), summary.getSize(),
+                    summary.getTaskCount(), summary.getChecksum(), null);
+        }
+        // 旧的JSON备份不解析内容，任务数记为未知
+        byte[] data = Files.readAllBytes(file);
+        CRC32 checksum = new CRC32();
+        checksum.update(data);
+        return new BackupCatalog.Entry(name, Files.getLastModifiedTime(file).toMillis(), data.length,
+                -1, checksum.getValue(), null);
+    }
+
+    private static boolean isBackupFileName(String name) {
+        return name.startsWith(BACKUP_FILE_PREFIX)
+                && (name.endsWith(BACKUP_FILE_SUFFIX) || name.endsWith(LEGACY_FILE_SUFFIX));
     }
 
     /**
-     * 安排自动备份
+     * 安排自动备份：每AUTO_BACKUP_INTERVAL一次，限速写入，用户正在编辑时推迟
+     * 重复调用时先停止之前的调度
      */
-    public void scheduleAutoBackup() {
-        Timer timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                backupData();
-            }
-        }, AUTO_BACKUP_INTERVAL, AUTO_BACKUP_INTERVAL);
+    public synchronized void scheduleAutoBackup() {
+        stopAutoBackup();
+        autoBackupScheduler = new BackupScheduler(throttle -> backupData(throttle) != null,
+                taskService::getLastModifiedAt, AUTO_BACKUP_INTERVAL, AUTO_BACKUP_BYTES_PER_SECOND);
+        autoBackupScheduler.start(AUTO_BACKUP_INTERVAL);
+    }
+
+    /**
+     * 停止自动备份，正在进行的自动备份会被中断
+     */
+    public synchronized void stopAutoBackup() {
+        if (autoBackupScheduler != null) {
+            autoBackupScheduler.stop();
+            autoBackupScheduler = null;
+        }
+    }
+
+    /**
+     * 自动备份的进度和最近一次运行情况，未启动自动备份时返回null
+     */
+    public synchronized BackupScheduler.Metrics getAutoBackupMetrics() {
+        return autoBackupScheduler != null ? autoBackupScheduler.getMetrics() : null;
     }
 
     /**
@@ -0,0 +1,114 @@
+package com.schedule.service;
+
+import com.schedule.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 截止时间队列 - 按截止时间排序的最小堆，用于找出刚到期的任务，代价为O(k log n)，不必扫描全部任务
+ * 每个条目记录入队时任务的版本戳；任务被修改、完成或删除后旧条目不立即删除，取出时发现版本戳不一致就丢弃（延迟删除）
+ * 失效条目超过有效条目时整体重建，堆的大小与待截止的任务数同阶
+ * 非线程安全，由TaskService在写锁内访问
+ */
+public class DeadlineQueue {
+    private static final class Entry {
+        final long endTime;
+        final String taskId;
+        final long version;
+
+        Entry(long endTime, String taskId, long version) {
+            this.endTime = endTime;
+            this.taskId = taskId;
+            this.version = version;
+        }
+    }
+
+    private PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> Long.compare(a.endTime, b.endTime));
+    private int stale; // 已知失效的条目数（近似值，用于决定何时重建）
+
+    /**
+     * 登记任务的截止时间，已完成、已延迟或没有截止时间的任务不登记
+     * 同一任务再次登记时，之前的条目自动失效
+     */
+    public void add(Task task) {
+        if (!isPending(task)) {
+            return;
+        }
+        heap.add(new Entry(task.getEndTime().getTime(), task.getId(), task.getVersion()));
+    }
+
+    /**
+     * 标记任务之前的条目已失效（任务被修改或删除时调用），只用于统计何时重建
+     */
+    public void invalidate() {
+        stale++;
+    }
+
+    /**
+     * 取出截止时间早于now的所有有效任务
+     * @param current 根据任务ID获取当前任务，任务已删除时返回null
+     */
+    public List<Task> pollDue(long now, Function<String, Task> current) {
+        List<Task> due = new ArrayList<>();
+        while (!heap.isEmpty() && heap.peek().endTime < now) {
+            Entry entry = heap.poll();
+            Task task = valid(entry, current);
+            if (task != null) {
+                due.add(task);
+            } else if (stale > 0) {
+                stale--;
+            }
+        }
+        compactIfNeeded(current);
+        return due;
+    }
+
+    /**
+     * 最早的截止时间（可能属于已失效的条目），队列为空时返回Long.MAX_VALUE
+     */
+    public long peekTime() {
+        Entry first = heap.peek();
+        return first != null ? first.endTime : Long.MAX_VALUE;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public void clear() {
+        heap.clear();
+        stale = 0;
+    }
+
+    // 失效条目多于有效条目时，只保留有效条目重建堆
+    private void compactIfNeeded(Function<String, Task> current) {
+        if (stale <= heap.size() / 2) {
+            return;
+        }
+        PriorityQueue<Entry> rebuilt = new PriorityQueue<>(heap.comparator());
+        for (Entry entry : heap) {
+            if (valid(entry, current) != null) {
+                rebuilt.add(entry);
+            }
+        }
+        heap = rebuilt;
+        stale = 0;
+    }
+
+    private static Task valid(Entry entry, Function<String, Task> current) {
+        Task task = current.apply(entry.taskId);
+        // 任务对象可能在调用updateTask之前已被原地修改，截止时间也要一致
+        return task != null && task.getVersion() == entry.version && isPending(task)
+                && task.getEndTime().getTime() == entry.endTime ? task : null;
+    }
+
+    // 是否需要跟踪截止时间：未完成、未延迟且有截止时间
+    private static boolean isPending(Task task) {
+        return task.getEndTime() != null
+                && task.getStatus() != Task.TaskStatus.COMPLETED
+                && task.getStatus() != Task.TaskStatus.DELAYED;
+    }
+}
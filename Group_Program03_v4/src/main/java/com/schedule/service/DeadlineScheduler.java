@@ -0,0 +1,81 @@
+package com.schedule.service;
+
+import com.schedule.util.Clock;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 截止时间调度器 - 在最早的截止时间到达时调用TaskService.updateOverdueTasksStatus()，把刚到期的任务标记为已延迟
+ * 任何时候只安排一次唤醒；TaskService登记了更早的截止时间时通过deadlineAdded提前唤醒时间
+ * 调用TaskService时不持有本对象的锁（TaskService在写锁内会调用deadlineAdded，反过来持锁会死锁）
+ */
+public class DeadlineScheduler {
+    private final TaskService taskService;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt = Long.MAX_VALUE; // 已安排的唤醒时间
+
+    public DeadlineScheduler(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    /**
+     * 启动调度，并在调用线程上立即处理一次已经到期的任务
+     */
+    public void start() {
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "deadline-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        fire();
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            wakeUp = null;
+            wakeUpAt = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 登记了新的截止时间，比已安排的唤醒时间早时改为在该时间唤醒
+     */
+    public synchronized void deadlineAdded(long endTime) {
+        // 截止时间过后（晚于endTime）任务才算过期
+        scheduleAt(endTime + 1);
+    }
+
+    private void fire() {
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = Long.MAX_VALUE;
+        }
+        taskService.updateOverdueTasksStatus();
+        long next = taskService.getNextDeadline();
+        if (next != Long.MAX_VALUE) {
+            deadlineAdded(next);
+        }
+    }
+
+    private synchronized void scheduleAt(long time) {
+        if (executor == null || time >= wakeUpAt) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = time;
+        wakeUp = executor.schedule(this::fire, Math.max(0, time - Clock.get().millis()), TimeUnit.MILLISECONDS);
+    }
+}
@@ -4,6 +4,7 @@ import com.schedule.model.Project;
 import com.schedule.model.Task;
 import com.schedule.service.TaskService;
 import com.schedule.util.DateUtil;
+import com.schedule.util.IdGenerator;
 
 import java.io.*;
 import java.text.ParseException;
@@ -202,7 +203,7 @@ public class ExcelImportService {
         }
 
         // 创建新项目
-        Project newProject = new Project("project_" + System.currentTimeMillis(), projectName);
+        Project newProject = new Project(IdGenerator.newId("project"), projectName);
         taskService.addProject(newProject);
         return newProject;
     }
@@ -219,7 +220,7 @@ public class ExcelImportService {
             Task.TaskType type = getTaskTypeFromString(parts[4]);
 
             // 创建任务
-            Task task = new Task("task_import_" + System.currentTimeMillis(), name, startTime, endTime, priority, type, project);
+            Task task = new Task(IdGenerator.newId("task_import"), name, startTime, endTime, priority, type, project);
 
             // 设置任务内容（如果有）
             if (parts.length > 6) {
@@ -0,0 +1,60 @@
+package com.schedule.service;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * I/O限速器 - 按每秒字节数限制写入速度（令牌桶），同时统计已写入的字节数作为进度
+ * 写入方在每次写之前调用acquire，超出速率时在调用线程上休眠；空闲期间最多积累BURST_NANOS的额度
+ * 速率不大于0时不限速，只统计字节数
+ */
+public class IoThrottle {
+    /** 每次限速的最大写入量，大块数据应按此拆分后逐块写入，使速度平稳 */
+    public static final int CHUNK_SIZE = 64 * 1024;
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final long bytesPerSecond;
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private long nextFreeNanos = System.nanoTime(); // 之前写入的数据按限速应写完的时刻
+
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * 写入bytes个字节之前调用，必要时休眠到限速允许的时刻
+     */
+    public void acquire(int bytes) throws InterruptedIOException {
+        bytesWritten.addAndGet(bytes);
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long sleepNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            nextFreeNanos = Math.max(nextFreeNanos, now - BURST_NANOS)
+                    + TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+            sleepNanos = nextFreeNanos - now;
+        }
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("备份写入被中断");
+            }
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * 到目前为止写入（或正在写入）的字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+}
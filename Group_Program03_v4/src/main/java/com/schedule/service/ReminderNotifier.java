@@ -0,0 +1,202 @@
+package com.schedule.service;
+
+import com.schedule.model.Reminder;
+import com.schedule.model.Task;
+import com.schedule.util.DateUtil;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提醒通知管道 - 把短时间内领取到的提醒合并成一批，一次性交给各个输出端（界面、控制台、日志文件等）
+ * 第一个提醒到达后等待windowMillis再统一发出，窗口内同一提醒ID只保留一个；
+ * 每个输出端在各自的虚拟线程上执行，至少一个输出端成功时提醒标记为已送达，全部失败时放回等待状态，下次检查时重试
+ * 提交的提醒必须已由调用方领取（Reminder.tryClaim / TaskService.claimDueReminders）；没有输出端时调用方不应领取提醒
+ * （见hasSinks），否则提醒会在领取和放回之间反复循环
+ */
+public class ReminderNotifier {
+    public static final long DEFAULT_WINDOW_MILLIS = 2000;
+
+    /**
+     * 通知输出端，每次收到一整批提醒，应尽快返回（界面输出端只需把显示工作交给EDT）
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void deliver(List<Reminder> batch) throws Exception;
+    }
+
+    private final long windowMillis;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService deliverers = Executors.newVirtualThreadPerTaskExecutor();
+    private Map<String, Reminder> pending = new LinkedHashMap<>(); // 当前窗口内的提醒，按到达顺序保存
+
+    public ReminderNotifier() {
+        this(DEFAULT_WINDOW_MILLIS);
+    }
+
+    public ReminderNotifier(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addSink(Sink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(Sink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * 是否有输出端，没有时提醒无法送达，检查线程应跳过领取，提醒保持等待状态
+     */
+    public boolean hasSinks() {
+        return !sinks.isEmpty();
+    }
+
+    /**
+     * 提交已领取的提醒，窗口内的第一次提交负责安排本批的发送
+     */
+    public void submit(Collection<Reminder> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        boolean first;
+        synchronized (this) {
+            first = pending.isEmpty();
+            for (Reminder reminder : reminders) {
+                pending.putIfAbsent(reminder.getId(), reminder);
+            }
+        }
+        if (first) {
+            timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即发出当前窗口内的提醒
+     */
+    public void flush() {
+        List<Reminder> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+        }
+        deliverers.execute(() -> deliver(batch));
+    }
+
+    /**
+     * 停止管道，尚未发出的提醒放回等待状态
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        List<Reminder> unsent;
+        synchronized (this) {
+            unsent = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+        }
+        unsent.forEach(Reminder::release);
+        deliverers.shutdown();
+    }
+
+    // 在虚拟线程上并行调用所有输出端，等待全部完成后更新提醒状态
+    // 领取后输出端被全部移除时没有人收到提醒，同样放回等待状态
+    private void deliver(List<Reminder> batch) {
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (Sink sink : sinks) {
+            calls.add(() -> {
+                sink.deliver(batch);
+                return null;
+            });
+        }
+
+        boolean delivered = false;
+        try {
+            for (Future<Void> result : deliverers.invokeAll(calls)) {
+                try {
+                    result.get();
+                    delivered = true;
+                } catch (ExecutionException e) {
+                    System.err.println("提醒通知发送失败: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Reminder reminder : batch) {
+            if (delivered) {
+                reminder.markDelivered();
+            } else {
+                reminder.release();
+            }
+        }
+    }
+
+    /**
+     * 一个提醒的文字描述，供各输出端使用
+     */
+    public static String describe(Reminder reminder) {
+        Task task = reminder.getTask();
+        return task.getName() + "（开始时间：" + DateUtil.formatDate(task.getStartTime())
+                + "，优先级：" + task.getPriority() + "）";
+    }
+
+    /**
+     * 控制台输出端 - 整批一次输出，多个批次同时输出时不会交错
+     */
+    public static class ConsoleSink implements Sink {
+        @Override
+        public void deliver(List<Reminder> batch) {
+            StringBuilder text = new StringBuilder("任务提醒：" + batch.size() + " 个任务即将开始\n");
+            for (Reminder reminder : batch) {
+                text.append("  ").append(describe(reminder)).append('\n');
+            }
+            System.out.print(text);
+        }
+    }
+
+    /**
+     * 日志文件输出端 - 每个提醒追加一行
+     */
+    public static class LogFileSink implements Sink {
+        private final String filePath;
+
+        public LogFileSink(String filePath) {
+            this.filePath = filePath;
+        }
+
+        @Override
+        public synchronized void deliver(List<Reminder> batch) throws IOException {
+            String time = DateUtil.formatDate(new Date());
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, true))) {
+                for (Reminder reminder : batch) {
+                    writer.println(time + "\t" + reminder.getId() + "\t" + describe(reminder));
+                }
+            }
+        }
+    }
+}
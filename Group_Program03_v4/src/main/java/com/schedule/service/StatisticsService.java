@@ -1,18 +1,20 @@
 package com.schedule.service;
 
 import com.schedule.model.Task;
+import com.schedule.util.Clock;
 
 import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 统计服务类 - 提供数据统计功能
  * 对应功能4：数据统计
+ * 所有查询都在TaskService维护的列存储上以原始类型循环完成，不创建任务列表副本
  */
 public class StatisticsService {
+    private static final byte COMPLETED = (byte) Task.TaskStatus.COMPLETED.ordinal();
+
     private TaskService taskService;
 
     public StatisticsService(TaskService taskService) {
@@ -21,144 +23,181 @@ public class StatisticsService {
 
     // 获取本周完成的任务数量
     public int getCompletedTasksThisWeek() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_WEEK, cal.getFirstDayOfWeek());
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        Date startOfWeek = cal.getTime();
-        
-        List<Task> tasks = taskService.getAllTasks();
-        return (int) tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getEndTime().after(startOfWeek))
-                .count();
+        return countCompletedEndingAfter(getStartOfWeek(Clock.coarse().millis()));
     }
 
     // 获取本月完成的任务数量
     public int getCompletedTasksThisMonth() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        Date startOfMonth = cal.getTime();
-        
-        List<Task> tasks = taskService.getAllTasks();
-        return (int) tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getEndTime().after(startOfMonth))
-                .count();
+        return countCompletedEndingAfter(getStartOfMonth(Clock.coarse().millis()));
     }
 
     // 获取本周按类型统计的完成任务数量
     public Map<Task.TaskType, Integer> getCompletedTasksByTypeThisWeek() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_WEEK, cal.getFirstDayOfWeek());
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        Date startOfWeek = cal.getTime();
-        
-        List<Task> tasks = taskService.getAllTasks();
-        return tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getEndTime().after(startOfWeek))
-                .collect(Collectors.groupingBy(Task::getType, Collectors.summingInt(task -> 1)));
+        return countCompletedByTypeEndingAfter(getStartOfWeek(Clock.coarse().millis()));
     }
 
     // 获取本月按类型统计的完成任务数量
     public Map<Task.TaskType, Integer> getCompletedTasksByTypeThisMonth() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        Date startOfMonth = cal.getTime();
-        
-        List<Task> tasks = taskService.getAllTasks();
-        return tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getEndTime().after(startOfMonth))
-                .collect(Collectors.groupingBy(Task::getType, Collectors.summingInt(task -> 1)));
+        return countCompletedByTypeEndingAfter(getStartOfMonth(Clock.coarse().millis()));
     }
 
     // 计算任务延迟率（功能4：分析任务延迟率）
     public double getTaskDelayRate() {
-        List<Task> tasks = taskService.getAllTasks();
-        if (tasks.isEmpty()) {
-            return 0.0;
-        }
-        
-        // 计算已过期但未完成的任务数量
-        int overdueTasks = (int) tasks.stream()
-                .filter(Task::isOverdue)
-                .count();
-        
-        // 计算应该已完成的任务数量（截止时间在当前时间之前的任务）
-        Date now = new Date();
-        int shouldCompletedTasks = (int) tasks.stream()
-                .filter(task -> task.getEndTime().before(now))
-                .count();
-        
-        if (shouldCompletedTasks == 0) {
-            return 0.0;
-        }
-        
-        // 计算延迟率
-        return (double) overdueTasks / shouldCompletedTasks * 100;
+        long now = Clock.coarse().millis();
+        return taskService.readColumns(columns -> {
+            int n = columns.size();
+            if (n == 0) {
+                return 0.0;
+            }
+            
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            
+            // 已过期但未完成的任务数量，以及应该已完成的任务数量（截止时间在当前时间之前的任务）
+            int overdueTasks = 0;
+            int shouldCompletedTasks = 0;
+            for (int i = 0; i < n; i++) {
+                if (ends[i] != TaskColumns.NO_TIME && ends[i] < now) {
+                    shouldCompletedTasks++;
+                    if (statuses[i] != COMPLETED) {
+                        overdueTasks++;
+                    }
+                }
+            }
+            
+            if (shouldCompletedTasks == 0) {
+                return 0.0;
+            }
+            
+            // 计算延迟率
+            return (double) overdueTasks / shouldCompletedTasks * 100;
+        });
     }
 
     // 计算本周任务完成率
     public double getTaskCompletionRateThisWeek() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_WEEK, cal.getFirstDayOfWeek());
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        Date startOfWeek = cal.getTime();
-        
-        List<Task> tasks = taskService.getAllTasks();
-        
-        // 计算本周的任务数量
-        int weeklyTasks = (int) tasks.stream()
-                .filter(task -> task.getEndTime().after(startOfWeek))
-                .count();
-        
-        if (weeklyTasks == 0) {
-            return 0.0;
-        }
-        
-        // 计算本周已完成的任务数量
-        int completedWeeklyTasks = (int) tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getEndTime().after(startOfWeek))
-                .count();
-        
-        // 计算完成率
-        return (double) completedWeeklyTasks / weeklyTasks * 100;
+        long startOfWeek = getStartOfWeek(Clock.coarse().millis());
+        return taskService.readColumns(columns -> {
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            
+            // 计算本周的任务数量和其中已完成的数量
+            int weeklyTasks = 0;
+            int completedWeeklyTasks = 0;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                if (ends[i] > startOfWeek) {
+                    weeklyTasks++;
+                    if (statuses[i] == COMPLETED) {
+                        completedWeeklyTasks++;
+                    }
+                }
+            }
+            
+            if (weeklyTasks == 0) {
+                return 0.0;
+            }
+            
+            // 计算完成率
+            return (double) completedWeeklyTasks / weeklyTasks * 100;
+        });
     }
 
-    // 获取按优先级统计的任务数量
+    // 获取按优先级统计的任务数量（取各优先级位图的基数）
     public Map<Task.Priority, Integer> getTasksByPriority() {
-        List<Task> tasks = taskService.getAllTasks();
-        return tasks.stream()
-                .collect(Collectors.groupingBy(Task::getPriority, Collectors.summingInt(task -> 1)));
+        int[] counts = new int[Task.Priority.values().length];
+        for (Task.Priority priority : Task.Priority.values()) {
+            counts[priority.ordinal()] = taskService.countTasks(TaskFilter.forPriority(priority));
+        }
+        return toEnumMap(Task.Priority.class, counts);
     }
 
-    // 获取即将到来的任务数量（24小时内）
+    // 获取即将到来的任务数量（在各自的提醒时间范围内）
     public int getUpcomingTasksCount() {
-        List<Task> tasks = taskService.getAllTasks();
-        return (int) tasks.stream()
-                .filter(Task::isUpcoming)
-                .count();
+        long now = Clock.coarse().millis();
+        return taskService.readColumns(columns -> {
+            long[] starts = columns.start();
+            byte[] statuses = columns.status();
+            int[] reminderMinutes = columns.reminderMinutes();
+            int count = 0;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                long diff = starts[i] - now;
+                if (statuses[i] != COMPLETED && starts[i] != TaskColumns.NO_TIME
+                        && diff > 0 && diff <= reminderMinutes[i] * 60 * 1000L) {
+                    count++;
+                }
+            }
+            return count;
+        });
     }
 
-    // 获取当前进行中的任务数量
+    // 获取当前进行中的任务数量（取位图的基数）
     public int getInProgressTasksCount() {
-        List<Task> tasks = taskService.getAllTasks();
-        return (int) tasks.stream()
-                .filter(task -> task.getStatus() == Task.TaskStatus.IN_PROGRESS)
-                .count();
+        return taskService.countTasks(TaskFilter.forStatus(Task.TaskStatus.IN_PROGRESS));
+    }
+
+    // 统计截止时间晚于指定时刻的已完成任务数量
+    private int countCompletedEndingAfter(long from) {
+        return taskService.readColumns(columns -> {
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            int count = 0;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                if (statuses[i] == COMPLETED && ends[i] > from) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    // 按类型统计截止时间晚于指定时刻的已完成任务数量
+    private Map<Task.TaskType, Integer> countCompletedByTypeEndingAfter(long from) {
+        return taskService.readColumns(columns -> {
+            long[] ends = columns.end();
+            byte[] statuses = columns.status();
+            byte[] types = columns.type();
+            int[] counts = new int[Task.TaskType.values().length];
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                if (statuses[i] == COMPLETED && ends[i] > from && types[i] >= 0) {
+                    counts[types[i]]++;
+                }
+            }
+            return toEnumMap(Task.TaskType.class, counts);
+        });
+    }
+
+    // 将计数数组转换为枚举Map，只保留出现过的取值（与分组统计的结果一致）
+    private static <E extends Enum<E>> Map<E, Integer> toEnumMap(Class<E> enumType, int[] counts) {
+        Map<E, Integer> result = new EnumMap<>(enumType);
+        E[] constants = enumType.getEnumConstants();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(constants[i], counts[i]);
+            }
+        }
+        return result;
+    }
+
+    // 日期计算从统一的时钟读数开始，与延迟判断使用同一个当前时刻
+    private static long getStartOfWeek(long now) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(now);
+        cal.set(Calendar.DAY_OF_WEEK, cal.getFirstDayOfWeek());
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
+    }
+
+    private static long getStartOfMonth(long now) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(now);
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
     }
-}
\ No newline at end of file
+}
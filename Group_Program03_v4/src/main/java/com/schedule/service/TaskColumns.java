@@ -0,0 +1,304 @@
+package com.schedule.service;
+
+import com.schedule.model.Task;
+import com.schedule.util.LongIntHashMap;
+import com.schedule.util.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任务列存储 - 以结构数组（struct-of-arrays）形式保存统计所需的任务字段
+ * 每个任务占一行，由TaskService在增删改时增量维护；删除时用末行填补空位，保持各列紧凑
+ * 统计查询直接在原始数组上循环，不需要解引用Task和Date对象
+ * 状态、优先级、类型和项目的每个取值另有一个行号位图（RoaringBitmap），组合过滤为位图的与/或运算，计数直接取基数
+ */
+public class TaskColumns {
+    // 时间为空时的占位值
+    public static final long NO_TIME = Long.MIN_VALUE;
+    // 枚举或项目为空时的占位值
+    public static final byte NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;           // 行 -> 任务键
+    private long[] start;          // 开始时间（毫秒）
+    private long[] end;            // 截止时间（毫秒）
+    private byte[] status;         // 状态序号
+    private byte[] priority;       // 优先级序号
+    private byte[] type;           // 类型序号
+    private int[] projectIdx;      // 项目在字典中的下标
+    private int[] reminderMinutes; // 提前提醒分钟数
+    private int size;
+
+    private final LongIntHashMap rowOf;             // 任务键 -> 行号
+    private final Map<String, Integer> projectDict; // 项目ID -> 字典下标
+    private final List<String> projectIds;          // 字典下标 -> 项目ID
+
+    // 取值 -> 行号位图，随行的写入、删除和移动同步更新；取值为空的行不在位图中（无项目的行除外）
+    private final RoaringBitmap[] statusRows;
+    private final RoaringBitmap[] priorityRows;
+    private final RoaringBitmap[] typeRows;
+    private final List<RoaringBitmap> projectRows;  // 字典下标 -> 行号位图
+    private final RoaringBitmap noProjectRows;
+
+    public TaskColumns() {
+        this.rowOf = new LongIntHashMap(-1);
+        this.projectDict = new HashMap<>();
+        this.projectIds = new ArrayList<>();
+        this.statusRows = newBitmaps(Task.TaskStatus.values().length);
+        this.priorityRows = newBitmaps(Task.Priority.values().length);
+        this.typeRows = newBitmaps(Task.TaskType.values().length);
+        this.projectRows = new ArrayList<>();
+        this.noProjectRows = new RoaringBitmap();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 写入或更新任务所在的行
+     */
+    public void upsert(long key, Task task) {
+        int row = rowOf.get(key);
+        if (row < 0) {
+            if (size == keys.length) {
+                grow();
+            }
+            row = size++;
+            rowOf.put(key, row);
+            keys[row] = key;
+        } else {
+            index(row, false);
+        }
+        start[row] = task.getStartTime() != null ? task.getStartTime().getTime() : NO_TIME;
+        end[row] = task.getEndTime() != null ? task.getEndTime().getTime() : NO_TIME;
+        status[row] = task.getStatus() != null ? (byte) task.getStatus().ordinal() : NONE;
+        priority[row] = task.getPriority() != null ? (byte) task.getPriority().ordinal() : NONE;
+        type[row] = task.getType() != null ? (byte) task.getType().ordinal() : NONE;
+        projectIdx[row] = task.getProject() != null ? projectIndexOf(task.getProject().getId()) : NONE;
+        reminderMinutes[row] = task.getReminderMinutes();
+        index(row, true);
+    }
+
+    /**
+     * 删除任务所在的行
+     */
+    public void remove(long key) {
+        int row = rowOf.remove(key);
+        if (row < 0) {
+            return;
+        }
+        index(row, false);
+        int last = --size;
+        if (row != last) {
+            index(last, false);
+            keys[row] = keys[last];
+            start[row] = start[last];
+            end[row] = end[last];
+            status[row] = status[last];
+            priority[row] = priority[last];
+            type[row] = type[last];
+            projectIdx[row] = projectIdx[last];
+            reminderMinutes[row] = reminderMinutes[last];
+            rowOf.put(keys[row], row);
+            index(row, true);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        rowOf.clear();
+        for (RoaringBitmap rows : statusRows) {
+            rows.clear();
+        }
+        for (RoaringBitmap rows : priorityRows) {
+            rows.clear();
+        }
+        for (RoaringBitmap rows : typeRows) {
+            rows.clear();
+        }
+        projectRows.forEach(RoaringBitmap::clear);
+        noProjectRows.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 以下访问器直接返回内部数组，只有前size个元素有效，调用方不得修改
+    public long[] keys() {
+        return keys;
+    }
+
+    public long[] start() {
+        return start;
+    }
+
+    public long[] end() {
+        return end;
+    }
+
+    public byte[] status() {
+        return status;
+    }
+
+    public byte[] priority() {
+        return priority;
+    }
+
+    public byte[] type() {
+        return type;
+    }
+
+    public int[] projectIdx() {
+        return projectIdx;
+    }
+
+    public int[] reminderMinutes() {
+        return reminderMinutes;
+    }
+
+    /**
+     * 满足过滤条件的行号：同一属性的各取值位图求并集，各属性之间求交集
+     * 返回的位图可能就是内部的索引位图，调用方不得修改
+     */
+    public RoaringBitmap select(TaskFilter filter) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap rows : restrictions(filter)) {
+            result = result == null ? rows : RoaringBitmap.and(result, rows);
+        }
+        return result != null ? result : RoaringBitmap.range(size);
+    }
+
+    /**
+     * 满足过滤条件的行数，只做位图运算，最后一次求交集只计数不生成结果
+     */
+    public int count(TaskFilter filter) {
+        List<RoaringBitmap> restrictions = restrictions(filter);
+        if (restrictions.isEmpty()) {
+            return size;
+        }
+        RoaringBitmap result = restrictions.get(0);
+        for (int i = 1; i < restrictions.size() - 1; i++) {
+            result = RoaringBitmap.and(result, restrictions.get(i));
+        }
+        return restrictions.size() == 1 ? result.getCardinality()
+                : RoaringBitmap.andCardinality(result, restrictions.get(restrictions.size() - 1));
+    }
+
+    // 每个受限属性的取值位图并集，按基数从小到大排列（先与小的求交集）；返回的位图不得修改
+    private List<RoaringBitmap> restrictions(TaskFilter filter) {
+        List<RoaringBitmap> restrictions = new ArrayList<>(4);
+        if (filter.getStatuses() != null) {
+            restrictions.add(union(statusRows, filter.getStatuses()));
+        }
+        if (filter.getPriorities() != null) {
+            restrictions.add(union(priorityRows, filter.getPriorities()));
+        }
+        if (filter.getTypes() != null) {
+            restrictions.add(union(typeRows, filter.getTypes()));
+        }
+        if (filter.getProjectIds() != null) {
+            RoaringBitmap rows = new RoaringBitmap();
+            for (String projectId : filter.getProjectIds()) {
+                int index = projectId != null ? findProjectIndex(projectId) : NONE;
+                RoaringBitmap projectBitmap = projectId == null ? noProjectRows
+                        : index != NONE ? projectRows.get(index) : null;
+                if (projectBitmap != null) {
+                    rows = filter.getProjectIds().size() == 1 ? projectBitmap : RoaringBitmap.or(rows, projectBitmap);
+                }
+            }
+            restrictions.add(rows);
+        }
+        restrictions.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+        return restrictions;
+    }
+
+    private static <E extends Enum<E>> RoaringBitmap union(RoaringBitmap[] bitmaps, Set<E> values) {
+        if (values.size() == 1) {
+            return bitmaps[values.iterator().next().ordinal()];
+        }
+        RoaringBitmap rows = new RoaringBitmap();
+        for (E value : values) {
+            rows = RoaringBitmap.or(rows, bitmaps[value.ordinal()]);
+        }
+        return rows;
+    }
+
+    // 把行的当前取值加入位图或从位图中移除
+    private void index(int row, boolean add) {
+        update(status[row] != NONE ? statusRows[status[row]] : null, row, add);
+        update(priority[row] != NONE ? priorityRows[priority[row]] : null, row, add);
+        update(type[row] != NONE ? typeRows[type[row]] : null, row, add);
+        update(projectIdx[row] != NONE ? projectRows.get(projectIdx[row]) : noProjectRows, row, add);
+    }
+
+    private static void update(RoaringBitmap rows, int row, boolean add) {
+        if (rows == null) {
+            return;
+        }
+        if (add) {
+            rows.add(row);
+        } else {
+            rows.remove(row);
+        }
+    }
+
+    private static RoaringBitmap[] newBitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * 获取项目ID在字典中的下标
+     * @return 下标，项目从未出现过时返回-1
+     */
+    public int findProjectIndex(String projectId) {
+        Integer index = projectDict.get(projectId);
+        return index != null ? index : NONE;
+    }
+
+    public String getProjectId(int index) {
+        return projectIds.get(index);
+    }
+
+    private int projectIndexOf(String projectId) {
+        Integer index = projectDict.get(projectId);
+        if (index == null) {
+            index = projectIds.size();
+            projectIds.add(projectId);
+            projectDict.put(projectId, index);
+            projectRows.add(new RoaringBitmap());
+        }
+        return index;
+    }
+
+    private void grow() {
+        int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        start = Arrays.copyOf(start, capacity);
+        end = Arrays.copyOf(end, capacity);
+        status = Arrays.copyOf(status, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        type = Arrays.copyOf(type, capacity);
+        projectIdx = Arrays.copyOf(projectIdx, capacity);
+        reminderMinutes = Arrays.copyOf(reminderMinutes, capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        start = new long[capacity];
+        end = new long[capacity];
+        status = new byte[capacity];
+        priority = new byte[capacity];
+        type = new byte[capacity];
+        projectIdx = new int[capacity];
+        reminderMinutes = new int[capacity];
+    }
+}
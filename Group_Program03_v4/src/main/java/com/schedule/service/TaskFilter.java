@@ -0,0 +1,86 @@
+package com.schedule.service;
+
+import com.schedule.model.Task;
+import com.schedule.model.Task.Priority;
+import com.schedule.model.Task.TaskStatus;
+import com.schedule.model.Task.TaskType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 任务过滤条件 - 按状态、优先级、类型和项目组合过滤
+ * 每个属性的集合为null表示不限；同一属性的多个取值之间是“或”，不同属性之间是“与”
+ * TaskService在列存储的位图索引上求并集和交集，不逐个检查任务
+ */
+public class TaskFilter {
+    private final Set<TaskStatus> statuses;
+    private final Set<Priority> priorities;
+    private final Set<TaskType> types;
+    private final Set<String> projectIds; // 集合中的null表示无项目的任务
+
+    public TaskFilter(Collection<TaskStatus> statuses, Collection<Priority> priorities,
+                      Collection<TaskType> types, Collection<String> projectIds) {
+        this.statuses = statuses != null ? copyOf(TaskStatus.class, statuses) : null;
+        this.priorities = priorities != null ? copyOf(Priority.class, priorities) : null;
+        this.types = types != null ? copyOf(TaskType.class, types) : null;
+        this.projectIds = projectIds != null ? new HashSet<>(projectIds) : null;
+    }
+
+    // 只按状态过滤
+    public static TaskFilter forStatus(TaskStatus status) {
+        return new TaskFilter(Collections.singleton(status), null, null, null);
+    }
+
+    // 只按优先级过滤
+    public static TaskFilter forPriority(Priority priority) {
+        return new TaskFilter(null, Collections.singleton(priority), null, null);
+    }
+
+    public Set<TaskStatus> getStatuses() {
+        return statuses;
+    }
+
+    public Set<Priority> getPriorities() {
+        return priorities;
+    }
+
+    public Set<TaskType> getTypes() {
+        return types;
+    }
+
+    public Set<String> getProjectIds() {
+        return projectIds;
+    }
+
+    /**
+     * 是否没有任何限制
+     */
+    public boolean isUnrestricted() {
+        return statuses == null && priorities == null && types == null && projectIds == null;
+    }
+
+    /**
+     * 判断任务是否满足条件
+     */
+    public boolean matches(Task task) {
+        String projectId = task.getProject() != null ? task.getProject().getId() : null;
+        return (statuses == null || statuses.contains(task.getStatus()))
+                && (priorities == null || priorities.contains(task.getPriority()))
+                && (types == null || types.contains(task.getType()))
+                && (projectIds == null || projectIds.contains(projectId));
+    }
+
+    private static <E extends Enum<E>> Set<E> copyOf(Class<E> type, Collection<E> values) {
+        Set<E> set = EnumSet.noneOf(type);
+        for (E value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+}
@@ -3,8 +3,16 @@ package com.schedule.service;
 import com.schedule.model.Task;
 import com.schedule.model.Project;
 import com.schedule.model.Reminder;
+import com.schedule.util.Clock;
+import com.schedule.util.IdGenerator;
+import com.schedule.util.RoaringBitmap;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import com.schedule.model.Task.TaskStatus;
 import com.schedule.model.Task.TaskType;
@@ -13,16 +21,34 @@ import com.schedule.model.Task.Priority;
 /**
  * 任务服务类 - 管理任务的核心功能
  * 对应功能3：任务管理
+ * 界面线程、提醒检查线程和备份线程会同时访问，任务、项目、提醒和列存储由一把StampedLock保护：
+ * 增删改持有写锁，同时更新存储、列存储和提醒表；查询持有读锁，多个读取线程可以同时查询，
+ * 只读取数据版本时先乐观读取，期间有写入再加读锁重读。写锁没有按任务分段：每次写入都要更新所有任务共用的
+ * 列存储、位图索引、截止时间堆和版本计数，分段后这些共享结构仍需一把锁保护
+ * 每次修改任务都会给任务打上新的版本戳，编辑时用update(id, 版本戳, 修改)在写锁内检查并提交，发现他人已修改时返回冲突
+ * 未完成任务的截止时间登记在最小堆（DeadlineQueue）中，到期处理只取出刚到期的任务；已延迟任务单独保存为集合，
+ * getOverdueTasks()代价与过期任务数成正比。startDeadlineMonitor()启动后，任务在截止时间一到就被标记为已延迟
  */
 public class TaskService {
-    private Map<String, Task> taskMap;          // 存储所有任务
+    private TaskStore taskStore;                // 存储所有任务（按64位任务键）
     private Map<String, Project> projectMap;    // 存储所有项目
-    private List<Reminder> reminders;           // 存储所有提醒
+    private Map<String, Reminder> reminders;    // 任务ID -> 提醒，按添加顺序保存
+    private TaskColumns columns;                // 统计用的列存储，随任务增删改增量维护
+    private volatile long lastModifiedAt;       // 最近一次增删改任务的时间（毫秒），自动备份据此判断用户是否正在编辑
+    private long versionCounter;                // 任务版本戳计数，每次修改任务加1（删除和整体替换也加1）
+    private DeadlineQueue deadlines;            // 未完成任务的截止时间最小堆
+    private Set<String> overdueIds;             // 已延迟任务的ID，按延迟顺序保存
+    private volatile DeadlineScheduler deadlineScheduler; // 截止时间到达时自动标记延迟，未启动时为null
+    private final List<Consumer<Task>> overdueListeners = new CopyOnWriteArrayList<>();
+    private final StampedLock lock = new StampedLock(); // 保护以上所有状态
 
     public TaskService() {
-        this.taskMap = new HashMap<>();
+        this.taskStore = new TaskStore();
         this.projectMap = new HashMap<>();
-        this.reminders = new ArrayList<>();
+        this.reminders = new LinkedHashMap<>();
+        this.columns = new TaskColumns();
+        this.deadlines = new DeadlineQueue();
+        this.overdueIds = new LinkedHashSet<>();
         // 生成100条9月份的随机任务数据
         com.schedule.util.GenerateTestData.generateSeptemberTasks(this);
     }
@@ -77,56 +103,116 @@ public class TaskService {
 
     // 生成唯一ID
     private String generateId(String prefix) {
-        return prefix + "_" + UUID.randomUUID().toString().substring(0, 8);
+        return IdGenerator.newId(prefix);
     }
 
     // 添加任务（功能1：日程录入）
     public Task addTask(Task task) {
-        if (task.getId() == null || task.getId().isEmpty()) {
-            task.setId(generateId("task"));
+        long stamp = lock.writeLock();
+        try {
+            if (task.getId() == null || task.getId().isEmpty()) {
+                task.setId(generateId("task"));
+            }
+            task.setVersion(++versionCounter);
+            boolean existed = taskStore.contains(task.getId());
+            columns.upsert(taskStore.put(task), task);
+            trackDeadline(task, existed);
+            lastModifiedAt = System.currentTimeMillis();
+            // 为任务创建提醒；同ID的任务被重新添加时取消原来的提醒，还在提醒窗口或稍后提醒中的旧提醒不会再送达
+            Reminder previous = reminders.put(task.getId(), new Reminder(generateId("reminder"), task));
+            if (previous != null) {
+                previous.cancel();
+            }
+            return task;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        taskMap.put(task.getId(), task);
-        // 为任务创建提醒
-        Reminder reminder = new Reminder(generateId("reminder"), task);
-        reminders.add(reminder);
-        return task;
     }
 
     // 更新任务
     public Task updateTask(Task task) {
-        if (!taskMap.containsKey(task.getId())) {
-            return null;
-        }
-        taskMap.put(task.getId(), task);
-        // 更新关联的提醒
-        for (Reminder reminder : reminders) {
-            if (reminder.getTask().getId().equals(task.getId())) {
-                reminder.updateReminderTime();
-                break;
+        long stamp = lock.writeLock();
+        try {
+            if (!taskStore.contains(task.getId())) {
+                return null;
             }
+            task.setVersion(++versionCounter);
+            columns.upsert(taskStore.put(task), task);
+            trackDeadline(task, true);
+            lastModifiedAt = System.currentTimeMillis();
+            // 更新关联的提醒（传入的可能是新的任务对象）
+            Reminder reminder = reminders.get(task.getId());
+            if (reminder != null) {
+                reminder.setTask(task);
+            }
+            return task;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return task;
     }
 
     // 删除任务
     public boolean deleteTask(String taskId) {
-        if (!taskMap.containsKey(taskId)) {
-            return false;
+        long stamp = lock.writeLock();
+        try {
+            long key = taskStore.keyOf(taskId);
+            if (key < 0) {
+                return false;
+            }
+            taskStore.remove(taskId);
+            columns.remove(key);
+            versionCounter++;
+            deadlines.invalidate();
+            overdueIds.remove(taskId);
+            lastModifiedAt = System.currentTimeMillis();
+            // 删除并取消关联的提醒，正在进行的提醒无法再标记为已送达
+            Reminder reminder = reminders.remove(taskId);
+            if (reminder != null) {
+                reminder.cancel();
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        taskMap.remove(taskId);
-        // 删除关联的提醒
-        reminders.removeIf(reminder -> reminder.getTask().getId().equals(taskId));
-        return true;
+    }
+
+    // 数据版本：任何任务被增删改后都会变化，用于判断之前的查询结果是否仍然有效
+    // 乐观读取单个字段，读取期间有写入时加读锁重读
+    public long getDataVersion() {
+        long stamp = lock.tryOptimisticRead();
+        long version = versionCounter;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                version = versionCounter;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+
+    // 最近一次增删改任务的时间（毫秒），没有修改过时为0
+    public long getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+
+    /**
+     * 在统计用的列存储上执行只读计算，计算期间持有读锁，不会看到写了一半的列
+     * reader不能把列数组带出回调，回调结束后列数组可能被写入线程修改
+     */
+    public <T> T readColumns(Function<TaskColumns, T> reader) {
+        return read(() -> reader.apply(columns));
     }
 
     // 获取所有任务
     public List<Task> getAllTasks() {
-        return new ArrayList<>(taskMap.values());
+        return read(taskStore::values);
     }
 
     // 根据ID获取任务
     public Task getTaskById(String taskId) {
-        return taskMap.get(taskId);
+        return read(() -> taskStore.get(taskId));
     }
 
     // 根据日期获取任务（功能2：支持按日/周/月视图展示）
@@ -142,7 +228,7 @@ public class TaskService {
         cal.add(Calendar.DAY_OF_MONTH, 1);
         Date endOfDay = cal.getTime();
         
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .filter(task -> !task.getEndTime().before(startOfDay) && !task.getStartTime().after(endOfDay))
                 .collect(Collectors.toList());
     }
@@ -161,7 +247,7 @@ public class TaskService {
         cal.add(Calendar.WEEK_OF_YEAR, 1);
         Date endOfWeek = cal.getTime();
         
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .filter(task -> !task.getEndTime().before(startOfWeek) && !task.getStartTime().after(endOfWeek))
                 .collect(Collectors.toList());
     }
@@ -180,53 +266,189 @@ public class TaskService {
         cal.add(Calendar.MONTH, 1);
         Date endOfMonth = cal.getTime();
         
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .filter(task -> !task.getEndTime().before(startOfMonth) && !task.getStartTime().after(endOfMonth))
                 .collect(Collectors.toList());
     }
 
     // 根据优先级排序任务（功能3：支持按优先级排序）
     public List<Task> getTasksSortedByPriority() {
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .sorted(Comparator.comparing(Task::getPriority).reversed())
                 .collect(Collectors.toList());
     }
 
     // 根据截止时间排序任务（功能3：支持按截止时间排序）
     public List<Task> getTasksSortedByEndTime() {
-        return taskMap.values().stream()
+        return getAllTasks().stream()
                 .sorted(Comparator.comparing(Task::getEndTime))
                 .collect(Collectors.toList());
     }
 
     // 根据状态过滤任务（功能3：标记任务状态）
     public List<Task> getTasksByStatus(Task.TaskStatus status) {
-        return taskMap.values().stream()
-                .filter(task -> task.getStatus() == status)
-                .collect(Collectors.toList());
+        return filterTasks(TaskFilter.forStatus(status));
     }
 
-    // 自动更新过期任务的状态
-    public void updateOverdueTasksStatus() {
-        Date now = new Date();
-        for (Task task : taskMap.values()) {
-            // 如果任务未完成且已过结束时间，标记为已延迟
-            if (task.getStatus() != TaskStatus.COMPLETED && now.after(task.getEndTime())) {
-                task.setStatus(TaskStatus.DELAYED);
+    /**
+     * 按状态、优先级、类型和项目组合过滤任务：在列存储的位图索引上求并集和交集，只取出满足条件的任务
+     */
+    public List<Task> filterTasks(TaskFilter filter) {
+        if (filter.isUnrestricted()) {
+            return getAllTasks();
+        }
+        return read(() -> {
+            RoaringBitmap rows = columns.select(filter);
+            long[] keys = columns.keys();
+            List<Task> result = new ArrayList<>(rows.getCardinality());
+            rows.forEach(row -> result.add(taskStore.get(keys[row])));
+            return result;
+        });
+    }
+
+    /**
+     * 满足过滤条件的任务数，由位图的基数得出，不取出任务
+     */
+    public int countTasks(TaskFilter filter) {
+        return read(() -> columns.count(filter));
+    }
+
+    /**
+     * 自动更新过期任务的状态：从截止时间堆中取出已过截止时间的未完成任务，标记为已延迟
+     * 代价与到期任务数成正比；标记完成后（释放写锁后）依次通知过期监听器
+     * @return 本次新标记为已延迟的任务
+     */
+    public List<Task> updateOverdueTasksStatus() {
+        List<Task> delayedTasks = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            long now = Clock.get().millis();
+            for (Task task : deadlines.pollDue(now, taskStore::get)) {
+                // 在副本上标记为已延迟后替换原任务，正在编辑原任务的一方提交时会发现冲突
+                Task delayed = task.copy();
+                delayed.setStatus(TaskStatus.DELAYED);
+                delayed.setVersion(++versionCounter);
+                columns.upsert(taskStore.put(delayed), delayed);
+                overdueIds.add(delayed.getId());
                 // 确保不再提醒已延迟的任务
-                for (Reminder reminder : reminders) {
-                    if (reminder.getTask().getId().equals(task.getId())) {
-                        reminder.setNotified(true);
-                        break;
-                    }
+                Reminder reminder = reminders.get(task.getId());
+                if (reminder != null) {
+                    reminder.setTask(delayed);
+                    reminder.cancel();
                 }
+                delayedTasks.add(delayed);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        for (Task task : delayedTasks) {
+            for (Consumer<Task> listener : overdueListeners) {
+                listener.accept(task);
+            }
+        }
+        return delayedTasks;
+    }
+
+    // 获取已延迟的任务，代价与已延迟任务数成正比
+    public List<Task> getOverdueTasks() {
+        return read(() -> {
+            List<Task> result = new ArrayList<>(overdueIds.size());
+            for (String taskId : overdueIds) {
+                result.add(taskStore.get(taskId));
+            }
+            return result;
+        });
+    }
+
+    // 已延迟任务的数量
+    public int getOverdueCount() {
+        return read(() -> overdueIds.size());
+    }
+
+    // 最早的待处理截止时间（毫秒），没有时返回Long.MAX_VALUE
+    public long getNextDeadline() {
+        return read(() -> deadlines.peekTime());
+    }
+
+    // 添加过期监听器，任务被自动标记为已延迟时在标记线程上调用
+    public void addOverdueListener(Consumer<Task> listener) {
+        overdueListeners.add(listener);
+    }
+
+    public void removeOverdueListener(Consumer<Task> listener) {
+        overdueListeners.remove(listener);
+    }
+
+    // 启动截止时间调度，立即处理已过期的任务，之后每个任务在截止时间一到就被标记为已延迟
+    public synchronized void startDeadlineMonitor() {
+        if (deadlineScheduler == null) {
+            deadlineScheduler = new DeadlineScheduler(this);
+            deadlineScheduler.start();
+        }
+    }
+
+    public synchronized void stopDeadlineMonitor() {
+        if (deadlineScheduler != null) {
+            deadlineScheduler.stop();
+            deadlineScheduler = null;
+        }
+    }
+
+    // 登记任务的截止时间并维护已延迟集合，replaced为true表示替换了已有的任务（旧的堆条目随之失效）
+    private void trackDeadline(Task task, boolean replaced) {
+        if (replaced) {
+            deadlines.invalidate();
+        }
+        if (task.getStatus() == TaskStatus.DELAYED) {
+            overdueIds.add(task.getId());
+        } else {
+            overdueIds.remove(task.getId());
+        }
+        deadlines.add(task);
+        DeadlineScheduler scheduler = deadlineScheduler;
+        if (scheduler != null && task.getEndTime() != null) {
+            scheduler.deadlineAdded(task.getEndTime().getTime());
+        }
+    }
+
+    /**
+     * 乐观并发修改：任务的当前版本戳等于expectedVersion时，在任务副本上执行mutator并替换原任务
+     * 任务在此期间已被其他人修改时不做改动，返回CONFLICT和当前任务，调用方可以合并后用新的版本戳重试
+     * mutator在写锁内执行，只应修改传入的任务，不能调用TaskService的其他方法；任务ID不可修改
+     */
+    public UpdateResult update(String taskId, long expectedVersion, Consumer<Task> mutator) {
+        long stamp = lock.writeLock();
+        try {
+            Task current = taskStore.get(taskId);
+            if (current == null) {
+                return new UpdateResult(UpdateResult.Status.NOT_FOUND, null);
+            }
+            if (current.getVersion() != expectedVersion) {
+                return new UpdateResult(UpdateResult.Status.CONFLICT, current);
+            }
+
+            Task updated = current.copy();
+            mutator.accept(updated);
+            updated.setId(taskId);
+            updated.setVersion(++versionCounter);
+            columns.upsert(taskStore.put(updated), updated);
+            trackDeadline(updated, true);
+            lastModifiedAt = System.currentTimeMillis();
+            Reminder reminder = reminders.get(taskId);
+            if (reminder != null) {
+                reminder.setTask(updated);
             }
+            return new UpdateResult(UpdateResult.Status.UPDATED, updated);
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
     // 计算九月份的任务延迟率
     public double calculateSeptemberDelayRate() {
+        long now = Clock.coarse().millis();
         Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(now);
         int currentYear = cal.get(Calendar.YEAR); // 获取当前年份
         cal.set(Calendar.YEAR, currentYear); 
         cal.set(Calendar.MONTH, Calendar.SEPTEMBER);
@@ -240,71 +462,224 @@ public class TaskService {
         cal.add(Calendar.MONTH, 1);
         Date septemberEnd = cal.getTime();
         
-        // 获取九月份所有任务
-        List<Task> septemberTasks = taskMap.values().stream()
-                .filter(task -> !task.getEndTime().before(septemberStart) && !task.getStartTime().after(septemberEnd))
-                .collect(Collectors.toList());
-        
-        if (septemberTasks.isEmpty()) {
-            return 0.0;
-        }
-        
-        // 计算已到截止日期的任务数量（截止日期在当前时间之前的任务）
-        Date now = new Date();
-        long dueTasksCount = septemberTasks.stream()
-                .filter(task -> task.getEndTime().before(now))
-                .count();
+        // 在列存储上统计九月份任务中已到截止日期和已延迟的数量
+        long monthStart = septemberStart.getTime();
+        long monthEnd = septemberEnd.getTime();
+        byte completed = (byte) TaskStatus.COMPLETED.ordinal();
+        int[] counts = readColumns(cols -> {
+            long[] starts = cols.start();
+            long[] ends = cols.end();
+            byte[] statuses = cols.status();
+            int dueTasksCount = 0;
+            int delayedTasksCount = 0;
+            for (int i = 0, n = cols.size(); i < n; i++) {
+                if (ends[i] >= monthStart && starts[i] <= monthEnd && ends[i] < now) {
+                    dueTasksCount++;
+                    if (statuses[i] != completed) {
+                        delayedTasksCount++;
+                    }
+                }
+            }
+            return new int[] {dueTasksCount, delayedTasksCount};
+        });
         
-        if (dueTasksCount == 0) {
+        if (counts[0] == 0) {
             return 0.0;
         }
         
-        // 计算已延迟的任务数量（已到截止日期但未完成的任务）
-        long delayedTasksCount = septemberTasks.stream()
-                .filter(task -> task.getEndTime().before(now) && task.getStatus() != TaskStatus.COMPLETED)
-                .count();
-        
         // 正确计算延迟率：已延迟任务数/已到截止日期的任务数
-        return (double) delayedTasksCount / dueTasksCount * 100;
+        return (double) counts[1] / counts[0] * 100;
     }
 
     // 批量导入任务时调用的方法，避免重复添加提醒
     public Task addTaskWithoutReminder(Task task) {
-        if (task.getId() == null || task.getId().isEmpty()) {
-            task.setId(generateId("task"));
+        long stamp = lock.writeLock();
+        try {
+            if (task.getId() == null || task.getId().isEmpty()) {
+                task.setId(generateId("task"));
+            }
+            task.setVersion(++versionCounter);
+            boolean existed = taskStore.contains(task.getId());
+            columns.upsert(taskStore.put(task), task);
+            trackDeadline(task, existed);
+            // 覆盖已有任务时让原来的提醒指向新任务，不再按旧任务的时间提醒
+            Reminder reminder = existed ? reminders.get(task.getId()) : null;
+            if (reminder != null) {
+                reminder.setTask(task);
+            }
+            return task;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 用给定的任务和项目整体替换现有数据（从备份恢复时使用）
+     * 在新的存储、列存储和提醒表上一次性建好后整体换入，代价与任务数成线性，不逐个删除旧任务
+     */
+    public void replaceAll(List<Task> tasks, List<Project> projects) {
+        long stamp = lock.writeLock();
+        try {
+            versionCounter++;
+            Map<String, Project> newProjectMap = new HashMap<>();
+            if (projects != null) {
+                for (Project project : projects) {
+                    if (project.getId() == null || project.getId().isEmpty()) {
+                        project.setId(generateId("project"));
+                    }
+                    newProjectMap.put(project.getId(), project);
+                }
+            }
+
+            TaskStore newStore = new TaskStore();
+            TaskColumns newColumns = new TaskColumns();
+            Map<String, Reminder> newReminders = new LinkedHashMap<>();
+            DeadlineQueue newDeadlines = new DeadlineQueue();
+            Set<String> newOverdueIds = new LinkedHashSet<>();
+            if (tasks != null) {
+                for (Task task : tasks) {
+                    if (task.getId() == null || task.getId().isEmpty()) {
+                        task.setId(generateId("task"));
+                    }
+                    task.setVersion(++versionCounter);
+                    newColumns.upsert(newStore.put(task), task);
+                    newReminders.put(task.getId(), new Reminder(generateId("reminder"), task));
+                    newDeadlines.add(task);
+                    if (task.getStatus() == TaskStatus.DELAYED) {
+                        newOverdueIds.add(task.getId());
+                    }
+                }
+            }
+
+            for (Reminder old : reminders.values()) {
+                old.cancel();
+            }
+            this.projectMap = newProjectMap;
+            this.taskStore = newStore;
+            this.columns = newColumns;
+            this.reminders = newReminders;
+            this.deadlines = newDeadlines;
+            this.overdueIds = newOverdueIds;
+            DeadlineScheduler scheduler = deadlineScheduler;
+            if (scheduler != null && newDeadlines.peekTime() != Long.MAX_VALUE) {
+                scheduler.deadlineAdded(newDeadlines.peekTime());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        taskMap.put(task.getId(), task);
-        return task;
     }
 
     // 添加项目
     public Project addProject(Project project) {
-        if (project.getId() == null || project.getId().isEmpty()) {
-            project.setId(generateId("project"));
+        long stamp = lock.writeLock();
+        try {
+            if (project.getId() == null || project.getId().isEmpty()) {
+                project.setId(generateId("project"));
+            }
+            projectMap.put(project.getId(), project);
+            return project;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        projectMap.put(project.getId(), project);
-        return project;
     }
 
     // 获取所有项目
     public List<Project> getAllProjects() {
-        return new ArrayList<>(projectMap.values());
+        return read(() -> new ArrayList<>(projectMap.values()));
+    }
+
+    // 获取任务集合的O(1)快照，备份可在后台线程遍历，不会与界面上的修改冲突
+    // 快照会把存储标记为共享（之后的写入先复制），因此与写入一样持有写锁
+    public TaskStore.Snapshot snapshot() {
+        long stamp = lock.writeLock();
+        try {
+            return taskStore.snapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // 获取所有需要提醒的任务（功能2：提醒功能）
     public List<Reminder> getActiveReminders() {
-        return reminders.stream()
-                .filter(Reminder::shouldRemind)
+        List<Reminder> all = read(() -> new ArrayList<>(reminders.values()));
+        long now = Clock.coarse().millis();
+        return all.stream()
+                .filter(reminder -> reminder.shouldRemind(now))
                 .collect(Collectors.toList());
     }
 
-    // 标记提醒为已通知
+    /**
+     * 领取所有到期的提醒，返回的提醒已处于CLAIMED状态，由调用方负责提醒用户并调用markDelivered、snooze或release
+     * 领取通过CAS完成，多个线程同时调用时每个提醒只会被其中一个线程领取
+     */
+    public List<Reminder> claimDueReminders() {
+        List<Reminder> all = read(() -> new ArrayList<>(reminders.values()));
+        List<Reminder> claimed = new ArrayList<>();
+        long now = Clock.coarse().millis();
+        for (Reminder reminder : all) {
+            if (reminder.tryClaim(now)) {
+                claimed.add(reminder);
+            }
+        }
+        return claimed;
+    }
+
+    // 标记已领取的提醒为已通知
     public void markReminderAsNotified(String reminderId) {
-        for (Reminder reminder : reminders) {
-            if (reminder.getId().equals(reminderId)) {
-                reminder.setNotified(true);
-                break;
+        Reminder reminder = read(() -> {
+            for (Reminder r : reminders.values()) {
+                if (r.getId().equals(reminderId)) {
+                    return r;
+                }
             }
+            return null;
+        });
+        if (reminder != null) {
+            reminder.markDelivered();
+        }
+    }
+
+    /**
+     * 乐观并发修改的结果 - UPDATED时为修改后的任务，CONFLICT时为当前（他人修改后）的任务
+     */
+    public static final class UpdateResult {
+        public enum Status { UPDATED, CONFLICT, NOT_FOUND }
+
+        private final Status status;
+        private final Task task;
+
+        UpdateResult(Status status, Task task) {
+            this.status = status;
+            this.task = task;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public boolean isUpdated() {
+            return status == Status.UPDATED;
+        }
+
+        /** 结果中任务的版本戳，重试时作为expectedVersion传入；任务不存在时为-1 */
+        public long getVersion() {
+            return task != null ? task.getVersion() : -1;
+        }
+    }
+
+    // 执行只读操作：持有读锁，读取线程之间不互斥，只与写入互斥
+    // 查询要遍历存储、索引和列存储等多个非线程安全的结构，不加锁读取可能看到写了一半的状态（甚至在探测循环中不能结束），
+    // 所以只有读取单个版本号字段时才用乐观读
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
-}
\ No newline at end of file
+}
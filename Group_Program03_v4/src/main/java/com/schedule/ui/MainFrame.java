@@ -2,23 +2,29 @@ package com.schedule.ui;
 
 import com.schedule.model.Task;
 import com.schedule.model.Project;
-import com.schedule.model.Reminder;
 import com.schedule.service.TaskService;
 import com.schedule.service.StatisticsService;
+import com.schedule.service.BackupCatalog;
 import com.schedule.service.BackupService;
 import com.schedule.service.ExcelImportService;
+import com.schedule.service.ReminderNotifier;
+import com.schedule.service.TaskFilter;
 import com.schedule.util.DateUtil;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.text.SimpleDateFormat;
 import java.util.Comparator;
 
@@ -30,6 +36,7 @@ public class MainFrame extends JFrame {
     private StatisticsService statisticsService;
     private BackupService backupService;
     private ExcelImportService excelImportService;
+    private ReminderNotifier reminderNotifier; // 把到期提醒合并成一批后通知用户
     
     // UI组件
     private JTabbedPane tabbedPane;
@@ -42,6 +49,7 @@ public class MainFrame extends JFrame {
     
     private JTable taskTable;
     private DefaultTableModel taskTableModel;
+    private SearchController<Task> taskSearch; // 任务管理面板的搜索和过滤在后台执行
     
     // 甘特图组件
     private GanttChartPanel ganttChartPanel;
@@ -59,8 +67,8 @@ public class MainFrame extends JFrame {
         // 初始化UI
         initUI();
         
-        // 更新过期任务状态
-        taskService.updateOverdueTasksStatus();
+        // 更新过期任务状态，之后每个任务到截止时间时自动标记为已延迟
+        taskService.startDeadlineMonitor();
         
         // 加载任务数据
         loadAllTasks();
@@ -84,6 +92,9 @@ public class MainFrame extends JFrame {
         // 初始化UI
         initUI();
         
+        // 过期任务到截止时间时自动标记为已延迟
+        taskService.startDeadlineMonitor();
+        
         // 加载任务数据
         loadAllTasks();
         loadTasksForToday();
@@ -220,6 +231,8 @@ public class MainFrame extends JFrame {
         
         // 过滤和排序选项
         JPanel filterPanel = new JPanel();
+        JLabel searchLabel = new JLabel("搜索: ");
+        JTextField searchField = new JTextField(12);
         JLabel statusLabel = new JLabel("状态: ");
         JComboBox<Task.TaskStatus> statusComboBox = new JComboBox<>(Task.TaskStatus.values());
         statusComboBox.setSelectedIndex(-1); // 不选择任何状态
@@ -232,6 +245,8 @@ public class MainFrame extends JFrame {
         String[] sortOptions = {"默认", "按截止时间", "按优先级"};
         JComboBox<String> sortComboBox = new JComboBox<>(sortOptions);
         
+        filterPanel.add(searchLabel);
+        filterPanel.add(searchField);
         filterPanel.add(statusLabel);
         filterPanel.add(statusComboBox);
         filterPanel.add(priorityLabel);
@@ -268,9 +283,41 @@ public class MainFrame extends JFrame {
         refreshButton.addActionListener(e -> loadAllTasks());
         importButton.addActionListener(e -> importExcelData());
         
-        statusComboBox.addActionListener(e -> filterTasks(statusComboBox, priorityComboBox, sortComboBox));
-        priorityComboBox.addActionListener(e -> filterTasks(statusComboBox, priorityComboBox, sortComboBox));
-        sortComboBox.addActionListener(e -> filterTasks(statusComboBox, priorityComboBox, sortComboBox));
+        // 结果分页追加到表格，输入关键词时停顿片刻才查询，切换过滤条件时立即查询
+        taskSearch = new SearchController<>(taskService::getDataVersion, new SearchController.PageSink<Task>() {
+            private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
+
+            @Override
+            public void begin() {
+                taskTableModel.setRowCount(0);
+            }
+
+            @Override
+            public void page(List<Task> tasks) {
+                for (Task task : tasks) {
+                    addTaskRow(task, timeFormat);
+                }
+            }
+        });
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                taskSearch.submit(createFilterQuery(searchField, statusComboBox, priorityComboBox, sortComboBox));
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                taskSearch.submit(createFilterQuery(searchField, statusComboBox, priorityComboBox, sortComboBox));
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        searchField.addActionListener(e -> filterTasks(searchField, statusComboBox, priorityComboBox, sortComboBox));
+        statusComboBox.addActionListener(e -> filterTasks(searchField, statusComboBox, priorityComboBox, sortComboBox));
+        priorityComboBox.addActionListener(e -> filterTasks(searchField, statusComboBox, priorityComboBox, sortComboBox));
+        sortComboBox.addActionListener(e -> filterTasks(searchField, statusComboBox, priorityComboBox, sortComboBox));
         
         return panel;
     }
@@ -481,9 +528,19 @@ public class MainFrame extends JFrame {
     private JPanel createBackupPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         
-        // 备份列表
-        DefaultListModel<String> backupListModel = new DefaultListModel<>();
-        JList<String> backupList = new JList<>(backupListModel);
+        // 备份列表，列表项是清单条目本身，选中项直接对应显示时的备份，不随清单之后的变化错位
+        DefaultListModel<BackupCatalog.Entry> backupListModel = new DefaultListModel<>();
+        JList<BackupCatalog.Entry> backupList = new JList<>(backupListModel);
+        backupList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                BackupCatalog.Entry entry = (BackupCatalog.Entry) value;
+                String taskCount = entry.getTaskCount() >= 0 ? "，" + entry.getTaskCount() + "个任务" : "";
+                String text = entry.getId() + " (" + new Date(entry.getCreatedAt()) + taskCount + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
         JScrollPane listScrollPane = new JScrollPane(backupList);
         
         // 按钮面板
@@ -542,24 +599,31 @@ public class MainFrame extends JFrame {
     
     // 更新任务表格
     private void updateTaskTable(List<Task> tasks) {
+        if (taskSearch != null) {
+            taskSearch.cancel(); // 旧查询还没显示的结果页不能再追加到新表格中
+        }
         taskTableModel.setRowCount(0); // 清空表格
         
         SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
         
         for (Task task : tasks) {
-            Object[] rowData = {
-                task.getName(),
-                timeFormat.format(task.getStartTime()),
-                timeFormat.format(task.getEndTime()),
-                task.getPriority(),
-                task.getStatus(),
-                task.getType(),
-                task.getProject() != null ? task.getProject().getName() : "无"
-            };
-            taskTableModel.addRow(rowData);
+            addTaskRow(task, timeFormat);
         }
     }
     
+    private void addTaskRow(Task task, SimpleDateFormat timeFormat) {
+        Object[] rowData = {
+            task.getName(),
+            timeFormat.format(task.getStartTime()),
+            timeFormat.format(task.getEndTime()),
+            task.getPriority(),
+            task.getStatus(),
+            task.getType(),
+            task.getProject() != null ? task.getProject().getName() : "无"
+        };
+        taskTableModel.addRow(rowData);
+    }
+    
     // 显示添加任务对话框
     private void showAddTaskDialog() {
         TaskDialog dialog = new TaskDialog(this, "添加任务", taskService);
@@ -661,59 +725,117 @@ public class MainFrame extends JFrame {
         }
     }
     
-    // 过滤任务
-    private void filterTasks(JComboBox<Task.TaskStatus> statusComboBox, 
+    // 过滤任务（在后台查询，结果分页显示）
+    private void filterTasks(JTextField searchField,
+                           JComboBox<Task.TaskStatus> statusComboBox, 
                            JComboBox<Task.Priority> priorityComboBox, 
                            JComboBox<String> sortComboBox) {
-        List<Task> tasks = taskService.getAllTasks();
+        taskSearch.submitNow(createFilterQuery(searchField, statusComboBox, priorityComboBox, sortComboBox));
+    }
+    
+    // 在EDT上读取当前的过滤条件
+    private TaskFilterQuery createFilterQuery(JTextField searchField,
+                                              JComboBox<Task.TaskStatus> statusComboBox,
+                                              JComboBox<Task.Priority> priorityComboBox,
+                                              JComboBox<String> sortComboBox) {
+        return new TaskFilterQuery(taskService, searchField.getText(),
+                (Task.TaskStatus) statusComboBox.getSelectedItem(),
+                (Task.Priority) priorityComboBox.getSelectedItem(),
+                (String) sortComboBox.getSelectedItem());
+    }
+    
+    /**
+     * 任务过滤查询 - 按关键词（名称、内容或项目名，不区分大小写）、状态和优先级过滤，再按所选方式排序
+     * 排序方式相同、关键词包含上一次的关键词、上一次没有限定或限定了相同的状态和优先级时，结果是上一次的子集
+     */
+    private static class TaskFilterQuery implements SearchController.Query<Task> {
+        private final TaskService taskService;
+        private final String keyword;
+        private final Task.TaskStatus status;
+        private final Task.Priority priority;
+        private final String sortOption;
+        
+        TaskFilterQuery(TaskService taskService, String keyword, Task.TaskStatus status,
+                        Task.Priority priority, String sortOption) {
+            this.taskService = taskService;
+            this.keyword = keyword.trim().toLowerCase();
+            this.status = status;
+            this.priority = priority;
+            this.sortOption = sortOption;
+        }
         
-        // 按状态过滤
-        Task.TaskStatus selectedStatus = (Task.TaskStatus) statusComboBox.getSelectedItem();
-        if (selectedStatus != null) {
-            tasks = tasks.stream()
-                    .filter(task -> task.getStatus() == selectedStatus)
-                    .collect(java.util.stream.Collectors.toList());
+        @Override
+        public List<Task> run() {
+            // 状态和优先级在位图索引上过滤，只取出满足条件的任务；关键词再逐个比较
+            List<Task> tasks = taskService.filterTasks(new TaskFilter(
+                    status != null ? Collections.singleton(status) : null,
+                    priority != null ? Collections.singleton(priority) : null, null, null));
+            if (!keyword.isEmpty()) {
+                tasks = refine(tasks);
+            }
+            // 排序
+            if ("按截止时间".equals(sortOption)) {
+                tasks.sort(Comparator.comparing(Task::getEndTime));
+            } else if ("按优先级".equals(sortOption)) {
+                tasks.sort(Comparator.comparing(Task::getPriority).reversed());
+            }
+            return tasks;
+        }
+        
+        @Override
+        public boolean refines(SearchController.Query<Task> previous) {
+            if (!(previous instanceof TaskFilterQuery)) {
+                return false;
+            }
+            TaskFilterQuery last = (TaskFilterQuery) previous;
+            return Objects.equals(sortOption, last.sortOption)
+                    && keyword.contains(last.keyword)
+                    && (last.status == null || last.status == status)
+                    && (last.priority == null || last.priority == priority);
         }
         
-        // 按优先级过滤
-        Task.Priority selectedPriority = (Task.Priority) priorityComboBox.getSelectedItem();
-        if (selectedPriority != null) {
-            tasks = tasks.stream()
-                    .filter(task -> task.getPriority() == selectedPriority)
+        // 过滤不改变顺序，上一次的结果已按相同方式排序
+        @Override
+        public List<Task> refine(List<Task> previous) {
+            return previous.stream()
+                    .filter(this::matches)
                     .collect(java.util.stream.Collectors.toList());
         }
         
-        // 排序
-        String sortOption = (String) sortComboBox.getSelectedItem();
-        if ("按截止时间".equals(sortOption)) {
-            tasks.sort(Comparator.comparing(Task::getEndTime));
-        } else if ("按优先级".equals(sortOption)) {
-            tasks.sort(Comparator.comparing(Task::getPriority).reversed());
+        private boolean matches(Task task) {
+            return (status == null || task.getStatus() == status)
+                    && (priority == null || task.getPriority() == priority)
+                    && (keyword.isEmpty() || contains(task.getName()) || contains(task.getContent())
+                        || (task.getProject() != null && contains(task.getProject().getName())));
         }
         
-        // 更新表格
-        updateTaskTable(tasks);
+        private boolean contains(String text) {
+            return text != null && text.toLowerCase().contains(keyword);
+        }
     }
     
     // 加载备份列表
-    private void loadBackupList(DefaultListModel<String> model) {
+    private void loadBackupList(DefaultListModel<BackupCatalog.Entry> model) {
         model.clear();
-        List<String> backupFiles = backupService.listBackupFiles();
-        for (String file : backupFiles) {
-            File backupFile = new File(file);
-            model.addElement(backupFile.getName() + " (" + new Date(backupFile.lastModified()) + ")");
+        for (BackupCatalog.Entry entry : backupService.listBackups()) {
+            model.addElement(entry);
         }
     }
     
     // 执行备份
     private void performBackup() {
-        String backupPath = backupService.backupData();
+        // 备份在后台写文件，完成后回到界面线程提示结果
+        backupService.backupDataAsync().thenAccept(backupPath -> SwingUtilities.invokeLater(() -> showBackupResult(backupPath)));
+    }
+
+    // 显示备份结果并刷新备份列表
+    private void showBackupResult(String backupPath) {
         if (backupPath != null) {
             JOptionPane.showMessageDialog(this, "备份成功！备份文件保存在：" + backupPath, "成功", JOptionPane.INFORMATION_MESSAGE);
             // 刷新备份列表
             if (tabbedPane.getSelectedIndex() == 5) { // 备份面板
-                JList<String> backupList = (JList<String>) ((JScrollPane) backupPanel.getComponent(0)).getViewport().getView();
-                DefaultListModel<String> model = (DefaultListModel<String>) backupList.getModel();
+                JList<BackupCatalog.Entry> backupList = (JList<BackupCatalog.Entry>) ((JScrollPane) backupPanel.getComponent(0)).getViewport().getView();
+                DefaultListModel<BackupCatalog.Entry> model = (DefaultListModel<BackupCatalog.Entry>) backupList.getModel();
                 loadBackupList(model);
             }
         } else {
@@ -722,9 +844,9 @@ public class MainFrame extends JFrame {
     }
     
     // 从选中的备份恢复
-    private void restoreFromSelectedBackup(JList<String> backupList) {
-        int selectedIndex = backupList.getSelectedIndex();
-        if (selectedIndex == -1) {
+    private void restoreFromSelectedBackup(JList<BackupCatalog.Entry> backupList) {
+        BackupCatalog.Entry selected = backupList.getSelectedValue();
+        if (selected == null) {
             JOptionPane.showMessageDialog(this, "请先选择一个备份文件", "提示", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
@@ -732,9 +854,7 @@ public class MainFrame extends JFrame {
         int confirm = JOptionPane.showConfirmDialog(this, "确定要恢复此备份吗？当前数据将会被覆盖。", "确认恢复", JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            List<String> backupFiles = backupService.listBackupFiles();
-            String selectedBackup = backupFiles.get(selectedIndex);
-            boolean success = backupService.restoreFromBackup(selectedBackup);
+            boolean success = backupService.restoreFromBackup(backupService.getBackupFile(selected.getId()));
             
             if (success) {
                 JOptionPane.showMessageDialog(this, "恢复成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
@@ -748,9 +868,9 @@ public class MainFrame extends JFrame {
     }
     
     // 删除选中的备份
-    private void deleteSelectedBackup(JList<String> backupList, DefaultListModel<String> model) {
-        int selectedIndex = backupList.getSelectedIndex();
-        if (selectedIndex == -1) {
+    private void deleteSelectedBackup(JList<BackupCatalog.Entry> backupList, DefaultListModel<BackupCatalog.Entry> model) {
+        BackupCatalog.Entry selected = backupList.getSelectedValue();
+        if (selected == null) {
             JOptionPane.showMessageDialog(this, "请先选择一个备份文件", "提示", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
@@ -758,11 +878,8 @@ public class MainFrame extends JFrame {
         int confirm = JOptionPane.showConfirmDialog(this, "确定要删除此备份文件吗？", "确认删除", JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            List<String> backupFiles = backupService.listBackupFiles();
-            String selectedBackup = backupFiles.get(selectedIndex);
-            File file = new File(selectedBackup);
-            if (file.delete()) {
-                model.remove(selectedIndex);
+            if (backupService.deleteBackup(backupService.getBackupFile(selected.getId()))) {
+                model.removeElement(selected);
                 JOptionPane.showMessageDialog(this, "删除成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(this, "删除失败！", "错误", JOptionPane.ERROR_MESSAGE);
@@ -772,21 +889,15 @@ public class MainFrame extends JFrame {
     
     // 启动提醒检查线程
     private void startReminderChecker() {
+        reminderNotifier = new ReminderNotifier();
+        reminderNotifier.addSink(new ReminderPopup(this));
         Thread reminderThread = new Thread(() -> {
             while (true) {
                 try {
-                    // 检查是否有需要提醒的任务
-                    List<Reminder> reminders = taskService.getActiveReminders();
-                    for (Reminder reminder : reminders) {
-                        // 在EDT线程中显示提醒对话框
-                        SwingUtilities.invokeLater(() -> {
-                            Task task = reminder.getTask();
-                            JOptionPane.showMessageDialog(this,
-                                    "任务提醒：" + task.getName() + "\n开始时间：" + DateUtil.formatDate(task.getStartTime()) + "\n优先级：" + task.getPriority(),
-                                    "任务提醒",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                            taskService.markReminderAsNotified(reminder.getId());
-                        });
+                    // 领取到期的提醒，已领取的提醒不会被下一次检查再次领取
+                    // 同时到期的提醒合并成一批，在一个非模态窗口中显示；没有输出端时不领取，提醒保持等待
+                    if (reminderNotifier.hasSinks()) {
+                        reminderNotifier.submit(taskService.claimDueReminders());
                     }
                     
                     // 每分钟检查一次
@@ -0,0 +1,100 @@
+package com.schedule.ui;
+
+import com.schedule.model.Reminder;
+import com.schedule.service.ReminderNotifier;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 提醒弹窗 - ReminderNotifier的界面输出端，用一个非模态窗口列出同一批到期的提醒
+ * 窗口还开着时新到的提醒追加到列表中，不会弹出多个窗口，也不会阻塞EDT
+ */
+public class ReminderPopup implements ReminderNotifier.Sink {
+    private static final int SNOOZE_MINUTES = 10;
+
+    private final Frame owner;
+    // 以下字段只在EDT上访问
+    private JDialog dialog;
+    private DefaultListModel<String> listModel;
+    private final List<Reminder> shown = new ArrayList<>();
+
+    public ReminderPopup(Frame owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public void deliver(List<Reminder> batch) {
+        SwingUtilities.invokeLater(() -> show(batch));
+    }
+
+    private void show(List<Reminder> batch) {
+        if (dialog == null) {
+            createDialog();
+        }
+        for (Reminder reminder : batch) {
+            shown.add(reminder);
+            listModel.addElement(ReminderNotifier.describe(reminder));
+        }
+        dialog.setTitle("任务提醒（" + shown.size() + "）");
+        if (!dialog.isVisible()) {
+            dialog.setLocationRelativeTo(owner);
+            dialog.setVisible(true);
+        }
+        dialog.toFront();
+    }
+
+    private void createDialog() {
+        dialog = new JDialog(owner, "任务提醒", Dialog.ModalityType.MODELESS);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        listModel = new DefaultListModel<>();
+        JList<String> list = new JList<>(listModel);
+
+        JButton okButton = new JButton("知道了");
+        JButton snoozeButton = new JButton(SNOOZE_MINUTES + "分钟后再提醒");
+        okButton.addActionListener(e -> close());
+        snoozeButton.addActionListener(e -> {
+            for (Reminder reminder : shown) {
+                reminder.snooze(SNOOZE_MINUTES);
+            }
+            close();
+        });
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(snoozeButton);
+        buttonPanel.add(okButton);
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel("以下任务即将开始："), BorderLayout.NORTH);
+        panel.add(new JScrollPane(list), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        dialog.add(panel);
+        dialog.setSize(420, 300);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // 关闭事件是异步到达的，此时可能已经为新的一批提醒创建了窗口
+                if (e.getWindow() == dialog) {
+                    reset();
+                }
+            }
+        });
+    }
+
+    private void close() {
+        dialog.dispose();
+        reset();
+    }
+
+    // 窗口关闭后清空列表，下一批提醒重新创建窗口
+    private void reset() {
+        shown.clear();
+        dialog = null;
+        listModel = null;
+    }
+}
@@ -0,0 +1,172 @@
+package com.schedule.ui;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 边输入边搜索的控制器 - 输入停止DEBOUNCE_MILLIS后才查询，查询在后台线程上执行，不阻塞EDT
+ * 新的查询开始时取消还在执行的旧查询，旧查询已经送出的结果页也会被丢弃
+ * 新查询是上一次查询的细化（例如在关键词后继续输入）且数据没有变化时，只在上一次的结果中筛选，不重新扫描全部任务
+ * 结果按PAGE_SIZE分页送到EDT，每页显示完才送下一页，大结果集不会长时间占用EDT
+ */
+public class SearchController<T> {
+    public static final int DEBOUNCE_MILLIS = 200;
+    public static final int PAGE_SIZE = 500;
+
+    /**
+     * 一次查询，run和refine在后台线程上执行，界面上的过滤条件应在创建查询时读取
+     */
+    public interface Query<T> {
+        // 完整查询
+        List<T> run();
+
+        // 本次查询的结果是否一定是previous结果的子集
+        boolean refines(Query<T> previous);
+
+        // 从previous的结果中筛选出本次的结果
+        List<T> refine(List<T> previous);
+    }
+
+    /**
+     * 结果的接收方，所有方法都在EDT上调用
+     */
+    public interface PageSink<T> {
+        // 新一次查询的第一页到达前调用，通常清空表格
+        void begin();
+
+        void page(List<T> items);
+
+        default void end(int total) {
+        }
+    }
+
+    private final LongSupplier dataVersion; // 数据修改计数，变化后不能再在上一次的结果上细化
+    private final PageSink<T> sink;
+    private final Timer debounce;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong generation = new AtomicLong(); // 每次开始查询加1，结果页据此判断是否已过时
+
+    // 以下字段只在EDT上访问
+    private Query<T> pendingQuery;
+    private Future<?> running;
+
+    // 最近一次完成的查询及其结果，由后台线程写入
+    private Query<T> lastQuery;
+    private List<T> lastResult;
+    private long lastVersion;
+
+    public SearchController(LongSupplier dataVersion, PageSink<T> sink) {
+        this.dataVersion = dataVersion;
+        this.sink = sink;
+        this.debounce = new Timer(DEBOUNCE_MILLIS, e -> start(pendingQuery));
+        this.debounce.setRepeats(false);
+    }
+
+    /**
+     * 输入变化时调用，停止输入一段时间后才开始查询
+     */
+    public void submit(Query<T> query) {
+        pendingQuery = query;
+        debounce.restart();
+    }
+
+    /**
+     * 立即查询（按回车、切换过滤条件、数据修改后刷新时）
+     */
+    public void submitNow(Query<T> query) {
+        debounce.stop();
+        pendingQuery = null;
+        start(query);
+    }
+
+    /**
+     * 界面直接刷新表格前调用：取消等待中和执行中的查询，已经送出但还没显示的结果页也会被丢弃
+     */
+    public void cancel() {
+        debounce.stop();
+        pendingQuery = null;
+        generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    private void start(Query<T> query) {
+        long current = generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(true);
+        }
+        running = executor.submit(() -> execute(query, current));
+    }
+
+    // 后台线程：查询或细化，然后逐页送到EDT
+    private void execute(Query<T> query, long current) {
+        List<T> result;
+        try {
+            long version = dataVersion.getAsLong();
+            List<T> base = null;
+            synchronized (this) {
+                if (lastQuery != null && lastVersion == version && query.refines(lastQuery)) {
+                    base = lastResult;
+                }
+            }
+            result = base != null ? query.refine(base) : query.run();
+            if (isStale(current)) {
+                return;
+            }
+            synchronized (this) {
+                lastQuery = query;
+                lastResult = result;
+                lastVersion = version;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("搜索失败: " + e.getMessage());
+            return;
+        }
+
+        int total = result.size();
+        for (int from = 0; from == 0 || from < total; from += PAGE_SIZE) {
+            List<T> page = result.subList(from, Math.min(total, from + PAGE_SIZE));
+            boolean first = from == 0;
+            boolean last = from + PAGE_SIZE >= total;
+            try {
+                // 等这一页显示完再送下一页，期间到达的按键事件可以先处理
+                SwingUtilities.invokeAndWait(() -> {
+                    if (generation.get() != current) {
+                        return;
+                    }
+                    if (first) {
+                        sink.begin();
+                    }
+                    sink.page(page);
+                    if (last) {
+                        sink.end(total);
+                    }
+                });
+            } catch (InterruptedException e) {
+                return; // 已被新的查询取消
+            } catch (InvocationTargetException e) {
+                System.err.println("显示搜索结果失败: " + e.getCause().getMessage());
+                return;
+            }
+            if (isStale(current)) {
+                return;
+            }
+        }
+    }
+
+    private boolean isStale(long current) {
+        return generation.get() != current || Thread.currentThread().isInterrupted();
+    }
+}
@@ -10,6 +10,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.text.ParseException;
 import java.util.Date;
+import java.util.function.Consumer;
 
 /**
  * 任务对话框 - 用于添加和编辑任务
@@ -17,6 +18,7 @@ import java.util.Date;
 public class TaskDialog extends JDialog {
     private TaskService taskService;
     private Task task; // 要编辑的任务，如果是添加则为null
+    private long expectedVersion; // 打开对话框时任务的版本戳，提交修改时用于检查冲突
     private boolean confirmed = false;
     
     // UI组件
@@ -43,6 +45,7 @@ public class TaskDialog extends JDialog {
         super(owner, title, true);
         this.taskService = taskService;
         this.task = task;
+        this.expectedVersion = task.getVersion();
         initUI();
         loadTaskData();
     }
@@ -237,17 +240,32 @@ public class TaskDialog extends JDialog {
                 task.setReminderMinutes(reminderMinutes);
                 taskService.addTask(task);
             } else {
-                // 编辑任务
-                task.setName(name);
-                task.setContent(content);
-                task.setStartTime(startTime);
-                task.setEndTime(endTime);
-                task.setPriority(priority);
-                task.setStatus(status);
-                task.setType(type);
-                task.setProject(project);
-                task.setReminderMinutes(reminderMinutes);
-                taskService.updateTask(task);
+                // 编辑任务：按打开对话框时的版本戳提交，期间任务被其他地方修改过时询问是否覆盖
+                Consumer<Task> edit = t -> {
+                    t.setName(name);
+                    t.setContent(content);
+                    t.setStartTime(startTime);
+                    t.setEndTime(endTime);
+                    t.setPriority(priority);
+                    t.setStatus(status);
+                    t.setType(type);
+                    t.setProject(project);
+                    t.setReminderMinutes(reminderMinutes);
+                };
+                TaskService.UpdateResult result = taskService.update(task.getId(), expectedVersion, edit);
+                if (result.getStatus() == TaskService.UpdateResult.Status.CONFLICT) {
+                    int overwrite = JOptionPane.showConfirmDialog(this,
+                            "任务在编辑期间已被修改，是否用您的修改覆盖？", "修改冲突", JOptionPane.YES_NO_OPTION);
+                    if (overwrite != JOptionPane.YES_OPTION) {
+                        return;
+                    }
+                    result = taskService.update(task.getId(), result.getVersion(), edit);
+                }
+                if (!result.isUpdated()) {
+                    JOptionPane.showMessageDialog(this, "任务已被删除或再次被修改，修改未保存", "错误", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                task = result.getTask();
             }
             
             confirmed = true;
@@ -0,0 +1,115 @@
+package com.schedule.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ID生成器 - 生成单调递增的64位唯一ID（Snowflake风格）
+ * 位布局：41位毫秒时间戳 | 10位节点ID | 12位序列号
+ * 同一毫秒内最多生成4096个ID，序列号用尽时借用下一毫秒，保证不重复且不阻塞
+ */
+public class IdGenerator {
+    // 自定义纪元：2024-01-01 00:00:00 UTC
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final IdGenerator DEFAULT = new IdGenerator(defaultNodeId());
+
+    private final long nodeId;
+    // 高位为上次使用的时间戳（相对纪元），低12位为序列号，通过CAS整体更新
+    private final AtomicLong state = new AtomicLong();
+
+    public IdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在0到" + MAX_NODE_ID + "之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 生成下一个64位ID（无锁）
+     * @return 单调递增的ID
+     */
+    public long nextId() {
+        while (true) {
+            long prev = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            // 时间前进则序列号归零；同一毫秒或时钟回拨时在上次状态上加一
+            long next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+            if (state.compareAndSet(prev, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 使用默认生成器生成64位ID
+     */
+    public static long newLongId() {
+        return DEFAULT.nextId();
+    }
+
+    /**
+     * 使用默认生成器生成带前缀的紧凑字符串ID，如 task_2k1x9f0a8c
+     * @param prefix ID前缀
+     * @return 字符串形式的ID
+     */
+    public static String newId(String prefix) {
+        return prefix + "_" + toCompactString(DEFAULT.nextId());
+    }
+
+    /**
+     * 将64位ID转换为紧凑的36进制字符串
+     */
+    public static String toCompactString(long id) {
+        return Long.toString(id, Character.MAX_RADIX);
+    }
+
+    /**
+     * 从字符串ID中解析出64位ID
+     * @param id 由newId生成的字符串ID
+     * @return 64位ID，无法解析时返回-1
+     */
+    public static long parseId(String id) {
+        if (id == null) {
+            return -1;
+        }
+        // 生成的ID总是带有“前缀_”，没有分隔符的字符串不是本生成器产生的
+        int start = id.lastIndexOf('_') + 1;
+        if (start == 0 || start >= id.length()) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(id.substring(start), Character.MAX_RADIX);
+            return value >= 0 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 获取ID中包含的生成时间（毫秒）
+     */
+    public static long getTimestamp(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    // 默认节点ID：优先读取系统属性schedule.nodeId，否则取进程号的低10位
+    private static long defaultNodeId() {
+        String configured = System.getProperty("schedule.nodeId");
+        if (configured != null) {
+            try {
+                return Long.parseLong(configured.trim()) & MAX_NODE_ID;
+            } catch (NumberFormatException e) {
+                System.err.println("无效的节点ID配置: " + configured);
+            }
+        }
+        return ProcessHandle.current().pid() & MAX_NODE_ID;
+    }
+}
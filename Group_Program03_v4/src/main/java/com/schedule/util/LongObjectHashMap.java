@@ -0,0 +1,235 @@
+package com.schedule.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * long键哈希表 - 开放寻址（线性探测）实现，键以原始long存储，避免装箱和字符串哈希
+ * 值不允许为null，空槽以null值表示；删除采用回移法，不产生墓碑
+ * snapshot()以O(1)代价返回只读快照：快照与本表共享内部数组，本表在下一次写入前才复制数组（写时复制）
+ * @param <V> 值类型
+ */
+public class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+    private boolean shared;   // 内部数组与快照共享，写入前需先复制
+    private boolean readOnly; // 快照不允许写入
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    // 快照：共享source的内部数组
+    private LongObjectHashMap(LongObjectHashMap<V> source) {
+        this.keys = source.keys;
+        this.values = source.values;
+        this.size = source.size;
+        this.mask = source.mask;
+        this.resizeThreshold = source.resizeThreshold;
+        this.readOnly = true;
+    }
+
+    /**
+     * 获取当前内容的只读快照，代价为O(1)
+     * 之后对本表的第一次写入会复制一次内部数组，快照内容不受影响
+     */
+    public LongObjectHashMap<V> snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        shared = true;
+        return new LongObjectHashMap<>(this);
+    }
+
+    /**
+     * 获取键对应的值
+     * @return 对应的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 放入键值对
+     * @return 被替换的旧值，没有则返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("值不能为null");
+        }
+        prepareWrite();
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * 删除键
+     * @return 被删除的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        prepareWrite();
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V old = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("快照是只读的");
+        }
+        if (shared) {
+            allocate(values.length); // 不必复制即将清空的数组
+            shared = false;
+        } else {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * 获取所有值的副本
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 遍历所有值，不产生中间集合
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    // 写入前检查：快照不可写；数组与快照共享时先复制
+    private void prepareWrite() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("快照是只读的");
+        }
+        if (shared) {
+            keys = keys.clone();
+            values = values.clone();
+            shared = false;
+        }
+    }
+
+    // 删除后把后续同一探测链上的元素前移，保持查找链连续
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int ideal = hash(keys[next]) & mask;
+            // 仅当元素的理想位置不在(gap, next]区间内时才能移动到gap
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // 斐波那契散列，打散时间戳型ID的低位规律
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,261 @@
+package com.schedule.util;
+
+import com.schedule.model.Reminder;
+import com.schedule.model.Task;
+import com.schedule.model.Task.Priority;
+import com.schedule.model.Task.TaskStatus;
+import com.schedule.model.Task.TaskType;
+import com.schedule.service.TaskService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提醒模拟 - 在虚拟时钟上无界面地回放一段时间的任务负载，检查提醒和过期处理的行为，不必真实等待
+ * 每个检查周期（与MainFrame的提醒检查线程相同，默认60秒）：先执行到期的用户操作（完成任务、修改开始时间），
+ * 再由若干个检查线程同时领取到期提醒（模拟多个提醒线程竞争），最后处理到期的截止时间
+ * 输出：提醒延迟分布、漏发和重复的提醒、误发给已完成任务的提醒、过期标记的延迟和遗漏、检查的CPU耗时和相对真实时间的加速比
+ * 运行方式：java -cp bin com.schedule.util.ReminderSimulation [任务数] [天数] [检查间隔秒] [检查线程数]
+ */
+public class ReminderSimulation {
+    private static final int DEFAULT_TASKS = 10_000;
+    private static final int DEFAULT_DAYS = 30;
+    private static final int DEFAULT_POLL_SECONDS = 60;
+    private static final int DEFAULT_DISPATCHERS = 2;
+    private static final int[] REMINDER_MINUTES = {5, 10, 15, 30, 60};
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    // 一次用户操作：在time时刻完成任务或把任务开始时间移动shift毫秒
+    private static final class Action {
+        final long time;
+        final int task;
+        final boolean complete;
+        final long shift;
+
+        Action(long time, int task, boolean complete, long shift) {
+            this.time = time;
+            this.task = task;
+            this.complete = complete;
+            this.shift = shift;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DAYS;
+        long pollMillis = (args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_POLL_SECONDS) * 1000L;
+        int dispatchers = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DISPATCHERS;
+
+        // 任务时间按整点对齐，虚拟时钟从一个不对齐的时刻开始，提醒时间不会恰好落在检查时刻上
+        Random random = new Random(42);
+        long simStart = System.currentTimeMillis() / HOUR * HOUR + 17_000;
+        long simEnd = simStart + days * 24 * HOUR;
+        Clock.VirtualClock clock = new Clock.VirtualClock(simStart);
+        Clock.set(clock);
+        try {
+            run(taskCount, simStart, simEnd, pollMillis, dispatchers, clock, random);
+        } finally {
+            Clock.set(null);
+        }
+    }
+
+    private static void run(int taskCount, long simStart, long simEnd, long pollMillis, int dispatchers,
+                            Clock.VirtualClock clock, Random random) throws Exception {
+        TaskService taskService = new TaskService();
+        taskService.replaceAll(Collections.emptyList(), Collections.emptyList()); // 去掉构造时生成的示例数据
+
+        // 生成负载：开始时间集中在整点和半点（同一时刻有大量提醒同时到期），提前5到60分钟提醒
+        String[] ids = new String[taskCount];
+        long[] start = new long[taskCount];
+        long[] end = new long[taskCount];
+        int[] reminderMinutes = new int[taskCount];
+        long[] completedAt = new long[taskCount];
+        Arrays.fill(completedAt, Long.MAX_VALUE);
+        PriorityQueue<Action> actions = new PriorityQueue<>((a, b) -> Long.compare(a.time, b.time));
+        long span = simEnd - simStart - 4 * HOUR;
+        for (int i = 0; i < taskCount; i++) {
+            start[i] = (simStart + 2 * HOUR + (long) (random.nextDouble() * span)) / (30 * MINUTE) * (30 * MINUTE);
+            end[i] = start[i] + (1 + random.nextInt(6)) * 30 * MINUTE;
+            reminderMinutes[i] = REMINDER_MINUTES[random.nextInt(REMINDER_MINUTES.length)];
+            Task task = new Task(null, "任务" + i, new Date(start[i]), new Date(end[i]),
+                    Priority.values()[random.nextInt(Priority.values().length)], TaskType.DAILY, null);
+            task.setReminderMinutes(reminderMinutes[i]);
+            ids[i] = taskService.addTask(task).getId();
+
+            int kind = random.nextInt(100);
+            if (kind < 10) {
+                // 10%的任务在开始前后2小时内被完成，有的在提醒之前（不应再提醒），有的在提醒之后
+                long time = Math.max(simStart, start[i] - 2 * HOUR + (long) (random.nextDouble() * 4 * HOUR));
+                actions.add(new Action(time, i, true, 0));
+            } else if (kind < 15) {
+                // 5%的任务在提醒前1到6小时修改开始时间（前后最多3小时）
+                long shift = (long) ((random.nextDouble() * 2 - 1) * 3 * HOUR) / MINUTE * MINUTE;
+                long firstReminder = Math.min(start[i], start[i] + shift) - reminderMinutes[i] * MINUTE;
+                long time = firstReminder - HOUR - (long) (random.nextDouble() * 5 * HOUR);
+                if (time > simStart) {
+                    actions.add(new Action(time, i, false, shift));
+                }
+            }
+        }
+
+        // 记录提醒送达和过期标记
+        Map<String, Integer> indexOf = new ConcurrentHashMap<>();
+        for (int i = 0; i < taskCount; i++) {
+            indexOf.put(ids[i], i);
+        }
+        AtomicInteger[] deliveries = new AtomicInteger[taskCount];
+        long[] deliveredAt = new long[taskCount];
+        long[] delayedAt = new long[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            deliveries[i] = new AtomicInteger();
+        }
+        taskService.addOverdueListener(task -> {
+            Integer i = indexOf.get(task.getId());
+            if (i != null) {
+                delayedAt[i] = clock.millis();
+            }
+        });
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        LongAdder claimCpu = new LongAdder();
+        LongAdder overdueCpu = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(dispatchers);
+        List<Callable<Void>> dispatch = new ArrayList<>();
+        for (int d = 0; d < dispatchers; d++) {
+            dispatch.add(() -> {
+                long cpu = threads.getCurrentThreadCpuTime();
+                List<Reminder> claimed = taskService.claimDueReminders();
+                claimCpu.add(threads.getCurrentThreadCpuTime() - cpu);
+                long now = clock.millis();
+                for (Reminder reminder : claimed) {
+                    int i = indexOf.get(reminder.getTask().getId());
+                    if (deliveries[i].incrementAndGet() == 1) {
+                        deliveredAt[i] = now;
+                    }
+                    reminder.markDelivered();
+                }
+                return null;
+            });
+        }
+
+        // 按检查周期推进虚拟时间
+        long ticks = 0;
+        long wallStart = System.nanoTime();
+        for (long now = simStart; now <= simEnd; now = clock.advance(pollMillis)) {
+            while (!actions.isEmpty() && actions.peek().time <= now) {
+                Action action = actions.poll();
+                int i = action.task;
+                Task current = taskService.getTaskById(ids[i]);
+                if (action.complete) {
+                    taskService.update(ids[i], current.getVersion(), t -> t.setStatus(TaskStatus.COMPLETED));
+                    completedAt[i] = now;
+                } else {
+                    start[i] += action.shift;
+                    end[i] += action.shift;
+                    long newStart = start[i];
+                    long newEnd = end[i];
+                    taskService.update(ids[i], current.getVersion(), t -> {
+                        t.setStartTime(new Date(newStart));
+                        t.setEndTime(new Date(newEnd));
+                    });
+                }
+            }
+            pool.invokeAll(dispatch);
+            long cpu = threads.getCurrentThreadCpuTime();
+            taskService.updateOverdueTasksStatus();
+            overdueCpu.add(threads.getCurrentThreadCpuTime() - cpu);
+            ticks++;
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        pool.shutdown();
+
+        // 核对结果：用户操作在同一次检查之前执行，所以到期后第一次检查之前（含）完成的任务不应再提醒或标记过期
+        long lastPoll = simStart + (ticks - 1) * pollMillis;
+        List<Long> reminderLatency = new ArrayList<>();
+        List<Long> overdueLatency = new ArrayList<>();
+        int expectedReminders = 0, missed = 0, duplicates = 0, spurious = 0;
+        int expectedOverdue = 0, missedOverdue = 0, spuriousOverdue = 0;
+        for (int i = 0; i < taskCount; i++) {
+            long due = start[i] - reminderMinutes[i] * MINUTE;
+            int count = deliveries[i].get();
+            if (count > 1) {
+                duplicates += count - 1;
+            }
+            if (completedAt[i] <= firstPollAfter(due, simStart, pollMillis)) {
+                if (count > 0) {
+                    spurious++;
+                }
+            } else if (due < lastPoll) {
+                expectedReminders++;
+                if (count == 0) {
+                    missed++;
+                } else {
+                    reminderLatency.add(deliveredAt[i] - due);
+                }
+            }
+
+            if (completedAt[i] <= firstPollAfter(end[i], simStart, pollMillis)) {
+                if (delayedAt[i] != 0) {
+                    spuriousOverdue++;
+                }
+            } else if (end[i] < lastPoll) {
+                expectedOverdue++;
+                if (delayedAt[i] == 0) {
+                    missedOverdue++;
+                } else {
+                    overdueLatency.add(delayedAt[i] - end[i]);
+                }
+            }
+        }
+
+        double simulatedSeconds = (simEnd - simStart) / 1000.0;
+        System.out.printf("任务数: %d，模拟时长: %.0f天，检查间隔: %d秒，检查线程: %d，检查次数: %d%n",
+                taskCount, simulatedSeconds / 86400, pollMillis / 1000, dispatchers, ticks);
+        System.out.printf("提醒: 应送达 %d，漏发 %d，重复 %d，误发（任务已完成） %d%n",
+                expectedReminders, missed, duplicates, spurious);
+        printDistribution("提醒延迟", reminderLatency);
+        System.out.printf("过期标记: 应标记 %d，遗漏 %d，误标记 %d%n", expectedOverdue, missedOverdue, spuriousOverdue);
+        printDistribution("过期标记延迟", overdueLatency);
+        System.out.printf("CPU耗时: 领取提醒 %.1f ms（每次检查 %.1f us），过期处理 %.1f ms（每次 %.1f us）%n",
+                claimCpu.sum() / 1e6, claimCpu.sum() / 1e3 / ticks,
+                overdueCpu.sum() / 1e6, overdueCpu.sum() / 1e3 / ticks);
+        System.out.printf("实际用时: %.2f 秒，加速比: %.0fx%n", wallSeconds, simulatedSeconds / wallSeconds);
+    }
+
+    // time之后的第一次检查时刻（到期判断是严格大于）
+    private static long firstPollAfter(long time, long simStart, long pollMillis) {
+        return simStart + ((time - simStart) / pollMillis + 1) * pollMillis;
+    }
+
+    // 输出延迟分布（秒）
+    private static void printDistribution(String name, List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            System.out.println(name + ": 无数据");
+            return;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%s（秒）: p50 %.1f，p90 %.1f，p99 %.1f，最大 %.1f%n", name,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,237 @@
+package com.schedule.service;
+
+import com.schedule.model.Project;
+import com.schedule.model.Task;
+import com.schedule.model.Task.Priority;
+import com.schedule.model.Task.TaskStatus;
+import com.schedule.model.Task.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * TaskService并发压力测试 - 多个写线程同时增删改任务，多个读线程同时查询，结束后检查数量和索引
+ * 1. 每个写线程添加WRITER_TASKS个任务，其中一部分随后移到另一个项目、标记完成或删除，最终任务数必须与预期一致
+ * 2. 所有写线程还对同一批共享任务做版本戳检查的加1修改（冲突时重试），最终计数等于加1总次数，说明没有丢失更新
+ * 3. 读线程在写入期间不断查询，不允许出现任何异常（包括ConcurrentModificationException）
+ * 4. 结束后位图索引的过滤和计数、列存储的行数和统计结果必须与逐个扫描全部任务的结果一致
+ * 运行方式：java -cp 编译输出目录 com.schedule.service.TaskServiceStressTest，失败时抛出AssertionError
+ */
+public class TaskServiceStressTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 3;
+    private static final int WRITER_TASKS = 20_000;
+    private static final int SHARED_TASKS = 8;
+    private static final int INCREMENTS_PER_WRITER = 2_000;
+    private static final long MINUTE = 60 * 1000L;
+
+    public static void main(String[] args) throws Exception {
+        TaskService taskService = new TaskService();
+        taskService.replaceAll(Collections.emptyList(), Collections.emptyList()); // 去掉构造时生成的示例数据
+        StatisticsService statisticsService = new StatisticsService(taskService);
+        // 所有任务都在明天以后，测试期间不会有任务过期
+        long base = System.currentTimeMillis() + 24 * 60 * MINUTE;
+        Project moved = taskService.addProject(new Project("moved", "移入项目", ""));
+        List<Project> projects = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            projects.add(taskService.addProject(new Project("p" + w, "项目" + w, "")));
+        }
+
+        List<String> sharedIds = new ArrayList<>();
+        for (int i = 0; i < SHARED_TASKS; i++) {
+            Task task = new Task(null, "共享" + i, new Date(base), new Date(base + MINUTE),
+                    Priority.HIGH, TaskType.MEETING, null);
+            task.setReminderMinutes(0);
+            sharedIds.add(taskService.addTask(task).getId());
+        }
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(pool.submit(() -> {
+                start.await();
+                write(taskService, writer, base, projects.get(writer), moved, sharedIds);
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        query(taskService, statisticsService, base);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        pool.shutdown();
+        check(pool.awaitTermination(30, TimeUnit.SECONDS), "读线程没有结束");
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError("并发查询出现异常: " + failures.peek());
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+
+        verify(taskService, statisticsService, sharedIds);
+        System.out.println("TaskService并发压力测试通过，任务数 " + taskService.getAllTasks().size());
+    }
+
+    // 写线程：第i个任务在i%3==0时移到项目moved，i%7==0时标记完成，i%5==0时删除；前一部分任务添加后对一个共享任务加1
+    private static void write(TaskService taskService, int writer, long base, Project project, Project moved,
+                              List<String> sharedIds) {
+        for (int i = 0; i < WRITER_TASKS; i++) {
+            long start = base + (i % 48) * 30 * MINUTE;
+            Task task = taskService.addTask(new Task(null, "w" + writer + "_" + i, new Date(start),
+                    new Date(start + 30 * MINUTE), Priority.values()[i % Priority.values().length],
+                    TaskType.DAILY, project));
+            if (i % 3 == 0) {
+                Task copy = task.copy();
+                copy.setProject(moved);
+                check(taskService.updateTask(copy) != null, "更新任务失败");
+            }
+            if (i % 7 == 0) {
+                Task current = taskService.getTaskById(task.getId());
+                check(taskService.update(task.getId(), current.getVersion(),
+                        t -> t.setStatus(TaskStatus.COMPLETED)).isUpdated(), "标记完成失败");
+            }
+            if (i % 5 == 0) {
+                check(taskService.deleteTask(task.getId()), "删除任务失败");
+            }
+            if (i < INCREMENTS_PER_WRITER) {
+                increment(taskService, sharedIds.get((writer + i) % sharedIds.size()));
+            }
+        }
+    }
+
+    // 读出版本戳后在写锁外准备修改，提交时发现冲突就用新的版本戳重试
+    private static void increment(TaskService taskService, String taskId) {
+        while (true) {
+            Task current = taskService.getTaskById(taskId);
+            int next = current.getReminderMinutes() + 1;
+            TaskService.UpdateResult result = taskService.update(taskId, current.getVersion(),
+                    task -> task.setReminderMinutes(next));
+            if (result.isUpdated()) {
+                return;
+            }
+            check(result.getStatus() == TaskService.UpdateResult.Status.CONFLICT, "共享任务不存在");
+        }
+    }
+
+    private static void query(TaskService taskService, StatisticsService statisticsService, long base) {
+        for (Task task : taskService.getAllTasks()) {
+            check(task != null && task.getId() != null, "查询到空任务");
+        }
+        for (Task task : taskService.filterTasks(projectFilter("moved"))) {
+            check(task != null, "位图过滤返回了空任务");
+        }
+        taskService.getTasksByStatus(TaskStatus.COMPLETED);
+        taskService.countTasks(TaskFilter.forPriority(Priority.URGENT));
+        taskService.getTasksByDate(new Date(base));
+        taskService.getActiveReminders();
+        taskService.snapshot().values();
+        taskService.getAllProjects();
+        statisticsService.getTaskDelayRate();
+        statisticsService.getTasksByPriority();
+        statisticsService.getInProgressTasksCount();
+    }
+
+    private static void verify(TaskService taskService, StatisticsService statisticsService, List<String> sharedIds) {
+        int survivors = 0;
+        int moved = 0;
+        int completed = 0;
+        for (int i = 0; i < WRITER_TASKS; i++) {
+            if (i % 5 != 0) {
+                survivors++;
+                moved += i % 3 == 0 ? 1 : 0;
+                completed += i % 7 == 0 ? 1 : 0;
+            }
+        }
+        List<Task> all = taskService.getAllTasks();
+        int expected = WRITERS * survivors + SHARED_TASKS;
+        checkEquals(expected, all.size(), "任务总数");
+        checkEquals(expected, taskService.readColumns(TaskColumns::size), "列存储行数");
+
+        // 没有丢失更新：共享任务的计数之和等于加1的总次数
+        int increments = 0;
+        for (String id : sharedIds) {
+            increments += taskService.getTaskById(id).getReminderMinutes();
+        }
+        checkEquals(WRITERS * INCREMENTS_PER_WRITER, increments, "共享任务的加1次数");
+
+        // 位图索引的过滤和计数与逐个扫描一致
+        checkEquals(WRITERS * moved, ids(taskService.filterTasks(projectFilter("moved"))).size(), "移到moved项目的任务数");
+        checkSame(all, taskService.filterTasks(projectFilter("moved")), t -> t.getProject() != null
+                && "moved".equals(t.getProject().getId()), "项目过滤");
+        for (int w = 0; w < WRITERS; w++) {
+            checkEquals(survivors - moved, taskService.countTasks(projectFilter("p" + w)), "项目p" + w + "的计数");
+        }
+        checkEquals(WRITERS * completed, taskService.countTasks(TaskFilter.forStatus(TaskStatus.COMPLETED)), "已完成任务数");
+        checkSame(all, taskService.getTasksByStatus(TaskStatus.COMPLETED),
+                t -> t.getStatus() == TaskStatus.COMPLETED, "状态过滤");
+        Map<Priority, Integer> byPriority = statisticsService.getTasksByPriority();
+        for (Priority priority : Priority.values()) {
+            long scanned = all.stream().filter(t -> t.getPriority() == priority).count();
+            checkEquals(scanned, byPriority.getOrDefault(priority, 0), "优先级" + priority + "的统计");
+        }
+    }
+
+    private static TaskFilter projectFilter(String projectId) {
+        return new TaskFilter(null, null, null, Collections.singleton(projectId));
+    }
+
+    private static void checkSame(List<Task> all, List<Task> filtered, Predicate<Task> predicate,
+                                  String what) {
+        Set<String> scanned = new HashSet<>();
+        for (Task task : all) {
+            if (predicate.test(task)) {
+                scanned.add(task.getId());
+            }
+        }
+        check(scanned.equals(ids(filtered)), what + "与扫描结果不一致");
+    }
+
+    private static Set<String> ids(List<Task> tasks) {
+        Set<String> ids = new HashSet<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void checkEquals(long expected, long actual, String what) {
+        if (expected != actual) {
+            throw new AssertionError(what + "：期望 " + expected + "，实际 " + actual);
+        }
+    }
+}